@@ -1,16 +1,25 @@
 package com.codeanalyzer;
 
 import com.codeanalyzer.ast.ASTParser;
+import com.codeanalyzer.ast.CompilationUnitCache;
 import com.codeanalyzer.ast.ParsedProjectStructure;
+import com.codeanalyzer.config.ConfigurationManager;
+import com.codeanalyzer.config.PerformanceMonitor;
+import com.codeanalyzer.config.TuningProfile;
+import com.codeanalyzer.index.FileManifest;
 import com.codeanalyzer.index.IndexLevel;
 import com.codeanalyzer.index.IndexManager;
 import com.codeanalyzer.index.SearchResult;
+import com.codeanalyzer.index.ResultProjection;
+import com.codeanalyzer.index.SearchResultList;
 
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Java代码分析系统 - 集成AST解析和索引管理模块
@@ -18,20 +27,109 @@ import java.util.Map;
 public class CodeAnalyzerSystem {
     private final ASTParser astParser;
     private final IndexManager indexManager;
+    // 源文件清单路径，与索引存放在同一目录
+    private final Path manifestPath;
+    // 未设置队列容量时流水线分析使用的默认容量
+    public static final int DEFAULT_PIPELINE_QUEUE_CAPACITY = 64;
     private ParsedProjectStructure projectStructure;
+    // 流水线队列容量，大于0时全量分析以流水线方式边解析边索引
+    private int pipelineQueueCapacity = 0;
+    // 流水线分析后是否保留完整项目结构，语义分析和基于内存结构的增量分析需要
+    private boolean retainProjectStructure = true;
+    // 本系统的解析、索引和查询耗时统计
+    private final PerformanceMonitor performanceMonitor = new PerformanceMonitor();
 
     /**
-     * 初始化代码分析系统
+     * 初始化代码分析系统，除解析线程数外的调优参数取自ConfigurationManager
      * @param sourcePaths 源代码路径
      * @param indexPath 索引存储路径
      * @param threadCount 解析线程数
      */
     public CodeAnalyzerSystem(List<Path> sourcePaths, String indexPath, int threadCount) throws Exception {
+        this(sourcePaths, indexPath, withParserThreads(ConfigurationManager.getInstance().getTuningProfile(), threadCount));
+    }
+
+    /**
+     * 初始化代码分析系统
+     * @param sourcePaths 源代码路径
+     * @param indexPath 索引存储路径
+     * @param profile 调优参数
+     */
+    public CodeAnalyzerSystem(List<Path> sourcePaths, String indexPath, TuningProfile profile) throws Exception {
         // 初始化AST解析器
-        this.astParser = new ASTParser(sourcePaths, threadCount);
+        this.astParser = new ASTParser(sourcePaths, profile.getParserThreadCount());
+        astParser.setUnitCache(createUnitCache(ConfigurationManager.getInstance()));
+        astParser.setPerformanceMonitor(performanceMonitor);
+
+        // 初始化索引管理器，查询结果缓存在全局的CacheManager中
+        this.indexManager = new IndexManager(indexPath, profile);
+        indexManager.setPerformanceMonitor(performanceMonitor);
+        ConfigurationManager config = ConfigurationManager.getInstance();
+        if (config.isCacheEnabled()) {
+            indexManager.setResultCache(config.getCacheManager(),
+                    TimeUnit.MINUTES.toMillis(config.getCacheExpirationTimeMinutes()));
+        }
+        this.manifestPath = Paths.get(indexPath).resolve(FileManifest.MANIFEST_FILE);
+    }
+
+    private static TuningProfile withParserThreads(TuningProfile profile, int threadCount) {
+        profile.setParserThreadCount(threadCount);
+        return profile;
+    }
+
+    /**
+     * 按配置创建编译单元缓存，配置无效时退回默认的LRU缓存
+     */
+    private static CompilationUnitCache createUnitCache(ConfigurationManager config) {
+        try {
+            return CompilationUnitCache.create(
+                    CompilationUnitCache.Mode.fromString(config.getUnitCacheMode()),
+                    config.getUnitCacheMaxEntries(),
+                    config.getUnitCacheMaxSourceMB() * 1024L * 1024L);
+        } catch (IllegalArgumentException e) {
+            System.err.println("编译单元缓存配置无效，使用默认配置: " + e.getMessage());
+            return CompilationUnitCache.lru(CompilationUnitCache.DEFAULT_MAX_ENTRIES,
+                    CompilationUnitCache.DEFAULT_MAX_WEIGHT);
+        }
+    }
+
+    /**
+     * 获取本系统的性能监控器，包含parse.file、index.document和search.*等操作的耗时分布
+     */
+    public PerformanceMonitor getPerformanceMonitor() {
+        return performanceMonitor;
+    }
 
-        // 初始化索引管理器
-        this.indexManager = new IndexManager(indexPath);
+    /**
+     * 获取索引的运行状态
+     */
+    public IndexManager.Stats getIndexStats() throws Exception {
+        return indexManager.getStats();
+    }
+
+    /**
+     * 获取编译单元缓存的统计信息
+     */
+    public CompilationUnitCache.Stats getUnitCacheStats() {
+        return astParser.getUnitCacheStats();
+    }
+
+    /**
+     * 设置流水线队列容量
+     * @param pipelineQueueCapacity 同时在途的最大文件数，小于等于0表示先解析整个项目再构建索引
+     */
+    public void setPipelineQueueCapacity(int pipelineQueueCapacity) {
+        this.pipelineQueueCapacity = pipelineQueueCapacity;
+    }
+
+    /**
+     * 设置流水线分析后是否保留完整项目结构
+     * 只需要索引检索时设为false，流水线分析的内存占用只取决于队列容量，getProjectStructure返回null，
+     * 之后的增量分析需要重新解析整个项目
+     * @param retainProjectStructure 是否保留，默认保留
+     */
+    public void setRetainProjectStructure(boolean retainProjectStructure) {
+        this.retainProjectStructure = retainProjectStructure;
     }
 
     /**
@@ -39,6 +137,11 @@ public class CodeAnalyzerSystem {
      * @param projectPath 项目根目录
      */
     public void analyzeProject(Path projectPath) throws Exception {
+        if (pipelineQueueCapacity > 0) {
+            analyzeProjectPipelined(projectPath, retainProjectStructure);
+            return;
+        }
+
         System.out.println("开始分析项目: " + projectPath);
 
         // 1. 解析项目结构
@@ -48,6 +151,94 @@ public class CodeAnalyzerSystem {
         // 2. 构建索引
         indexManager.buildIndex(projectStructure);
         System.out.println("索引构建完成");
+
+        // 3. 记录源文件清单，作为后续增量分析的基准
+        FileManifest.scan(projectPath, null).save(manifestPath);
+    }
+
+    /**
+     * 以流水线方式分析指定项目：解析完成的文件经有界队列交给索引构建线程池并行写入，解析与索引重叠进行
+     * 解析窗口和写入队列各自最多容纳队列容量个文件
+     * @param projectPath 项目根目录
+     * @param retainStructure 是否保留完整项目结构（语义分析和增量分析需要），
+     *                        不保留时每个文件写入索引后即可回收，内存占用只取决于队列容量
+     */
+    public void analyzeProjectPipelined(Path projectPath, boolean retainStructure) throws Exception {
+        int queueCapacity = pipelineQueueCapacity > 0 ? pipelineQueueCapacity : DEFAULT_PIPELINE_QUEUE_CAPACITY;
+        System.out.println("开始流水线分析项目: " + projectPath + "，队列容量 " + queueCapacity);
+
+        // 先释放上一次的结构，不保留时分析期间也不持有
+        this.projectStructure = null;
+        ParsedProjectStructure structure = retainStructure ? new ParsedProjectStructure() : null;
+        final int[] entityCount = {0};
+
+        IndexManager.StreamingBuild build = indexManager.beginStreamingBuild(queueCapacity);
+        try {
+            astParser.parseProjectStreaming(projectPath, queueCapacity, (sourceFile, fileStructure) -> {
+                build.submit(sourceFile, fileStructure.getIrMap().values());
+                entityCount[0] += fileStructure.getEntities().size();
+                if (structure != null) {
+                    structure.merge(fileStructure);
+                }
+            });
+            build.finish();
+        } catch (Exception e) {
+            // 放弃后索引不完整，下一次分析（包括增量分析）会重新全量构建，关闭系统时回滚到上一次提交
+            build.abort();
+            throw e;
+        }
+
+        if (structure != null) {
+            structure.buildRelationships();
+        }
+        this.projectStructure = structure;
+        System.out.println("解析和索引完成，共提取 " + entityCount[0] + " 个代码实体");
+
+        FileManifest.scan(projectPath, null).save(manifestPath);
+    }
+
+    /**
+     * 增量分析指定项目，只重新解析和索引内容发生变化的文件
+     * 没有历史清单、或上一次全量构建失败导致索引不完整时，退化为全量分析
+     * @param projectPath 项目根目录
+     * @return 是否有文件新增、修改或删除（退化为全量分析时返回true）
+     */
+    public boolean analyzeProjectIncremental(Path projectPath) throws Exception {
+        FileManifest previous = FileManifest.load(manifestPath);
+        if (previous.isEmpty() || indexManager.isBuildPending()) {
+            analyzeProject(projectPath);
+            return true;
+        }
+
+        // 对比清单，找出新增/修改和删除的文件
+        FileManifest current = FileManifest.scan(projectPath, previous);
+        Set<String> changedFiles = current.changedSince(previous);
+        Set<String> removedFiles = current.removedSince(previous);
+        System.out.println("增量分析项目: " + projectPath + "，变更 " + changedFiles.size() +
+                " 个文件，删除 " + removedFiles.size() + " 个文件");
+
+        if (!changedFiles.isEmpty() || !removedFiles.isEmpty()) {
+            if (projectStructure == null) {
+                // 内存中没有上一次的解析结果，语义分析需要完整结构，只能全量解析
+                this.projectStructure = astParser.parseProject(projectPath);
+            } else {
+                // 只解析变更文件，并替换内存结构中对应的部分
+                astParser.evictFiles(projectPath, removedFiles);
+                ParsedProjectStructure changedStructure = astParser.parseFiles(projectPath, changedFiles);
+                projectStructure.removeFiles(changedFiles);
+                projectStructure.removeFiles(removedFiles);
+                projectStructure.merge(changedStructure);
+                projectStructure.buildRelationships();
+            }
+
+            // 只更新受影响文件的索引文档
+            indexManager.updateIndex(projectStructure, changedFiles, removedFiles);
+            System.out.println("增量索引更新完成");
+        }
+
+        // 即使没有内容变化也保存，以记录最新的修改时间
+        current.save(manifestPath);
+        return !changedFiles.isEmpty() || !removedFiles.isEmpty();
     }
 
     /**
@@ -65,9 +256,34 @@ public class CodeAnalyzerSystem {
      * @param level 索引级别
      * @param maxResults 最大结果数
      */
-    public List<SearchResult> search(String query, IndexLevel level, int maxResults) throws Exception {
-        List<SearchResult> results = indexManager.search(query, level, maxResults);
-        System.out.println("搜索 '" + query + "' 匹配 " + results.size() + " 个结果");
+    public SearchResultList search(String query, IndexLevel level, int maxResults) throws Exception {
+        return search(query, level, maxResults, null);
+    }
+
+    /**
+     * 分页全文检索
+     * @param query 查询字符串
+     * @param level 索引级别
+     * @param maxResults 每页结果数
+     * @param cursor 上一页返回的游标，为空时返回第一页
+     */
+    public SearchResultList search(String query, IndexLevel level, int maxResults, String cursor) throws Exception {
+        return search(query, level, maxResults, cursor, ResultProjection.ALL);
+    }
+
+    /**
+     * 分页全文检索，只返回投影中的属性
+     * @param query 查询字符串
+     * @param level 索引级别
+     * @param maxResults 每页结果数
+     * @param cursor 上一页返回的游标，为空时返回第一页
+     * @param projection 结果中需要填充的属性
+     */
+    public SearchResultList search(String query, IndexLevel level, int maxResults, String cursor,
+                                   ResultProjection projection) throws Exception {
+        SearchResultList results = indexManager.search(query, level, maxResults, cursor, projection);
+        System.out.println("搜索 '" + query + "' 匹配 " + results.size() + " 个结果" +
+                (results.isTruncated() ? "（查询超时，结果不完整）" : ""));
         return results;
     }
 
@@ -77,9 +293,10 @@ public class CodeAnalyzerSystem {
      * @param target 目标名称
      * @param maxResults 最大结果数
      */
-    public List<SearchResult> searchByRelation(String relationType, String target, int maxResults) throws Exception {
-        List<SearchResult> results = indexManager.searchByRelation(relationType, target, maxResults);
-        System.out.println("关系 '" + relationType + ":" + target + "' 匹配 " + results.size() + " 个结果");
+    public SearchResultList searchByRelation(String relationType, String target, int maxResults) throws Exception {
+        SearchResultList results = indexManager.searchByRelation(relationType, target, maxResults);
+        System.out.println("关系 '" + relationType + ":" + target + "' 匹配 " + results.size() + " 个结果" +
+                (results.isTruncated() ? "（查询超时，结果不完整）" : ""));
         return results;
     }
 
@@ -88,20 +305,48 @@ public class CodeAnalyzerSystem {
      * @param semanticQuery 语义查询
      * @param maxResults 最大结果数
      */
-    public List<SearchResult> semanticSearch(String semanticQuery, int maxResults) throws Exception {
-        List<SearchResult> results = indexManager.semanticSearch(semanticQuery, maxResults);
-        System.out.println("语义搜索 '" + semanticQuery + "' 匹配 " + results.size() + " 个结果");
+    public SearchResultList semanticSearch(String semanticQuery, int maxResults) throws Exception {
+        SearchResultList results = indexManager.semanticSearch(semanticQuery, maxResults);
+        System.out.println("语义搜索 '" + semanticQuery + "' 匹配 " + results.size() + " 个结果" +
+                (results.isTruncated() ? "（查询超时，结果不完整）" : ""));
         return results;
     }
 
+    /**
+     * 类名和方法名自动补全
+     * @param prefix 已输入的前缀
+     * @param maxResults 最多返回的候选数
+     */
+    public SearchResultList suggest(String prefix, int maxResults) throws Exception {
+        return indexManager.suggest(prefix, maxResults);
+    }
+
+    /**
+     * 创建高级检索使用的查询构建器，查询条件按索引的字段分析器处理
+     */
+    public IndexManager.QueryBuilder newQueryBuilder() {
+        return indexManager.newQueryBuilder();
+    }
+
     /**
      * 高级检索
      * @param queryBuilder 查询构建器
      * @param maxResults 最大结果数
      */
-    public List<SearchResult> advancedSearch(IndexManager.QueryBuilder queryBuilder, int maxResults) throws Exception {
-        List<SearchResult> results = indexManager.advancedSearch(queryBuilder, maxResults);
-        System.out.println("高级搜索匹配 " + results.size() + " 个结果");
+    public SearchResultList advancedSearch(IndexManager.QueryBuilder queryBuilder, int maxResults) throws Exception {
+        return advancedSearch(queryBuilder, maxResults, null);
+    }
+
+    /**
+     * 分页高级检索
+     * @param queryBuilder 查询构建器
+     * @param maxResults 每页结果数
+     * @param cursor 上一页返回的游标，为空时返回第一页
+     */
+    public SearchResultList advancedSearch(IndexManager.QueryBuilder queryBuilder, int maxResults, String cursor) throws Exception {
+        SearchResultList results = indexManager.advancedSearch(queryBuilder, maxResults, cursor);
+        System.out.println("高级搜索匹配 " + results.size() + " 个结果" +
+                (results.isTruncated() ? "（查询超时，结果不完整）" : ""));
         return results;
     }
 
@@ -204,7 +449,7 @@ public class CodeAnalyzerSystem {
             printSearchResults(results3);
 
             // 高级检索示例
-            IndexManager.QueryBuilder queryBuilder = new IndexManager.QueryBuilder(new org.apache.lucene.analysis.standard.StandardAnalyzer())
+            IndexManager.QueryBuilder queryBuilder = system.newQueryBuilder()
                     .ofType("METHOD")
                     .and(IndexManager.FIELD_NAME, "save*")
                     .or(IndexManager.FIELD_NAME, "update*")
@@ -2,9 +2,14 @@ package com.codeanalyzer.api;
 
 import com.codeanalyzer.CodeAnalyzerSystem;
 import com.codeanalyzer.ast.ParsedProjectStructure;
+import com.codeanalyzer.config.ConfigurationManager;
+import com.codeanalyzer.config.TuningProfile;
 import com.codeanalyzer.index.IndexLevel;
+import com.codeanalyzer.index.ResultProjection;
 import com.codeanalyzer.index.SearchResult;
+import com.codeanalyzer.index.SearchResultList;
 import com.codeanalyzer.semantic.*;
+import org.apache.lucene.queryparser.classic.ParseException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
@@ -17,9 +22,11 @@ import java.io.File;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
@@ -32,6 +39,11 @@ import java.util.concurrent.Executors;
 @RestController
 @RequestMapping("/api/v1")
 public class CodeAnalyzerApiController {
+    // 查询超时、结果不完整时设置的响应头
+    public static final String SEARCH_TRUNCATED_HEADER = "X-Search-Truncated";
+    // 还有更多结果时，通过该响应头返回下一页的游标
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     private final ExecutorService executorService = Executors.newFixedThreadPool(4);
 
     // 项目ID -> 分析系统实例
@@ -46,14 +58,24 @@ public class CodeAnalyzerApiController {
     // 索引存储路径
     private final Path indexBaseDir;
 
+    // 流水线分析的队列容量，0表示先解析整个项目再构建索引（两种方式都由索引构建线程池写入）
+    private final int pipelineQueueCapacity;
+
+    // 调优参数
+    private final TuningProfile tuningProfile;
+
     /**
      * 初始化控制器
      */
     @Autowired
     public CodeAnalyzerApiController(@Value("${analyzer.projects.dir:./projects}") String projectsDir,
-                                     @Value("${analyzer.index.dir:./indexes}") String indexBaseDir) {
+                                     @Value("${analyzer.index.dir:./indexes}") String indexBaseDir,
+                                     @Value("${analyzer.pipeline.queue-capacity:64}") int pipelineQueueCapacity,
+                                     TuningProfile tuningProfile) {
         this.projectsDir = Paths.get(projectsDir);
         this.indexBaseDir = Paths.get(indexBaseDir);
+        this.pipelineQueueCapacity = pipelineQueueCapacity;
+        this.tuningProfile = tuningProfile;
 
         // 创建必要的目录
         createDirectories();
@@ -110,6 +132,44 @@ public class CodeAnalyzerApiController {
         }
     }
 
+    /**
+     * 重新上传项目并增量分析，只重新解析和索引内容发生变化的文件
+     */
+    @PutMapping("/projects/{projectId}")
+    public ResponseEntity<ProjectResponse> updateProject(@PathVariable String projectId,
+                                                         @RequestParam("file") MultipartFile file) {
+        CodeAnalyzerSystem system = getAnalyzerSystem(projectId);
+        if (system == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(new ProjectResponse(projectId, "NOT_FOUND", "Project not found"));
+        }
+
+        try {
+            // 上传的文件先解压到独立的暂存目录，进行中的分析仍读取原来的源码，
+            // 由reanalyzeProject在项目锁内替换
+            Path stagingDir = projectsDir.resolve(projectId).resolve("staging-" + UUID.randomUUID());
+            Path stagedSource = stagingDir.resolve("src");
+            Files.createDirectories(stagedSource);
+            try {
+                Path zipFile = stagingDir.resolve("project.zip");
+                file.transferTo(zipFile.toFile());
+                unzipProject(zipFile, stagedSource);
+            } catch (Exception e) {
+                deleteDirectory(stagingDir.toFile());
+                throw e;
+            }
+
+            // 异步增量分析
+            CompletableFuture.runAsync(() -> reanalyzeProject(projectId, system, stagingDir), executorService);
+
+            return ResponseEntity.ok(new ProjectResponse(projectId, "PROCESSING",
+                    "Project update successful. Incremental analysis started."));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ProjectResponse(projectId, "ERROR", "Error updating project: " + e.getMessage()));
+        }
+    }
+
     /**
      * 获取项目状态
      */
@@ -128,6 +188,23 @@ public class CodeAnalyzerApiController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * 运行指标：堆内存、共享缓存，以及各项目的解析/索引吞吐量、段数、搜索器版本、
+     * 缓存命中率和各类查询的分位耗时
+     */
+    @GetMapping("/metrics")
+    public ResponseEntity<Map<String, Object>> getMetrics() {
+        return ResponseEntity.ok(new MetricsReport(analyzerSystems, ConfigurationManager.getInstance()).toMap());
+    }
+
+    /**
+     * Prometheus文本格式的运行指标
+     */
+    @GetMapping(value = "/metrics/prometheus", produces = "text/plain; version=0.0.4; charset=utf-8")
+    public ResponseEntity<String> getPrometheusMetrics() {
+        return ResponseEntity.ok(new MetricsReport(analyzerSystems, ConfigurationManager.getInstance()).toPrometheus());
+    }
+
     /**
      * 全文检索
      */
@@ -136,15 +213,21 @@ public class CodeAnalyzerApiController {
             @PathVariable String projectId,
             @RequestParam String query,
             @RequestParam(defaultValue = "ALL") IndexLevel level,
-            @RequestParam(defaultValue = "10") int maxResults) {
+            @RequestParam(defaultValue = "10") int maxResults,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) String fields) {
         try {
             CodeAnalyzerSystem system = getAnalyzerSystem(projectId);
             if (system == null) {
                 return ResponseEntity.status(HttpStatus.NOT_FOUND).body(null);
             }
 
-            List<SearchResult> results = system.search(query, level, maxResults);
-            return ResponseEntity.ok(results);
+            // fields为逗号分隔的属性列表，不指定时返回全部属性
+            ResultProjection projection = ResultProjection.parse(fields);
+            return searchResponse(system.search(query, level, maxResults, cursor, projection));
+        } catch (IllegalArgumentException | ParseException e) {
+            // 查询语法错误、以通配符开头、游标无效或属性名无法识别
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(null);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
         }
@@ -165,8 +248,7 @@ public class CodeAnalyzerApiController {
                 return ResponseEntity.status(HttpStatus.NOT_FOUND).body(null);
             }
 
-            List<SearchResult> results = system.searchByRelation(relationType, target, maxResults);
-            return ResponseEntity.ok(results);
+            return searchResponse(system.searchByRelation(relationType, target, maxResults));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
         }
@@ -186,8 +268,27 @@ public class CodeAnalyzerApiController {
                 return ResponseEntity.status(HttpStatus.NOT_FOUND).body(null);
             }
 
-            List<SearchResult> results = system.semanticSearch(query, maxResults);
-            return ResponseEntity.ok(results);
+            return searchResponse(system.semanticSearch(query, maxResults));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
+        }
+    }
+
+    /**
+     * 类名和方法名自动补全，支持名称前缀、驼峰缩写和完整ID前缀
+     */
+    @GetMapping("/projects/{projectId}/suggest")
+    public ResponseEntity<List<SearchResult>> suggest(
+            @PathVariable String projectId,
+            @RequestParam String prefix,
+            @RequestParam(defaultValue = "10") int maxResults) {
+        try {
+            CodeAnalyzerSystem system = getAnalyzerSystem(projectId);
+            if (system == null) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(null);
+            }
+
+            return ResponseEntity.ok(system.suggest(prefix, maxResults));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
         }
@@ -209,6 +310,73 @@ public class CodeAnalyzerApiController {
 
             List<String> methods = semanticAnalyzer.findRelatedMethods(methodId, direction);
             return ResponseEntity.ok(methods);
+        } catch (IllegalStateException e) {
+            // 增量更新刚替换并关闭了这个分析器，重试即可查询新的分析结果
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(null);
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
+        }
+    }
+
+    /**
+     * 高级语义分析 - 基于内存调用图查询多跳调用关系（影响分析）
+     * depth小于等于0时返回全部传递调用
+     */
+    @GetMapping("/projects/{projectId}/semantic/callgraph")
+    public ResponseEntity<Map<String, Integer>> findCallNeighborhood(
+            @PathVariable String projectId,
+            @RequestParam String methodId,
+            @RequestParam(defaultValue = "callees") String direction,
+            @RequestParam(defaultValue = "1") int depth) {
+        try {
+            SemanticAnalyzer semanticAnalyzer = getSemanticAnalyzer(projectId);
+            if (semanticAnalyzer == null) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(null);
+            }
+
+            Map<String, Integer> methods = semanticAnalyzer.findCallNeighborhood(methodId, direction, depth);
+            return ResponseEntity.ok(methods);
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
+        }
+    }
+
+    /**
+     * 高级语义分析 - 查询两个方法之间的最短调用路径
+     */
+    @GetMapping("/projects/{projectId}/semantic/callgraph/path")
+    public ResponseEntity<List<String>> findCallPath(
+            @PathVariable String projectId,
+            @RequestParam String from,
+            @RequestParam String to) {
+        try {
+            SemanticAnalyzer semanticAnalyzer = getSemanticAnalyzer(projectId);
+            if (semanticAnalyzer == null) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(null);
+            }
+
+            List<String> path = semanticAnalyzer.findCallPath(from, to);
+            return ResponseEntity.ok(path);
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
+        }
+    }
+
+    /**
+     * 高级语义分析 - 查询从入口方法出发可达的方法
+     */
+    @GetMapping("/projects/{projectId}/semantic/callgraph/reachable")
+    public ResponseEntity<Set<String>> findReachableMethods(
+            @PathVariable String projectId,
+            @RequestParam List<String> entryPoints) {
+        try {
+            SemanticAnalyzer semanticAnalyzer = getSemanticAnalyzer(projectId);
+            if (semanticAnalyzer == null) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(null);
+            }
+
+            Set<String> methods = semanticAnalyzer.findReachableMethods(entryPoints);
+            return ResponseEntity.ok(methods);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
         }
@@ -254,6 +422,9 @@ public class CodeAnalyzerApiController {
 
             List<CodeSimilarityPair> pairs = semanticAnalyzer.findSimilarMethods(methodId, minSimilarity);
             return ResponseEntity.ok(pairs);
+        } catch (IllegalStateException e) {
+            // 增量更新刚替换并关闭了这个分析器，重试即可查询新的分析结果
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(null);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
         }
@@ -274,6 +445,9 @@ public class CodeAnalyzerApiController {
 
             List<ConceptEntityResult> results = semanticAnalyzer.findEntitiesByConcept(concept);
             return ResponseEntity.ok(results);
+        } catch (IllegalStateException e) {
+            // 增量更新刚替换并关闭了这个分析器，重试即可查询新的分析结果
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(null);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
         }
@@ -310,6 +484,11 @@ public class CodeAnalyzerApiController {
                 system.close();
             }
 
+            SemanticAnalyzer semanticAnalyzer = semanticAnalyzers.remove(projectId);
+            if (semanticAnalyzer != null) {
+                semanticAnalyzer.close();
+            }
+
             // 删除项目目录
             Path projectDir = projectsDir.resolve(projectId);
             if (Files.exists(projectDir)) {
@@ -329,6 +508,20 @@ public class CodeAnalyzerApiController {
         }
     }
 
+    /**
+     * 搜索结果响应，查询超时返回部分结果时附带截断标记头，还有下一页时附带游标头
+     */
+    private ResponseEntity<List<SearchResult>> searchResponse(SearchResultList results) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (results.isTruncated()) {
+            response.header(SEARCH_TRUNCATED_HEADER, "true");
+        }
+        if (results.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, results.getNextCursor());
+        }
+        return response.body(results);
+    }
+
     /**
      * 获取分析器系统实例
      */
@@ -347,6 +540,7 @@ public class CodeAnalyzerApiController {
      * 异步分析项目
      */
     private void analyzeProject(String projectId, Path sourceDir) {
+        CodeAnalyzerSystem system = null;
         try {
             // 源代码路径
             List<Path> sourcePaths = Arrays.asList(sourceDir);
@@ -356,19 +550,25 @@ public class CodeAnalyzerApiController {
             Files.createDirectories(indexDir);
 
             // 创建分析系统
-            CodeAnalyzerSystem system = new CodeAnalyzerSystem(
+            system = new CodeAnalyzerSystem(
                     sourcePaths,
                     indexDir.toString(),
-                    4 // 线程数
+                    tuningProfile
             );
+            system.setPipelineQueueCapacity(pipelineQueueCapacity);
+            // 上传后紧接着做语义分析，更新时基于内存结构增量分析，都需要完整项目结构；
+            // 流水线在这里的作用是让解析与索引线程池重叠进行，峰值内存仍包含整个项目结构
+            system.setRetainProjectStructure(true);
 
             // 分析项目
             system.analyzeProject(sourceDir);
 
             // 创建语义分析器
             SemanticAnalyzer semanticAnalyzer = new SemanticAnalyzer(
-                    indexDir.resolve("semantic").toString()
+                    indexDir.resolve("semantic").toString(),
+                    tuningProfile
             );
+            semanticAnalyzer.setPerformanceMonitor(system.getPerformanceMonitor());
 
             // 获取解析结构
             ParsedProjectStructure projectStructure = system.getProjectStructure();
@@ -383,6 +583,59 @@ public class CodeAnalyzerApiController {
         } catch (Exception e) {
             // 记录错误
             e.printStackTrace();
+            if (system != null && analyzerSystems.get(projectId) != system) {
+                // 分析失败的系统不会被登记，关闭它：未完成的索引构建回滚到上一次提交
+                try {
+                    system.close();
+                } catch (Exception closeError) {
+                    System.err.println("关闭分析系统失败: " + closeError.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * 用暂存目录中的源码替换项目源码，增量分析后基于更新后的结构重新执行语义分析
+     * 语义分析仍针对整个项目：变更文件中方法的增删会改变其他文件中调用点的解析结果，
+     * 相似度候选和概念的权重也依赖全部方法，只重新分析变更文件会得到与全量分析不一致的结果；
+     * 没有文件变化时保留原有的语义分析结果
+     * @param stagingDir updateProject解压上传文件的暂存目录，处理结束后删除
+     */
+    private void reanalyzeProject(String projectId, CodeAnalyzerSystem system, Path stagingDir) {
+        // 同一项目的多次更新串行执行，源码替换和分析都在锁内进行
+        synchronized (system) {
+            try {
+                Path projectDir = projectsDir.resolve(projectId);
+                Path sourceDir = projectDir.resolve("src");
+                deleteDirectory(sourceDir.toFile());
+                Files.move(stagingDir.resolve("src"), sourceDir);
+                Files.move(stagingDir.resolve("project.zip"), projectDir.resolve("project.zip"),
+                        StandardCopyOption.REPLACE_EXISTING);
+
+                // 内容未变的文件通过哈希识别出来，不重新解析
+                if (!system.analyzeProjectIncremental(sourceDir)) {
+                    return;
+                }
+
+                SemanticAnalyzer semanticAnalyzer = new SemanticAnalyzer(
+                        indexBaseDir.resolve(projectId).resolve("semantic").toString(),
+                        tuningProfile
+                );
+                semanticAnalyzer.setPerformanceMonitor(system.getPerformanceMonitor());
+                semanticAnalyzer.analyzeProject(system.getProjectStructure());
+
+                // 替换后关闭旧分析器：已开始的查询正常完成，最后一个查询结束后释放子索引；
+                // 替换前取到旧分析器、关闭后才开始的查询返回503
+                SemanticAnalyzer previous = semanticAnalyzers.put(projectId, semanticAnalyzer);
+                if (previous != null) {
+                    previous.close();
+                }
+            } catch (Exception e) {
+                // 记录错误
+                e.printStackTrace();
+            } finally {
+                deleteDirectory(stagingDir.toFile());
+            }
         }
     }
 
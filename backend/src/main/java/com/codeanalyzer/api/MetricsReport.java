@@ -0,0 +1,281 @@
+package com.codeanalyzer.api;
+
+import com.codeanalyzer.CodeAnalyzerSystem;
+import com.codeanalyzer.ast.CompilationUnitCache;
+import com.codeanalyzer.config.CacheManager;
+import com.codeanalyzer.config.ConfigurationManager;
+import com.codeanalyzer.config.LatencyHistogram;
+import com.codeanalyzer.config.OperationMetric;
+import com.codeanalyzer.config.PerformanceMonitor;
+import com.codeanalyzer.index.IndexManager;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 运行指标报告 - 汇总JVM堆、全局缓存和各项目的解析、索引、查询指标
+ * 同一份数据可以输出为JSON结构或Prometheus文本格式
+ * 吞吐量和分位耗时取自最近一分钟的滑动窗口，次数和总耗时从启动开始累计
+ */
+final class MetricsReport {
+    // 全局性能监控器在Prometheus输出中使用的项目标签
+    private static final String GLOBAL_PROJECT = "global";
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+    private static final double WINDOW_SECONDS =
+            OperationMetric.WINDOW_SLOTS * OperationMetric.WINDOW_SLOT_NANOS / (double)TimeUnit.SECONDS.toNanos(1);
+
+    private final Map<String, CodeAnalyzerSystem> systems;
+    private final ConfigurationManager config;
+
+    MetricsReport(Map<String, CodeAnalyzerSystem> systems, ConfigurationManager config) {
+        this.systems = new TreeMap<>(systems);
+        this.config = config;
+    }
+
+    /**
+     * 生成JSON结构的指标
+     */
+    Map<String, Object> toMap() {
+        Map<String, Object> result = new LinkedHashMap<>();
+
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        Map<String, Object> heapMap = new LinkedHashMap<>();
+        heapMap.put("usedBytes", heap.getUsed());
+        heapMap.put("committedBytes", heap.getCommitted());
+        heapMap.put("maxBytes", heap.getMax());
+        result.put("heap", heapMap);
+
+        CacheManager cache = config.getCacheManager();
+        Map<String, Object> cacheMap = new LinkedHashMap<>();
+        cacheMap.put("entries", cache.size());
+        cacheMap.put("maxEntries", cache.getMaxEntries());
+        cacheMap.put("weightBytes", cache.getWeight());
+        cacheMap.put("maxWeightBytes", cache.getMaxWeight());
+        cacheMap.put("hits", cache.getHits());
+        cacheMap.put("misses", cache.getMisses());
+        cacheMap.put("hitRate", cache.getHitRate());
+        cacheMap.put("evictions", cache.getEvictions());
+        result.put("cache", cacheMap);
+
+        result.put("operations", operationsMap(config.getPerformanceMonitor()));
+
+        Map<String, Object> projects = new LinkedHashMap<>();
+        for (Map.Entry<String, CodeAnalyzerSystem> entry : systems.entrySet()) {
+            projects.put(entry.getKey(), projectMap(entry.getValue()));
+        }
+        result.put("projects", projects);
+        return result;
+    }
+
+    private Map<String, Object> projectMap(CodeAnalyzerSystem system) {
+        Map<String, Object> project = new LinkedHashMap<>();
+        PerformanceMonitor monitor = system.getPerformanceMonitor();
+        project.put("parseFilesPerSec", recentRate(monitor.getOperationMetric("parse.file")));
+        project.put("indexDocsPerSec", recentRate(monitor.getOperationMetric("index.document")));
+
+        Map<String, Object> index = new LinkedHashMap<>();
+        try {
+            IndexManager.Stats stats = system.getIndexStats();
+            index.put("segments", stats.getSegmentCount());
+            index.put("documents", stats.getDocumentCount());
+            index.put("searcherVersion", stats.getSearcherVersion());
+            index.put("resultCacheHits", stats.getResultCacheHits());
+            index.put("resultCacheMisses", stats.getResultCacheMisses());
+            index.put("resultCacheHitRate", hitRate(stats.getResultCacheHits(), stats.getResultCacheMisses()));
+        } catch (Exception e) {
+            index.put("error", e.getMessage());
+        }
+        project.put("index", index);
+
+        CompilationUnitCache.Stats unitStats = system.getUnitCacheStats();
+        Map<String, Object> unitCache = new LinkedHashMap<>();
+        unitCache.put("mode", unitStats.getMode().name());
+        unitCache.put("entries", unitStats.getEntries());
+        unitCache.put("sourceChars", unitStats.getSourceChars());
+        unitCache.put("hits", unitStats.getHits());
+        unitCache.put("misses", unitStats.getMisses());
+        unitCache.put("hitRate", hitRate(unitStats.getHits(), unitStats.getMisses()));
+        unitCache.put("evictions", unitStats.getEvictions());
+        unitCache.put("collected", unitStats.getCollected());
+        project.put("unitCache", unitCache);
+
+        project.put("operations", operationsMap(monitor));
+        return project;
+    }
+
+    private static Map<String, Object> operationsMap(PerformanceMonitor monitor) {
+        Map<String, Object> operations = new LinkedHashMap<>();
+        for (OperationMetric metric : monitor.getAllMetrics().values()) {
+            Map<String, Object> operation = new LinkedHashMap<>();
+            operation.put("count", metric.getCount());
+            operation.put("meanMs", metric.getAverageMillis());
+            operation.put("maxMs", toMillis(metric.getMaxNanos()));
+            LatencyHistogram recent = metric.getRecentHistogram();
+            operation.put("recentCount", recent.getCount());
+            operation.put("recentPerSec", recent.getCount() / WINDOW_SECONDS);
+            operation.put("p50Ms", toMillis(recent.getValueAtPercentile(50)));
+            operation.put("p90Ms", toMillis(recent.getValueAtPercentile(90)));
+            operation.put("p99Ms", toMillis(recent.getValueAtPercentile(99)));
+            operation.put("p999Ms", toMillis(recent.getValueAtPercentile(99.9)));
+            operation.put("recentMaxMs", toMillis(recent.getMaxNanos()));
+            operations.put(metric.getOperationType(), operation);
+        }
+        return operations;
+    }
+
+    /**
+     * 生成Prometheus文本格式（0.0.4）的指标
+     */
+    String toPrometheus() {
+        Families families = new Families();
+
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        String heapHelp = "JVM heap memory";
+        families.add("codeanalyzer_jvm_heap_bytes", "gauge", heapHelp, labels("area", "used"), heap.getUsed());
+        families.add("codeanalyzer_jvm_heap_bytes", "gauge", heapHelp, labels("area", "committed"), heap.getCommitted());
+        families.add("codeanalyzer_jvm_heap_bytes", "gauge", heapHelp, labels("area", "max"), heap.getMax());
+
+        CacheManager cache = config.getCacheManager();
+        families.add("codeanalyzer_cache_entries", "gauge", "Entries in the shared cache", "", cache.size());
+        families.add("codeanalyzer_cache_weight_bytes", "gauge", "Estimated size of the shared cache", "",
+                cache.getWeight());
+        families.add("codeanalyzer_cache_requests_total", "counter", "Shared cache lookups",
+                labels("result", "hit"), cache.getHits());
+        families.add("codeanalyzer_cache_requests_total", "counter", "Shared cache lookups",
+                labels("result", "miss"), cache.getMisses());
+        families.add("codeanalyzer_cache_evictions_total", "counter", "Shared cache size evictions", "",
+                cache.getEvictions());
+
+        addOperations(families, GLOBAL_PROJECT, config.getPerformanceMonitor());
+
+        for (Map.Entry<String, CodeAnalyzerSystem> entry : systems.entrySet()) {
+            String project = entry.getKey();
+            CodeAnalyzerSystem system = entry.getValue();
+            String projectLabel = labels("project", project);
+
+            try {
+                IndexManager.Stats stats = system.getIndexStats();
+                families.add("codeanalyzer_index_segments", "gauge", "Segments in the current searcher",
+                        projectLabel, stats.getSegmentCount());
+                families.add("codeanalyzer_index_documents", "gauge", "Documents visible to the current searcher",
+                        projectLabel, stats.getDocumentCount());
+                families.add("codeanalyzer_index_searcher_version", "gauge", "Reader version of the current searcher",
+                        projectLabel, stats.getSearcherVersion());
+                families.add("codeanalyzer_result_cache_requests_total", "counter", "Search result cache lookups",
+                        labels("project", project, "result", "hit"), stats.getResultCacheHits());
+                families.add("codeanalyzer_result_cache_requests_total", "counter", "Search result cache lookups",
+                        labels("project", project, "result", "miss"), stats.getResultCacheMisses());
+            } catch (Exception e) {
+                System.err.println("读取索引状态失败 " + project + ": " + e.getMessage());
+            }
+
+            CompilationUnitCache.Stats unitStats = system.getUnitCacheStats();
+            families.add("codeanalyzer_unit_cache_entries", "gauge", "Cached compilation units",
+                    projectLabel, unitStats.getEntries());
+            families.add("codeanalyzer_unit_cache_source_chars", "gauge", "Source characters of cached compilation units",
+                    projectLabel, unitStats.getSourceChars());
+            families.add("codeanalyzer_unit_cache_requests_total", "counter", "Compilation unit cache lookups",
+                    labels("project", project, "result", "hit"), unitStats.getHits());
+            families.add("codeanalyzer_unit_cache_requests_total", "counter", "Compilation unit cache lookups",
+                    labels("project", project, "result", "miss"), unitStats.getMisses());
+
+            addOperations(families, project, system.getPerformanceMonitor());
+        }
+        return families.toString();
+    }
+
+    private static void addOperations(Families families, String project, PerformanceMonitor monitor) {
+        String name = "codeanalyzer_operation_duration_seconds";
+        String help = "Operation latency, quantiles over the last minute";
+        for (OperationMetric metric : monitor.getAllMetrics().values()) {
+            String operation = metric.getOperationType();
+            LatencyHistogram recent = metric.getRecentHistogram();
+            for (double quantile : QUANTILES) {
+                families.add(name, "summary", help,
+                        labels("project", project, "operation", operation, "quantile", String.valueOf(quantile)),
+                        toSeconds(recent.getValueAtPercentile(quantile * 100)));
+            }
+            families.addSample(name, name + "_sum", labels("project", project, "operation", operation),
+                    toSeconds(metric.getTotalNanos()));
+            families.addSample(name, name + "_count", labels("project", project, "operation", operation),
+                    metric.getCount());
+            families.add("codeanalyzer_operation_rate", "gauge", "Operations per second over the last minute",
+                    labels("project", project, "operation", operation), recent.getCount() / WINDOW_SECONDS);
+        }
+    }
+
+    /**
+     * 按指标名分组的样本，同名样本连续输出，每组只输出一次HELP和TYPE
+     */
+    private static final class Families {
+        private final Map<String, List<String>> samples = new LinkedHashMap<>();
+        private final Map<String, String> headers = new LinkedHashMap<>();
+
+        void add(String name, String type, String help, String labels, double value) {
+            headers.putIfAbsent(name, "# HELP " + name + " " + help + "\n# TYPE " + name + " " + type + "\n");
+            addSample(name, name, labels, value);
+        }
+
+        void addSample(String family, String name, String labels, double value) {
+            samples.computeIfAbsent(family, k -> new ArrayList<>()).add(name + labels + " " + formatValue(value));
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder text = new StringBuilder();
+            for (Map.Entry<String, List<String>> entry : samples.entrySet()) {
+                text.append(headers.get(entry.getKey()));
+                for (String sample : entry.getValue()) {
+                    text.append(sample).append('\n');
+                }
+            }
+            return text.toString();
+        }
+    }
+
+    // 标签按名称、值成对传入
+    private static String labels(String... pairs) {
+        StringBuilder text = new StringBuilder("{");
+        for (int i = 0; i < pairs.length; i += 2) {
+            if (i > 0) {
+                text.append(',');
+            }
+            text.append(pairs[i]).append("=\"").append(escapeLabel(pairs[i + 1])).append('"');
+        }
+        return text.append('}').toString();
+    }
+
+    private static String escapeLabel(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static String formatValue(double value) {
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            return String.valueOf((long)value);
+        }
+        return String.valueOf(value);
+    }
+
+    private static double recentRate(OperationMetric metric) {
+        return metric == null ? 0 : metric.getRecentHistogram().getCount() / WINDOW_SECONDS;
+    }
+
+    private static double hitRate(long hits, long misses) {
+        long total = hits + misses;
+        return total > 0 ? (double)hits / total : 0.0;
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / (double)TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    private static double toSeconds(long nanos) {
+        return nanos / (double)TimeUnit.SECONDS.toNanos(1);
+    }
+}
@@ -0,0 +1,68 @@
+package com.codeanalyzer.api;
+
+import com.codeanalyzer.config.ConfigurationManager;
+import com.codeanalyzer.config.PerformanceOptimizer;
+import com.codeanalyzer.config.TuningProfile;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 调优参数配置 - 启动时生成全局的TuningProfile
+ * 顺序：默认配置 -> 按可用内存和核数自动调优（analyzer.tuning.auto） -> application.properties中显式指定的值
+ */
+@Configuration
+public class TuningConfiguration {
+    // application.properties属性 -> ConfigurationManager配置项
+    private static final Map<String, String> PROPERTY_KEYS = new LinkedHashMap<>();
+
+    static {
+        PROPERTY_KEYS.put("analyzer.parser.thread-count", "parser.threadCount");
+        PROPERTY_KEYS.put("analyzer.parser.unit-cache.mode", "parser.unitCache.mode");
+        PROPERTY_KEYS.put("analyzer.parser.unit-cache.max-entries", "parser.unitCache.maxEntries");
+        PROPERTY_KEYS.put("analyzer.parser.unit-cache.max-source-mb", "parser.unitCache.maxSourceMB");
+        PROPERTY_KEYS.put("analyzer.index.thread-count", "index.threadCount");
+        PROPERTY_KEYS.put("analyzer.index.ram-buffer-size-mb", "index.ramBufferSizeMB");
+        PROPERTY_KEYS.put("analyzer.index.use-compound-file", "index.useCompoundFile");
+        PROPERTY_KEYS.put("analyzer.index.merge-policy", "index.mergePolicy");
+        PROPERTY_KEYS.put("analyzer.index.merge-factor", "index.mergeFactor");
+        PROPERTY_KEYS.put("analyzer.index.max-merged-segment-mb", "index.maxMergedSegmentMB");
+        PROPERTY_KEYS.put("analyzer.index.merge-thread-count", "index.mergeThreadCount");
+        PROPERTY_KEYS.put("analyzer.index.max-staleness-sec", "index.maxStalenessSec");
+        PROPERTY_KEYS.put("analyzer.query.timeout-ms", "query.timeout");
+        PROPERTY_KEYS.put("analyzer.query.max-results", "query.maxResults");
+        PROPERTY_KEYS.put("analyzer.cache.enable", "cache.enabled");
+        PROPERTY_KEYS.put("analyzer.cache.expiry-minutes", "cache.expirationTimeMinutes");
+        PROPERTY_KEYS.put("analyzer.cache.max-entries", "cache.maxEntries");
+        PROPERTY_KEYS.put("analyzer.cache.max-weight-mb", "cache.maxWeightMB");
+        PROPERTY_KEYS.put("analyzer.semantic.similarity-bands", "semantic.similarity.bands");
+        PROPERTY_KEYS.put("analyzer.semantic.similarity-rows-per-band", "semantic.similarity.rowsPerBand");
+    }
+
+    /**
+     * 生成调优参数，分析系统和语义分析器创建时使用
+     */
+    @Bean
+    public TuningProfile tuningProfile(Environment environment) {
+        ConfigurationManager configManager = ConfigurationManager.getInstance();
+
+        if (environment.getProperty("analyzer.tuning.auto", Boolean.class, true)) {
+            new PerformanceOptimizer().optimizeConfigurations();
+        }
+
+        // 显式配置优先于自动调优的结果
+        for (Map.Entry<String, String> entry : PROPERTY_KEYS.entrySet()) {
+            String value = environment.getProperty(entry.getKey());
+            if (value != null && !value.trim().isEmpty()) {
+                configManager.setConfig(entry.getValue(), value.trim());
+            }
+        }
+
+        TuningProfile profile = configManager.getTuningProfile();
+        System.out.println("调优参数: " + profile);
+        return profile;
+    }
+}
@@ -1,12 +1,15 @@
 package com.codeanalyzer.ast;
 
+import com.codeanalyzer.config.PerformanceMonitor;
 import com.github.javaparser.JavaParser;
 import com.github.javaparser.ParseResult;
 import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.Node;
 import com.github.javaparser.ast.body.*;
+import com.github.javaparser.ast.expr.Expression;
+import com.github.javaparser.ast.expr.MethodCallExpr;
 import com.github.javaparser.ast.nodeTypes.NodeWithJavadoc;
 import com.github.javaparser.ast.nodeTypes.NodeWithName;
-import com.github.javaparser.ast.nodeTypes.NodeWithSimpleName;
 import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
 import com.github.javaparser.javadoc.Javadoc;
 import com.github.javaparser.symbolsolver.JavaSymbolSolver;
@@ -18,7 +21,7 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.nio.file.Path;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
@@ -31,14 +34,19 @@ import java.util.concurrent.Future;
  * 3. 构建统一的中间表示(IR)，便于索引和检索
  */
 public class ASTParser {
-    // 文件->编译单元的映射缓存
-    private final Map<Path, CompilationUnit> parsedUnits = new ConcurrentHashMap<>();
+    // 文件->编译单元的缓存，默认为有界LRU
+    private volatile CompilationUnitCache unitCache =
+            CompilationUnitCache.lru(CompilationUnitCache.DEFAULT_MAX_ENTRIES, CompilationUnitCache.DEFAULT_MAX_WEIGHT);
     // 线程池，用于并行解析
     private final ExecutorService executorService;
     // IR构建器
     private final IRBuilder irBuilder = new IRBuilder();
     // 源代码根路径
     private final List<Path> sourceRootPaths;
+    // 是否使用符号解析器解析方法调用的声明类型（准确但较慢，默认关闭）
+    private volatile boolean symbolResolutionEnabled = false;
+    // 单个文件的解析耗时统计
+    private volatile PerformanceMonitor performanceMonitor = new PerformanceMonitor();
 
     /**
      * 初始化AST解析器
@@ -50,43 +58,121 @@ public class ASTParser {
         this.executorService = Executors.newFixedThreadPool(threadCount);
     }
 
+    /**
+     * 设置是否使用符号解析器解析方法调用的声明类型
+     * 开启后调用图更准确，但解析耗时会显著增加
+     */
+    public void setSymbolResolutionEnabled(boolean symbolResolutionEnabled) {
+        this.symbolResolutionEnabled = symbolResolutionEnabled;
+    }
+
+    /**
+     * 设置编译单元缓存，原缓存中的内容被丢弃
+     */
+    public void setUnitCache(CompilationUnitCache unitCache) {
+        CompilationUnitCache previous = this.unitCache;
+        this.unitCache = unitCache;
+        previous.clear();
+    }
+
+    /**
+     * 设置解析耗时统计使用的性能监控器，默认每个解析器单独统计
+     */
+    public void setPerformanceMonitor(PerformanceMonitor performanceMonitor) {
+        this.performanceMonitor = performanceMonitor;
+    }
+
+    /**
+     * 获取性能监控器
+     */
+    public PerformanceMonitor getPerformanceMonitor() {
+        return performanceMonitor;
+    }
+
+    /**
+     * 获取缓存的编译单元
+     * @param file 源文件
+     * @return 编译单元，未缓存、已淘汰或已被回收时返回null
+     */
+    public CompilationUnit getCachedUnit(Path file) {
+        return unitCache.get(file.toAbsolutePath().normalize());
+    }
+
+    /**
+     * 获取编译单元缓存的统计信息
+     */
+    public CompilationUnitCache.Stats getUnitCacheStats() {
+        return unitCache.getStats();
+    }
+
     /**
      * 解析指定目录下的所有Java文件
      * @param rootDir 源代码根目录
      * @return 解析结果，包含所有提取的IR
      */
     public ParsedProjectStructure parseProject(Path rootDir) {
-        List<File> javaFiles = collectJavaFiles(rootDir.toFile());
+        return parseJavaFiles(rootDir, collectJavaFiles(rootDir.toFile()));
+    }
 
-        // 单阶段解析 - 为了避免多线程问题，使用单线程顺序解析
-        // 对于测试用例，这是最可靠的方法
+    /**
+     * 只解析指定的文件，用于增量分析
+     * @param rootDir 源代码根目录
+     * @param relativePaths 相对于根目录的文件路径
+     * @return 解析结果，仅包含指定文件中的IR
+     */
+    public ParsedProjectStructure parseFiles(Path rootDir, Collection<String> relativePaths) {
+        List<File> javaFiles = new ArrayList<>();
+        for (String relativePath : relativePaths) {
+            javaFiles.add(rootDir.resolve(relativePath).toFile());
+        }
+        return parseJavaFiles(rootDir, javaFiles);
+    }
 
-        // 设置符号解析器
-        CombinedTypeSolver typeSolver = new CombinedTypeSolver();
-        typeSolver.add(new ReflectionTypeSolver());
-        for (Path path : sourceRootPaths) {
-            typeSolver.add(new JavaParserTypeSolver(path));
+    /**
+     * 从缓存中移除指定文件的编译单元（文件已删除或即将重新解析）
+     * @param rootDir 源代码根目录
+     * @param relativePaths 相对于根目录的文件路径
+     */
+    public void evictFiles(Path rootDir, Collection<String> relativePaths) {
+        for (String relativePath : relativePaths) {
+            unitCache.remove(cacheKey(rootDir.resolve(relativePath).toFile()));
         }
-        JavaSymbolSolver symbolSolver = new JavaSymbolSolver(typeSolver);
+    }
 
-        // 创建JavaParser并配置
-        JavaParser javaParser = new JavaParser();
-        javaParser.getParserConfiguration().setSymbolResolver(symbolSolver);
+    /**
+     * 并行解析一组Java文件并按路径顺序合并结果
+     */
+    private ParsedProjectStructure parseJavaFiles(Path rootDir, List<File> javaFiles) {
+        // 按路径排序，保证合并顺序稳定，使索引结果可复现
+        javaFiles.sort(Comparator.comparing(File::getPath));
+
+        // 每个工作线程持有独立的JavaParser和符号解析器
+        // JavaParserTypeSolver内部缓存不是线程安全的，不能在线程间共享
+        ThreadLocal<JavaParser> threadParsers = ThreadLocal.withInitial(this::createJavaParser);
+
+        // 并行解析所有文件，每个文件产出独立的局部结果
+        List<Future<ParsedProjectStructure>> futures = new ArrayList<>(javaFiles.size());
+        for (File file : javaFiles) {
+            futures.add(executorService.submit(() -> parseFileStructure(rootDir, file, threadParsers.get(), true)));
+        }
 
         // 创建项目结构
         ParsedProjectStructure projectStructure = new ParsedProjectStructure();
 
-        // 顺序解析所有文件 - 避免并发问题
-        for (File file : javaFiles) {
+        // 由调用线程按文件顺序合并，合并过程无需加锁
+        for (int i = 0; i < futures.size(); i++) {
             try {
-                CompilationUnit cu = parseFile(file, javaParser);
-                if (cu != null) {
-                    // 访问并提取AST节点信息
-                    cu.accept(new ASTVisitor(), projectStructure);
+                ParsedProjectStructure fileStructure = futures.get(i).get();
+                if (fileStructure != null) {
+                    projectStructure.merge(fileStructure);
                 }
-            } catch (Exception e) {
-                System.err.println("解析文件出错 " + file.getPath() + ": " + e.getMessage());
-                e.printStackTrace();  // 打印详细堆栈便于调试
+            } catch (InterruptedException e) {
+                futures.forEach(future -> future.cancel(true));
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("项目解析被中断: " + rootDir, e);
+            } catch (ExecutionException e) {
+                System.err.println("解析文件出错 " + javaFiles.get(i).getPath() + ": " + e.getCause());
+                e.printStackTrace();
             }
         }
 
@@ -96,7 +182,142 @@ public class ASTParser {
         return projectStructure;
     }
 
-    private CompilationUnit parseFile(File file, JavaParser parser) {
+    /**
+     * 以流水线方式解析项目：每个文件解析完成后立即交给消费者处理，不汇总整个项目
+     * 同时在途的文件数不超过queueCapacity，消费者处理不过来时暂停提交新的解析任务（背压），
+     * 因此内存占用取决于队列容量而非项目规模；解析结果按文件路径顺序交付
+     * 交付的文件结构已经构建好关系（关系只依赖实体本身），可以直接写入索引
+     * 流水线解析不缓存编译单元
+     * @param rootDir 源代码根目录
+     * @param queueCapacity 同时在途（解析中或等待消费）的最大文件数
+     * @param consumer 文件解析结果的消费者，在调用线程中按顺序执行
+     * @return 成功解析的文件数
+     */
+    public int parseProjectStreaming(Path rootDir, int queueCapacity, ParsedFileConsumer consumer) throws Exception {
+        if (queueCapacity <= 0) {
+            throw new IllegalArgumentException("队列容量必须大于0: " + queueCapacity);
+        }
+
+        List<File> javaFiles = collectJavaFiles(rootDir.toFile());
+        javaFiles.sort(Comparator.comparing(File::getPath));
+
+        ThreadLocal<JavaParser> threadParsers = ThreadLocal.withInitial(this::createJavaParser);
+
+        // 有界的在途窗口：队首文件被消费后才提交下一个文件
+        Deque<Future<ParsedProjectStructure>> window = new ArrayDeque<>(queueCapacity);
+        Iterator<File> pending = javaFiles.iterator();
+        int parsedCount = 0;
+        int fileIndex = 0;
+
+        try {
+            while (window.size() < queueCapacity && pending.hasNext()) {
+                window.add(submitStreamingParse(rootDir, pending.next(), threadParsers));
+            }
+
+            while (!window.isEmpty()) {
+                File file = javaFiles.get(fileIndex++);
+                ParsedProjectStructure fileStructure;
+                try {
+                    fileStructure = window.peek().get();
+                } catch (ExecutionException e) {
+                    System.err.println("解析文件出错 " + file.getPath() + ": " + e.getCause());
+                    e.printStackTrace();
+                    fileStructure = null;
+                }
+                window.poll();
+
+                // 先补充窗口再消费，使解析与消费（索引）重叠进行
+                if (pending.hasNext()) {
+                    window.add(submitStreamingParse(rootDir, pending.next(), threadParsers));
+                }
+
+                if (fileStructure != null) {
+                    consumer.accept(relativeSourcePath(rootDir, file), fileStructure);
+                    parsedCount++;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("项目解析被中断: " + rootDir, e);
+        } finally {
+            // 消费失败或中断时取消尚未完成的解析
+            for (Future<ParsedProjectStructure> future : window) {
+                future.cancel(true);
+            }
+        }
+
+        return parsedCount;
+    }
+
+    /**
+     * 提交流水线中单个文件的解析任务
+     */
+    private Future<ParsedProjectStructure> submitStreamingParse(Path rootDir, File file,
+                                                                ThreadLocal<JavaParser> threadParsers) {
+        return executorService.submit(() -> {
+            ParsedProjectStructure fileStructure = parseFileStructure(rootDir, file, threadParsers.get(), false);
+            if (fileStructure != null) {
+                fileStructure.buildRelationships();
+            }
+            return fileStructure;
+        });
+    }
+
+    /**
+     * 流水线解析结果的消费者
+     */
+    public interface ParsedFileConsumer {
+        /**
+         * 处理单个文件的解析结果
+         * @param sourceFile 相对于根目录的文件路径
+         * @param fileStructure 文件中提取的实体和IR
+         */
+        void accept(String sourceFile, ParsedProjectStructure fileStructure) throws Exception;
+    }
+
+    /**
+     * 创建配置了符号解析器的JavaParser，每个工作线程调用一次
+     */
+    private JavaParser createJavaParser() {
+        CombinedTypeSolver typeSolver = new CombinedTypeSolver();
+        typeSolver.add(new ReflectionTypeSolver());
+        for (Path path : sourceRootPaths) {
+            typeSolver.add(new JavaParserTypeSolver(path));
+        }
+        JavaSymbolSolver symbolSolver = new JavaSymbolSolver(typeSolver);
+
+        JavaParser javaParser = new JavaParser();
+        javaParser.getParserConfiguration().setSymbolResolver(symbolSolver);
+        return javaParser;
+    }
+
+    /**
+     * 解析单个文件并提取其中的实体，在工作线程中执行
+     * @param cacheUnit 是否缓存编译单元
+     * @return 文件的局部解析结果，解析失败时返回null
+     */
+    private ParsedProjectStructure parseFileStructure(Path rootDir, File file, JavaParser javaParser,
+                                                      boolean cacheUnit) {
+        try {
+            return performanceMonitor.time("parse.file", () -> {
+                CompilationUnit cu = parseFile(file, javaParser, cacheUnit);
+                if (cu == null) {
+                    return null;
+                }
+
+                // 访问并提取AST节点信息
+                ParsedProjectStructure fileStructure = new ParsedProjectStructure();
+                cu.accept(new ASTVisitor(relativeSourcePath(rootDir, file)), fileStructure);
+                return fileStructure;
+            });
+        } catch (Exception e) {
+            System.err.println("解析文件出错 " + file.getPath() + ": " + e.getMessage());
+            e.printStackTrace();  // 打印详细堆栈便于调试
+            return null;
+        }
+    }
+
+    private CompilationUnit parseFile(File file, JavaParser parser, boolean cacheUnit) {
         try (FileInputStream in = new FileInputStream(file)) {
             // 确保文件有内容
             if (file.length() == 0) {
@@ -104,16 +325,20 @@ public class ASTParser {
                 return null;
             }
 
-            // 读取文件内容便于调试
+            // 一次性读取文件内容，解析和调试输出共用，避免重复读盘
             byte[] content = new byte[(int)file.length()];
-            in.read(content);
-            String sourceCode = new String(content, "UTF-8");
-
-            // 重置文件流
-            in.getChannel().position(0);
+            int offset = 0;
+            while (offset < content.length) {
+                int read = in.read(content, offset, content.length - offset);
+                if (read < 0) {
+                    break;
+                }
+                offset += read;
+            }
+            String sourceCode = new String(content, 0, offset, "UTF-8");
 
             // 解析文件
-            ParseResult<CompilationUnit> parseResult = parser.parse(in);
+            ParseResult<CompilationUnit> parseResult = parser.parse(sourceCode);
 
             // 检查解析结果
             if (parseResult.isSuccessful()) {
@@ -125,7 +350,9 @@ public class ASTParser {
                         System.err.println("警告: 文件 " + file.getPath() + " 解析成功但未检测到任何类型定义");
                         System.err.println("文件内容: \n" + sourceCode);
                     } else {
-                        parsedUnits.put(file.toPath(), cu);
+                        if (cacheUnit) {
+                            unitCache.put(cacheKey(file), cu, sourceCode.length());
+                        }
                         return cu;
                     }
                 } else {
@@ -146,6 +373,20 @@ public class ASTParser {
         return null;
     }
 
+    /**
+     * 缓存键统一为规范化的绝对路径
+     */
+    private Path cacheKey(File file) {
+        return file.toPath().toAbsolutePath().normalize();
+    }
+
+    /**
+     * 计算文件相对于源代码根目录的路径，统一使用'/'分隔
+     */
+    private String relativeSourcePath(Path rootDir, File file) {
+        return rootDir.relativize(file.toPath()).toString().replace(File.separatorChar, '/');
+    }
+
     /**
      * 递归搜集指定目录下的所有Java文件
      */
@@ -177,6 +418,13 @@ public class ASTParser {
      * AST访问器，用于提取Java源码中的各种结构
      */
     private class ASTVisitor extends VoidVisitorAdapter<ParsedProjectStructure> {
+        // 当前访问的源文件（相对路径）
+        private final String sourceFile;
+
+        ASTVisitor(String sourceFile) {
+            this.sourceFile = sourceFile;
+        }
+
         @Override
         public void visit(ClassOrInterfaceDeclaration node, ParsedProjectStructure structure) {
             // 提取类或接口信息
@@ -204,6 +452,8 @@ public class ASTParser {
                 );
             }
 
+            entity.setSourceFile(sourceFile);
+
             // 转换为中间表示
             IntermediateRepresentation ir = irBuilder.buildFromEntity(entity);
             structure.addEntity(entity, ir);
@@ -223,18 +473,29 @@ public class ASTParser {
                     extractJavadoc(node)
             );
 
-            // 添加修饰符和参数信息
+            // 添加修饰符和参数信息，可变参数的类型带上...以区分重载
             entity.addModifiers(node.getModifiers());
             node.getParameters().forEach(param ->
-                    entity.addParameter(param.getNameAsString(), param.getTypeAsString())
+                    entity.addParameter(param.getNameAsString(),
+                            param.getTypeAsString() + (param.isVarArgs() ? "..." : ""))
             );
 
             // 添加返回类型
             entity.setReturnType(node.getTypeAsString());
 
-            // 收集方法体中的方法调用
-            node.findAll(com.github.javaparser.ast.expr.MethodCallExpr.class)
-                    .forEach(call -> entity.addMethodCall(call.getNameAsString()));
+            // 收集方法体中的方法调用及其作用域
+            node.findAll(MethodCallExpr.class).forEach(call -> {
+                String calledName = call.getNameAsString();
+                entity.addMethodCall(calledName, call.getScope().map(Expression::toString).orElse(""));
+                if (symbolResolutionEnabled) {
+                    resolveDeclaringType(call).ifPresent(type ->
+                            entity.addResolvedMethodCall(calledName, type + "#" + calledName)
+                    );
+                }
+            });
+
+            entity.setDeclaringPackage(getPackageName(node));
+            entity.setSourceFile(sourceFile);
 
             // 转换为中间表示
             IntermediateRepresentation ir = irBuilder.buildFromEntity(entity);
@@ -264,6 +525,9 @@ public class ASTParser {
                         entity.setInitializer(init.toString())
                 );
 
+                entity.setDeclaringPackage(getPackageName(node));
+                entity.setSourceFile(sourceFile);
+
                 // 转换为中间表示
                 IntermediateRepresentation ir = irBuilder.buildFromEntity(entity);
                 structure.addEntity(entity, ir);
@@ -288,6 +552,8 @@ public class ASTParser {
                     entity.addEnumConstant(entry.getNameAsString())
             );
 
+            entity.setSourceFile(sourceFile);
+
             // 转换为中间表示
             IntermediateRepresentation ir = irBuilder.buildFromEntity(entity);
             structure.addEntity(entity, ir);
@@ -295,13 +561,23 @@ public class ASTParser {
             super.visit(node, structure);
         }
 
+        // 工具方法：使用符号解析器获取被调用方法的声明类型（简单类名）
+        private Optional<String> resolveDeclaringType(MethodCallExpr call) {
+            try {
+                return Optional.of(call.resolve().declaringType().getClassName());
+            } catch (RuntimeException e) {
+                // 无法解析（外部依赖缺失等），交由语义分析阶段按名称推断
+                return Optional.empty();
+            }
+        }
+
         // 工具方法：提取JavaDoc
         private String extractJavadoc(NodeWithJavadoc<?> node) {
             return node.getJavadoc().map(Javadoc::toText).orElse("");
         }
 
-        // 工具方法：获取包名
-        private String getPackageName(TypeDeclaration<?> node) {
+        // 工具方法：获取节点所在编译单元的包名
+        private String getPackageName(Node node) {
             return node.findCompilationUnit()
                     .flatMap(CompilationUnit::getPackageDeclaration)
                     .map(NodeWithName::getNameAsString)
@@ -311,7 +587,7 @@ public class ASTParser {
         // 工具方法：获取父类名称
         private String getParentClass(BodyDeclaration<?> node) {
             return node.findAncestor(TypeDeclaration.class)
-                    .map(NodeWithSimpleName::getNameAsString)
+                    .map(type -> type.getNameAsString())
                     .orElse("");
         }
     }
@@ -373,6 +649,10 @@ public class ASTParser {
                 ir.addAttribute("endLine", String.valueOf(range.end.line));
             });
 
+            if (entity.getSourceFile() != null) {
+                ir.addAttribute("sourceFile", entity.getSourceFile());
+            }
+
             ir.addAttribute("javadoc", entity.getJavadoc());
             ir.addAttribute("modifiers", entity.getModifiers().stream()
                     .map(Object::toString)
@@ -384,22 +664,29 @@ public class ASTParser {
             return ir;
         }
 
-        // 生成唯一ID
+        // 生成唯一ID：类型为包名.类名，方法为包名.类名#方法名(参数类型,...)，字段为包名.类名.字段名
+        // 重载方法的参数签名不同，各自有独立的ID
         private String generateId(CodeEntity entity) {
             switch (entity.getType()) {
                 case CLASS:
                 case INTERFACE:
                 case ENUM:
-                    return entity.getPackageName() + "." + entity.getName();
+                    return qualify(entity.getPackageName(), entity.getName());
                 case METHOD:
-                    return entity.getParentName() + "#" + entity.getName();
+                    return qualify(entity.getPackageName(), entity.getParentName()) + "#" + entity.getName() +
+                            "(" + String.join(",", entity.getParameters().values()) + ")";
                 case FIELD:
-                    return entity.getParentName() + "." + entity.getName();
+                    return qualify(entity.getPackageName(), entity.getParentName()) + "." + entity.getName();
                 default:
                     return UUID.randomUUID().toString();
             }
         }
 
+        // 默认包中的类型不加前缀
+        private String qualify(String packageName, String name) {
+            return packageName.isEmpty() ? name : packageName + "." + name;
+        }
+
         // 构建实体路径
         private String buildPath(CodeEntity entity) {
             switch (entity.getType()) {
@@ -14,6 +14,10 @@ public class CodeEntity {
     private final String parentName; // 包名或类名
     private final Optional<Range> range;
     private final String javadoc;
+    // 所在源文件（相对于项目根目录）
+    private String sourceFile;
+    // 方法和字段所属类的包名
+    private String declaringPackage = "";
 
     // 通用属性
     private final Set<Modifier> modifiers = new HashSet<>();
@@ -23,6 +27,10 @@ public class CodeEntity {
     private String returnType;
     private final Map<String, String> parameters = new LinkedHashMap<>(); // 保持参数顺序
     private final Set<String> methodCalls = new HashSet<>();
+    // 方法名 -> 调用时的作用域表达式（如字段名、参数名、类名，无作用域时为空串）
+    private final Map<String, Set<String>> methodCallScopes = new HashMap<>();
+    // 方法名 -> 符号解析器解析出的目标（ClassName#method）
+    private final Map<String, Set<String>> resolvedMethodCalls = new HashMap<>();
 
     // 字段特有属性
     private String fieldType;
@@ -60,6 +68,17 @@ public class CodeEntity {
         methodCalls.add(methodName);
     }
 
+    // 添加方法调用及其作用域
+    public void addMethodCall(String methodName, String scope) {
+        methodCalls.add(methodName);
+        methodCallScopes.computeIfAbsent(methodName, k -> new LinkedHashSet<>()).add(scope);
+    }
+
+    // 添加已解析的方法调用目标
+    public void addResolvedMethodCall(String methodName, String target) {
+        resolvedMethodCalls.computeIfAbsent(methodName, k -> new LinkedHashSet<>()).add(target);
+    }
+
     // 添加枚举常量
     public void addEnumConstant(String constantName) {
         enumConstants.add(constantName);
@@ -75,12 +94,18 @@ public class CodeEntity {
     public Map<RelationType, Set<String>> getRelationships() { return relationships; }
     public Map<String, String> getParameters() { return parameters; }
     public Set<String> getMethodCalls() { return methodCalls; }
+    public Set<String> getMethodCallScopes(String methodName) {
+        return methodCallScopes.getOrDefault(methodName, Collections.emptySet());
+    }
+    public Set<String> getResolvedMethodCalls(String methodName) {
+        return resolvedMethodCalls.getOrDefault(methodName, Collections.emptySet());
+    }
     public Set<String> getEnumConstants() { return enumConstants; }
 
-    // 根据实体类型获取特定属性
+    // 根据实体类型获取特定属性，方法和字段返回所属类的包名
     public String getPackageName() {
         return type == EntityType.CLASS || type == EntityType.INTERFACE || type == EntityType.ENUM ?
-                parentName : "";
+                parentName : declaringPackage;
     }
 
     // Setters
@@ -92,4 +117,9 @@ public class CodeEntity {
 
     public void setInitializer(String initializer) { this.initializer = Optional.of(initializer); }
     public Optional<String> getInitializer() { return initializer; }
+
+    public void setDeclaringPackage(String declaringPackage) { this.declaringPackage = declaringPackage; }
+
+    public void setSourceFile(String sourceFile) { this.sourceFile = sourceFile; }
+    public String getSourceFile() { return sourceFile; }
 }
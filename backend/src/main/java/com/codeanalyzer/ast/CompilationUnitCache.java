@@ -0,0 +1,358 @@
+package com.codeanalyzer.ast;
+
+import com.github.javaparser.ast.CompilationUnit;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 编译单元缓存 - 保存最近解析的AST
+ * 支持三种模式:
+ * 1. OFF：不缓存，解析完成后AST即可被回收
+ * 2. LRU：按条目数和源码字符数限制的最近最少使用缓存
+ * 3. SOFT：软引用缓存，内存紧张时由GC回收
+ * 权重以源码字符数计，AST占用的堆内存大致与之成正比
+ */
+public class CompilationUnitCache {
+
+    /**
+     * 缓存模式
+     */
+    public enum Mode {
+        OFF, LRU, SOFT;
+
+        /**
+         * 解析模式字符串（不区分大小写），无法识别时抛出IllegalArgumentException
+         */
+        public static Mode fromString(String mode) {
+            return Mode.valueOf(mode.trim().toUpperCase());
+        }
+    }
+
+    // 默认最大条目数
+    public static final int DEFAULT_MAX_ENTRIES = 512;
+    // 默认最大源码字符数
+    public static final long DEFAULT_MAX_WEIGHT = 16L * 1024 * 1024;
+
+    private final Mode mode;
+    private final int maxEntries;
+    private final long maxWeight;
+
+    // LRU模式：按访问顺序排列，由this加锁保护
+    private final LinkedHashMap<Path, WeightedUnit> lruEntries = new LinkedHashMap<>(16, 0.75f, true);
+    // SOFT模式
+    private final Map<Path, SoftUnit> softEntries = new ConcurrentHashMap<>();
+    private final ReferenceQueue<CompilationUnit> collectedQueue = new ReferenceQueue<>();
+
+    // 当前缓存的源码字符数
+    private final AtomicLong weight = new AtomicLong();
+    // 统计
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong collected = new AtomicLong();
+
+    private CompilationUnitCache(Mode mode, int maxEntries, long maxWeight) {
+        this.mode = mode;
+        this.maxEntries = maxEntries;
+        this.maxWeight = maxWeight;
+    }
+
+    /**
+     * 创建缓存
+     * @param mode 缓存模式
+     * @param maxEntries 最大条目数（仅LRU模式）
+     * @param maxWeight 最大源码字符数（仅LRU模式）
+     */
+    public static CompilationUnitCache create(Mode mode, int maxEntries, long maxWeight) {
+        if (mode == Mode.LRU && (maxEntries <= 0 || maxWeight <= 0)) {
+            throw new IllegalArgumentException("LRU缓存的容量必须大于0: maxEntries=" + maxEntries +
+                    ", maxWeight=" + maxWeight);
+        }
+        return new CompilationUnitCache(mode, maxEntries, maxWeight);
+    }
+
+    /**
+     * 不缓存
+     */
+    public static CompilationUnitCache off() {
+        return new CompilationUnitCache(Mode.OFF, 0, 0);
+    }
+
+    /**
+     * 有界LRU缓存
+     */
+    public static CompilationUnitCache lru(int maxEntries, long maxWeight) {
+        return create(Mode.LRU, maxEntries, maxWeight);
+    }
+
+    /**
+     * 软引用缓存
+     */
+    public static CompilationUnitCache soft() {
+        return new CompilationUnitCache(Mode.SOFT, 0, 0);
+    }
+
+    /**
+     * 获取缓存模式
+     */
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * 缓存编译单元
+     * @param file 源文件
+     * @param unit 编译单元
+     * @param sourceLength 源码字符数，作为缓存权重
+     */
+    public void put(Path file, CompilationUnit unit, long sourceLength) {
+        switch (mode) {
+            case LRU:
+                // 单个文件超过总容量时不缓存
+                if (sourceLength > maxWeight) {
+                    remove(file);
+                    return;
+                }
+                synchronized (this) {
+                    WeightedUnit previous = lruEntries.put(file, new WeightedUnit(unit, sourceLength));
+                    if (previous != null) {
+                        weight.addAndGet(-previous.weight);
+                    }
+                    weight.addAndGet(sourceLength);
+                    evictOverflow();
+                }
+                break;
+
+            case SOFT:
+                purgeCollected();
+                SoftUnit previous = softEntries.put(file, new SoftUnit(file, unit, sourceLength, collectedQueue));
+                if (previous != null) {
+                    // 被替换的引用即使之后被回收也不再计入
+                    previous.replaced = true;
+                    weight.addAndGet(-previous.weight);
+                }
+                weight.addAndGet(sourceLength);
+                break;
+
+            default:
+                break;
+        }
+    }
+
+    /**
+     * 获取缓存的编译单元
+     * @return 编译单元，未缓存或已被回收时返回null
+     */
+    public CompilationUnit get(Path file) {
+        CompilationUnit unit = null;
+        switch (mode) {
+            case LRU:
+                synchronized (this) {
+                    WeightedUnit entry = lruEntries.get(file);
+                    unit = entry != null ? entry.unit : null;
+                }
+                break;
+
+            case SOFT:
+                purgeCollected();
+                SoftUnit ref = softEntries.get(file);
+                unit = ref != null ? ref.get() : null;
+                break;
+
+            default:
+                break;
+        }
+
+        (unit != null ? hits : misses).incrementAndGet();
+        return unit;
+    }
+
+    /**
+     * 移除指定文件的编译单元
+     */
+    public void remove(Path file) {
+        switch (mode) {
+            case LRU:
+                synchronized (this) {
+                    WeightedUnit removed = lruEntries.remove(file);
+                    if (removed != null) {
+                        weight.addAndGet(-removed.weight);
+                    }
+                }
+                break;
+
+            case SOFT:
+                SoftUnit removed = softEntries.remove(file);
+                if (removed != null) {
+                    removed.replaced = true;
+                    weight.addAndGet(-removed.weight);
+                }
+                break;
+
+            default:
+                break;
+        }
+    }
+
+    /**
+     * 清空缓存
+     */
+    public void clear() {
+        synchronized (this) {
+            lruEntries.clear();
+        }
+        for (SoftUnit ref : softEntries.values()) {
+            ref.replaced = true;
+        }
+        softEntries.clear();
+        weight.set(0);
+    }
+
+    /**
+     * 超出容量时淘汰最久未访问的条目，调用方持有锁
+     */
+    private void evictOverflow() {
+        Iterator<WeightedUnit> it = lruEntries.values().iterator();
+        while ((lruEntries.size() > maxEntries || weight.get() > maxWeight) && it.hasNext()) {
+            WeightedUnit eldest = it.next();
+            it.remove();
+            weight.addAndGet(-eldest.weight);
+            evictions.incrementAndGet();
+        }
+    }
+
+    /**
+     * 清理已被GC回收的软引用条目
+     */
+    private void purgeCollected() {
+        SoftUnit ref;
+        while ((ref = (SoftUnit)collectedQueue.poll()) != null) {
+            if (!ref.replaced && softEntries.remove(ref.file, ref)) {
+                weight.addAndGet(-ref.weight);
+                collected.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * 获取缓存统计信息
+     */
+    public Stats getStats() {
+        int entries;
+        if (mode == Mode.SOFT) {
+            purgeCollected();
+            entries = softEntries.size();
+        } else {
+            synchronized (this) {
+                entries = lruEntries.size();
+            }
+        }
+        return new Stats(mode, entries, weight.get(), hits.get(), misses.get(), evictions.get(), collected.get());
+    }
+
+    /**
+     * 带权重的缓存条目
+     */
+    private static class WeightedUnit {
+        final CompilationUnit unit;
+        final long weight;
+
+        WeightedUnit(CompilationUnit unit, long weight) {
+            this.unit = unit;
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * 带权重的软引用条目
+     */
+    private static class SoftUnit extends SoftReference<CompilationUnit> {
+        final Path file;
+        final long weight;
+        // 已被替换或移除，回收时不再调整统计
+        volatile boolean replaced;
+
+        SoftUnit(Path file, CompilationUnit unit, long weight, ReferenceQueue<CompilationUnit> queue) {
+            super(unit, queue);
+            this.file = file;
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * 缓存统计信息
+     */
+    public static class Stats {
+        private final Mode mode;
+        private final int entries;
+        private final long sourceChars;
+        private final long hits;
+        private final long misses;
+        private final long evictions;
+        private final long collected;
+
+        Stats(Mode mode, int entries, long sourceChars, long hits, long misses, long evictions, long collected) {
+            this.mode = mode;
+            this.entries = entries;
+            this.sourceChars = sourceChars;
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.collected = collected;
+        }
+
+        public Mode getMode() {
+            return mode;
+        }
+
+        /**
+         * 缓存的编译单元数量
+         */
+        public int getEntries() {
+            return entries;
+        }
+
+        /**
+         * 缓存的源码字符总数（软引用模式下包含尚未清理的已回收条目）
+         */
+        public long getSourceChars() {
+            return sourceChars;
+        }
+
+        public long getHits() {
+            return hits;
+        }
+
+        public long getMisses() {
+            return misses;
+        }
+
+        /**
+         * 因超出容量被淘汰的条目数
+         */
+        public long getEvictions() {
+            return evictions;
+        }
+
+        /**
+         * 被GC回收的软引用条目数
+         */
+        public long getCollected() {
+            return collected;
+        }
+
+        @Override
+        public String toString() {
+            return "CompilationUnitCache.Stats{mode=" + mode + ", entries=" + entries +
+                    ", sourceChars=" + sourceChars + ", hits=" + hits + ", misses=" + misses +
+                    ", evictions=" + evictions + ", collected=" + collected + "}";
+        }
+    }
+}
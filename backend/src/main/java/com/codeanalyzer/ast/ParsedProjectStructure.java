@@ -4,55 +4,116 @@ import java.util.*;
 
 /**
  * 解析项目结构 - 存储解析结果
+ * 在添加实体时同步维护符号表，关系构建和名称查找均为常数时间
  */
 public class ParsedProjectStructure {
     // 存储所有提取的代码实体
     private final List<CodeEntity> entities = new ArrayList<>();
-    // 存储实体对应的中间表示
+    // 存储实体对应的中间表示（IR ID -> IR）
+    // ID带包名：类型为pkg.Class，方法为pkg.Class#m(int,String)，字段为pkg.Class.field
     private final Map<String, IntermediateRepresentation> irMap = new HashMap<>();
-    // 实体间引用关系图
+    // 实体间引用关系图（源IR ID -> 引用描述）
     private final Map<String, Set<String>> referenceGraph = new HashMap<>();
 
+    // 符号表：简单名称 -> IR ID集合（同名类、各个重载方法、不同类中的同名方法）
+    private final Map<String, Set<String>> nameIndex = new HashMap<>();
+    // 实体 -> 对应的IR ID
+    private final Map<CodeEntity, String> entityIrIds = new HashMap<>();
+
     /**
      * 添加代码实体
      */
     public void addEntity(CodeEntity entity, IntermediateRepresentation ir) {
         entities.add(entity);
         irMap.put(ir.getId(), ir);
+        entityIrIds.put(entity, ir.getId());
+        nameIndex.computeIfAbsent(ir.getName(), k -> new LinkedHashSet<>()).add(ir.getId());
+    }
+
+    /**
+     * 合并另一个解析结果（通常是单个文件的局部结果）
+     * 非线程安全，应由单一线程按确定顺序调用
+     */
+    public void merge(ParsedProjectStructure other) {
+        for (CodeEntity entity : other.entities) {
+            IntermediateRepresentation ir = other.irMap.get(other.entityIrIds.get(entity));
+            if (ir != null) {
+                addEntity(entity, ir);
+            }
+        }
+    }
+
+    /**
+     * 移除来自指定源文件的实体和中间表示，用于增量分析
+     * 移除后需要重新调用buildRelationships
+     */
+    public void removeFiles(Set<String> sourceFiles) {
+        if (sourceFiles.isEmpty()) {
+            return;
+        }
+
+        Iterator<CodeEntity> it = entities.iterator();
+        while (it.hasNext()) {
+            CodeEntity entity = it.next();
+            if (sourceFiles.contains(entity.getSourceFile())) {
+                it.remove();
+                entityIrIds.remove(entity);
+            }
+        }
+
+        Iterator<IntermediateRepresentation> irIt = irMap.values().iterator();
+        while (irIt.hasNext()) {
+            IntermediateRepresentation ir = irIt.next();
+            if (sourceFiles.contains((String)ir.getAttribute("sourceFile"))) {
+                irIt.remove();
+                Set<String> ids = nameIndex.get(ir.getName());
+                if (ids != null) {
+                    ids.remove(ir.getId());
+                    if (ids.isEmpty()) {
+                        nameIndex.remove(ir.getName());
+                    }
+                }
+            }
+        }
     }
 
     /**
      * 构建实体间的关系图
+     * 关系直接挂到实体自己的IR上，不再按名称查找，避免同名实体之间互相串联
      */
     public void buildRelationships() {
-        // 实现类/接口继承关系
+        // 重新构建时清空旧的引用图，保证多次调用结果一致
+        referenceGraph.clear();
+
         for (CodeEntity entity : entities) {
+            IntermediateRepresentation source = getIrForEntity(entity);
+            if (source == null) {
+                continue;
+            }
+
+            // 实现类/接口继承关系
             if (entity.getType() == EntityType.CLASS || entity.getType() == EntityType.INTERFACE) {
                 Map<RelationType, Set<String>> relationships = entity.getRelationships();
 
                 // 处理继承关系
                 if (relationships.containsKey(RelationType.EXTENDS)) {
                     for (String parent : relationships.get(RelationType.EXTENDS)) {
-                        addReference(entity.getName(), parent, RelationType.EXTENDS);
+                        addReference(source, parent, RelationType.EXTENDS);
                     }
                 }
 
                 // 处理实现关系
                 if (relationships.containsKey(RelationType.IMPLEMENTS)) {
                     for (String iface : relationships.get(RelationType.IMPLEMENTS)) {
-                        addReference(entity.getName(), iface, RelationType.IMPLEMENTS);
+                        addReference(source, iface, RelationType.IMPLEMENTS);
                     }
                 }
             }
-        }
 
-        // 方法调用关系
-        for (CodeEntity entity : entities) {
+            // 方法调用关系，每个重载方法挂在各自的IR上
             if (entity.getType() == EntityType.METHOD) {
                 for (String calledMethod : entity.getMethodCalls()) {
-                    // 尝试解析被调用方法的全限定名
-                    // 这里简化实现，实际应该从符号表中解析
-                    addReference(entity.getName(), calledMethod, RelationType.CALLS);
+                    addReference(source, calledMethod, RelationType.CALLS);
                 }
             }
         }
@@ -61,17 +122,46 @@ public class ParsedProjectStructure {
     /**
      * 添加引用关系
      */
-    private void addReference(String source, String target, RelationType type) {
-        String refKey = source + "->" + target + ":" + type.name();
-        referenceGraph.computeIfAbsent(source, k -> new HashSet<>()).add(refKey);
+    private void addReference(IntermediateRepresentation source, String target, RelationType type) {
+        String refKey = source.getId() + "->" + target + ":" + type.name();
+        referenceGraph.computeIfAbsent(source.getId(), k -> new HashSet<>()).add(refKey);
 
         // 在中间表示中也添加关系
-        for (IntermediateRepresentation ir : irMap.values()) {
-            if (ir.getName().equals(source)) {
-                ir.addRelationship(type.name(), target);
-                break;
+        source.addRelationship(type.name(), target);
+    }
+
+    /**
+     * 获取实体对应的中间表示
+     */
+    public IntermediateRepresentation getIrForEntity(CodeEntity entity) {
+        String irId = entityIrIds.get(entity);
+        return irId != null ? irMap.get(irId) : null;
+    }
+
+    /**
+     * 按ID查找中间表示，方法ID包含参数签名，如pkg.Class#m(int,String)
+     */
+    public IntermediateRepresentation getIrById(String id) {
+        return irMap.get(id);
+    }
+
+    /**
+     * 按简单名称查找所有同名的中间表示，包括全部重载方法
+     */
+    public List<IntermediateRepresentation> findIrsByName(String name) {
+        Set<String> ids = nameIndex.get(name);
+        if (ids == null) {
+            return Collections.emptyList();
+        }
+
+        List<IntermediateRepresentation> result = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            IntermediateRepresentation ir = irMap.get(id);
+            if (ir != null) {
+                result.add(ir);
             }
         }
+        return result;
     }
 
     /**
@@ -94,4 +184,4 @@ public class ParsedProjectStructure {
     public Map<String, Set<String>> getReferenceGraph() {
         return referenceGraph;
     }
-}
\ No newline at end of file
+}
@@ -1,135 +1,719 @@
 package com.codeanalyzer.config;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
- * 缓存管理器
+ * 缓存管理器 - 按条目数和估算字节数限制大小的缓存
+ * 淘汰策略参考W-TinyLFU：
+ * 1. 新条目先进入占总容量1%的窗口区（LRU）
+ * 2. 窗口区溢出的条目作为候选进入主区，主区已满时与主区最久未访问的条目比较访问频率，频率高者保留
+ * 3. 主区分为试用区和保护区（SLRU），试用区中再次命中的条目升入保护区，保护区占主区的80%
+ * 访问频率由FrequencySketch记录，过期条目由时间轮在读写时分批清理，不需要扫描整个缓存
+ * 命中时不加锁：条目只写入按线程分段的读缓冲区，访问顺序和频率在下次持有锁时批量更新，
+ * 缓冲区写满时旧记录直接被覆盖，丢失少量访问记录不影响淘汰策略的效果
  */
 public class CacheManager {
-    // 缓存项
-    private static class CacheEntry<T> {
-        private final T value;
-        private final long expirationTime;
+    // 默认最大条目数
+    public static final int DEFAULT_MAX_ENTRIES = 10000;
+    // 默认最大估算字节数
+    public static final long DEFAULT_MAX_WEIGHT = 64L * 1024 * 1024;
 
-        public CacheEntry(T value, long expirationTimeMs) {
+    /**
+     * 条目被移除的原因
+     */
+    public enum RemovalCause {
+        /** 调用remove或clear */
+        EXPLICIT,
+        /** 被同一个键的新值替换 */
+        REPLACED,
+        /** 已过期 */
+        EXPIRED,
+        /** 超出条目数或字节数限制 */
+        SIZE
+    }
+
+    /**
+     * 条目移除监听器，在释放缓存锁之后调用
+     */
+    public interface EvictionListener {
+        void onRemoval(String key, Object value, RemovalCause cause);
+    }
+
+    /**
+     * 估算条目占用的字节数
+     */
+    public interface Weigher {
+        long weigh(String key, Object value);
+    }
+
+    // 条目所在的区域
+    private static final int WINDOW = 0;
+    private static final int PROBATION = 1;
+    private static final int PROTECTED = 2;
+    private static final int DETACHED = -1;
+
+    // 不过期
+    private static final long NEVER = Long.MAX_VALUE;
+
+    // 缓存项，同时是访问顺序链表和时间轮链表的节点
+    private static final class Node {
+        final String key;
+        final Object value;
+        final long weight;
+        final long expiresAt;
+        int region = DETACHED;
+        Node prev;
+        Node next;
+        Node wheelPrev;
+        Node wheelNext;
+
+        Node(String key, Object value, long weight, long expiresAt) {
+            this.key = key;
             this.value = value;
-            this.expirationTime = System.currentTimeMillis() + expirationTimeMs;
+            this.weight = weight;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    // 按访问顺序排列的双向链表，表头是最久未访问的条目
+    private static final class AccessQueue {
+        private final Node head = new Node(null, null, 0, NEVER);
+        long weight;
+        int count;
+
+        AccessQueue() {
+            head.prev = head;
+            head.next = head;
+        }
+
+        Node peekFirst() {
+            return head.next == head ? null : head.next;
+        }
+
+        void addLast(Node node) {
+            node.prev = head.prev;
+            node.next = head;
+            head.prev.next = node;
+            head.prev = node;
+            weight += node.weight;
+            count++;
         }
 
-        public boolean isExpired() {
-            return System.currentTimeMillis() > expirationTime;
+        void remove(Node node) {
+            node.prev.next = node.next;
+            node.next.prev = node.prev;
+            node.prev = null;
+            node.next = null;
+            weight -= node.weight;
+            count--;
         }
 
-        public T getValue() {
-            return value;
+        void moveToLast(Node node) {
+            remove(node);
+            addLast(node);
+        }
+    }
+
+    /**
+     * 单层哈希时间轮，每格约1秒，共4096格（约73分钟）
+     * 超过一圈的条目留在对应格子里，轮到时检查过期时间，未过期的继续保留
+     */
+    private static final class TimerWheel {
+        private static final int TICK_SHIFT = 30;
+        private static final int BUCKETS = 4096;
+
+        private final Node[] buckets = new Node[BUCKETS];
+        private long currentTick;
+
+        TimerWheel(long now) {
+            for (int i = 0; i < BUCKETS; i++) {
+                Node sentinel = new Node(null, null, 0, NEVER);
+                sentinel.wheelPrev = sentinel;
+                sentinel.wheelNext = sentinel;
+                buckets[i] = sentinel;
+            }
+            currentTick = now >>> TICK_SHIFT;
+        }
+
+        void schedule(Node node) {
+            if (node.expiresAt == NEVER) {
+                return;
+            }
+            Node sentinel = buckets[(int)((node.expiresAt >>> TICK_SHIFT) & (BUCKETS - 1))];
+            node.wheelPrev = sentinel.wheelPrev;
+            node.wheelNext = sentinel;
+            sentinel.wheelPrev.wheelNext = node;
+            sentinel.wheelPrev = node;
+        }
+
+        void deschedule(Node node) {
+            if (node.wheelNext == null) {
+                return;
+            }
+            node.wheelPrev.wheelNext = node.wheelNext;
+            node.wheelNext.wheelPrev = node.wheelPrev;
+            node.wheelPrev = null;
+            node.wheelNext = null;
+        }
+
+        /**
+         * 推进到当前时间，返回经过的格子中已过期的条目
+         * 当前所在的格子也会检查，格内稍后过期的条目在下次推进时处理
+         */
+        List<Node> advance(long now) {
+            long targetTick = now >>> TICK_SHIFT;
+            if (targetTick == currentTick) {
+                return Collections.emptyList();
+            }
+            List<Node> expired = new ArrayList<>();
+            long ticks = Math.min(targetTick - currentTick, BUCKETS - 1);
+            for (long tick = targetTick - ticks; tick <= targetTick; tick++) {
+                Node sentinel = buckets[(int)(tick & (BUCKETS - 1))];
+                for (Node node = sentinel.wheelNext; node != sentinel; node = node.wheelNext) {
+                    if (node.expiresAt <= now) {
+                        expired.add(node);
+                    }
+                }
+            }
+            currentTick = targetTick;
+            return expired;
+        }
+    }
+
+    // 读缓冲区，每个分段记录最近的命中条目
+    private static final int READ_BUFFER_SIZE = 16;
+    private static final int READ_BUFFER_DRAIN_THRESHOLD = 8;
+
+    private static final class ReadBuffer {
+        final AtomicReferenceArray<Node> slots = new AtomicReferenceArray<>(READ_BUFFER_SIZE);
+        final AtomicLong writes = new AtomicLong();
+        // 已处理到的位置，由lock保护
+        long reads;
+    }
+
+    // 被移除的条目，释放锁之后通知监听器
+    private static final class Removal {
+        final String key;
+        final Object value;
+        final RemovalCause cause;
+
+        Removal(String key, Object value, RemovalCause cause) {
+            this.key = key;
+            this.value = value;
+            this.cause = cause;
         }
     }
 
-    // 缓存存储
-    private final Map<String, CacheEntry<?>> cache = new ConcurrentHashMap<>();
+    // 条目查找不加锁，修改都在持有lock时进行
+    private final Map<String, Node> data = new ConcurrentHashMap<>();
+    private final ReadBuffer[] readBuffers = createReadBuffers();
+
+    // 以下状态都由lock保护
+    private final ReentrantLock lock = new ReentrantLock();
+    private final AccessQueue window = new AccessQueue();
+    private final AccessQueue probation = new AccessQueue();
+    private final AccessQueue protectedQueue = new AccessQueue();
+    private final FrequencySketch sketch;
+    private final TimerWheel timerWheel;
+    // 所有时间都以startNanos为起点，保证为非负数
+    private final long startNanos = System.nanoTime();
+
+    private long maxEntries;
+    private long maxWeight;
+    private long windowMaxEntries;
+    private long windowMaxWeight;
+    private long protectedMaxEntries;
+    private long protectedMaxWeight;
+
+    private final List<EvictionListener> listeners = new CopyOnWriteArrayList<>();
+    private volatile Weigher weigher = CacheManager::estimateWeight;
 
     // 缓存统计
-    private long hits = 0;
-    private long misses = 0;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public CacheManager() {
+        this(DEFAULT_MAX_ENTRIES, DEFAULT_MAX_WEIGHT);
+    }
+
+    /**
+     * @param maxEntries 最大条目数
+     * @param maxWeight 最大估算字节数
+     */
+    public CacheManager(long maxEntries, long maxWeight) {
+        this.sketch = new FrequencySketch(maxEntries);
+        this.timerWheel = new TimerWheel(0);
+        setMaximum(maxEntries, maxWeight);
+    }
+
+    /**
+     * 调整大小限制，超出新限制的条目立即淘汰
+     * @throws IllegalArgumentException 限制不是正数
+     */
+    public void setMaximum(long maxEntries, long maxWeight) {
+        if (maxEntries <= 0 || maxWeight <= 0) {
+            throw new IllegalArgumentException("缓存大小限制必须为正数: " + maxEntries + ", " + maxWeight);
+        }
+        List<Removal> removals = new ArrayList<>();
+        lock.lock();
+        try {
+            this.maxEntries = maxEntries;
+            this.maxWeight = maxWeight;
+            this.windowMaxEntries = maxEntries / 100;
+            this.windowMaxWeight = maxWeight / 100;
+            this.protectedMaxEntries = (maxEntries - windowMaxEntries) * 8 / 10;
+            this.protectedMaxWeight = (maxWeight - windowMaxWeight) * 8 / 10;
+            sketch.ensureCapacity(maxEntries);
+            while (protectedQueue.count > protectedMaxEntries || protectedQueue.weight > protectedMaxWeight) {
+                demote(protectedQueue.peekFirst());
+            }
+            evict(removals);
+        } finally {
+            lock.unlock();
+        }
+        notifyListeners(removals);
+    }
+
+    /**
+     * 设置条目大小估算方式
+     */
+    public void setWeigher(Weigher weigher) {
+        this.weigher = weigher;
+    }
+
+    /**
+     * 添加条目移除监听器
+     */
+    public void addEvictionListener(EvictionListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * 移除条目移除监听器
+     */
+    public void removeEvictionListener(EvictionListener listener) {
+        listeners.remove(listener);
+    }
 
     /**
      * 从缓存获取值
      */
     @SuppressWarnings("unchecked")
     public <T> Optional<T> get(String key) {
-        CacheEntry<?> entry = cache.get(key);
-
-        if (entry == null) {
-            misses++;
+        Node node = data.get(key);
+        if (node == null) {
+            misses.increment();
             return Optional.empty();
         }
-
-        if (entry.isExpired()) {
-            cache.remove(key);
-            misses++;
+        if (node.expiresAt <= now()) {
+            misses.increment();
+            List<Removal> removals = new ArrayList<>();
+            lock.lock();
+            try {
+                if (data.get(key) == node) {
+                    removeNode(node, RemovalCause.EXPIRED, removals);
+                }
+            } finally {
+                lock.unlock();
+            }
+            notifyListeners(removals);
             return Optional.empty();
         }
+        hits.increment();
+        recordRead(node);
+        return Optional.ofNullable((T)node.value);
+    }
 
-        hits++;
-        return Optional.of((T)entry.getValue());
+    /**
+     * 将值放入缓存，大小由Weigher估算
+     * @param expirationTimeMs 过期时间，小于等于0表示不过期
+     */
+    public <T> void put(String key, T value, long expirationTimeMs) {
+        put(key, value, weigher.weigh(key, value), expirationTimeMs);
     }
 
     /**
      * 将值放入缓存
+     * @param weight 估算字节数，超过最大字节数的值不会被缓存
+     * @param expirationTimeMs 过期时间，小于等于0表示不过期
      */
-    public <T> void put(String key, T value, long expirationTimeMs) {
-        cache.put(key, new CacheEntry<>(value, expirationTimeMs));
+    public <T> void put(String key, T value, long weight, long expirationTimeMs) {
+        List<Removal> removals = new ArrayList<>();
+        lock.lock();
+        try {
+            long now = now();
+            drainReadBuffers();
+            expire(now, removals);
+            sketch.increment(key.hashCode());
+
+            Node old = data.get(key);
+            if (old != null) {
+                removeNode(old, RemovalCause.REPLACED, removals);
+            }
+            if (weight > maxWeight) {
+                evictions.increment();
+                removals.add(new Removal(key, value, RemovalCause.SIZE));
+            } else {
+                Node node = new Node(key, value, Math.max(0, weight), expiresAt(now, expirationTimeMs));
+                data.put(key, node);
+                node.region = WINDOW;
+                window.addLast(node);
+                timerWheel.schedule(node);
+                evict(removals);
+            }
+        } finally {
+            lock.unlock();
+        }
+        notifyListeners(removals);
     }
 
     /**
      * 从缓存移除值
      */
     public void remove(String key) {
-        cache.remove(key);
+        List<Removal> removals = new ArrayList<>();
+        lock.lock();
+        try {
+            Node node = data.get(key);
+            if (node != null) {
+                removeNode(node, RemovalCause.EXPLICIT, removals);
+            }
+        } finally {
+            lock.unlock();
+        }
+        notifyListeners(removals);
     }
 
     /**
      * 清空缓存
      */
     public void clear() {
-        cache.clear();
+        List<Removal> removals = new ArrayList<>();
+        lock.lock();
+        try {
+            for (Node node : new ArrayList<>(data.values())) {
+                removeNode(node, RemovalCause.EXPLICIT, removals);
+            }
+        } finally {
+            lock.unlock();
+        }
+        notifyListeners(removals);
     }
 
     /**
      * 清理过期缓存
+     * 读写时已经按时间轮分批清理，这里只是立即推进一次
      */
     public void cleanupExpired() {
-        List<String> expiredKeys = new ArrayList<>();
+        List<Removal> removals = new ArrayList<>();
+        lock.lock();
+        try {
+            drainReadBuffers();
+            expire(now(), removals);
+        } finally {
+            lock.unlock();
+        }
+        notifyListeners(removals);
+    }
 
-        for (Map.Entry<String, CacheEntry<?>> entry : cache.entrySet()) {
-            if (entry.getValue().isExpired()) {
-                expiredKeys.add(entry.getKey());
-            }
+    /**
+     * 获取缓存大小
+     */
+    public int size() {
+        return data.size();
+    }
+
+    /**
+     * 获取缓存条目的估算字节数之和
+     */
+    public long getWeight() {
+        lock.lock();
+        try {
+            return window.weight + probation.weight + protectedQueue.weight;
+        } finally {
+            lock.unlock();
         }
+    }
 
-        for (String key : expiredKeys) {
-            cache.remove(key);
+    /**
+     * 获取最大条目数
+     */
+    public long getMaxEntries() {
+        lock.lock();
+        try {
+            return maxEntries;
+        } finally {
+            lock.unlock();
         }
     }
 
     /**
-     * 获取缓存大小
+     * 获取最大估算字节数
      */
-    public int size() {
-        return cache.size();
+    public long getMaxWeight() {
+        lock.lock();
+        try {
+            return maxWeight;
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
      * 获取缓存命中率
      */
     public double getHitRate() {
-        long total = hits + misses;
-        return total > 0 ? (double)hits / total : 0.0;
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total > 0 ? (double)hitCount / total : 0.0;
     }
 
     /**
      * 获取缓存命中次数
      */
     public long getHits() {
-        return hits;
+        return hits.sum();
     }
 
     /**
      * 获取缓存未命中次数
      */
     public long getMisses() {
-        return misses;
+        return misses.sum();
+    }
+
+    /**
+     * 获取因超出大小限制而淘汰的条目数
+     */
+    public long getEvictions() {
+        return evictions.sum();
     }
 
     /**
      * 重置统计信息
      */
     public void resetStats() {
-        hits = 0;
-        misses = 0;
+        hits.reset();
+        misses.reset();
+        evictions.reset();
+    }
+
+    /**
+     * 默认的大小估算：字符串按UTF-16计算，集合和Map按元素递归估算，其他对象按固定大小计算
+     */
+    public static long estimateWeight(String key, Object value) {
+        return 64 + estimateObjectWeight(key, 0) + estimateObjectWeight(value, 0);
+    }
+
+    private static long estimateObjectWeight(Object value, int depth) {
+        if (value == null) {
+            return 0;
+        }
+        if (value instanceof CharSequence) {
+            return 40 + 2L * ((CharSequence)value).length();
+        }
+        if (depth >= 3) {
+            return 64;
+        }
+        if (value instanceof Collection) {
+            long weight = 40;
+            for (Object element : (Collection<?>)value) {
+                weight += 8 + estimateObjectWeight(element, depth + 1);
+            }
+            return weight;
+        }
+        if (value instanceof Map) {
+            long weight = 48;
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>)value).entrySet()) {
+                weight += 32 + estimateObjectWeight(entry.getKey(), depth + 1)
+                        + estimateObjectWeight(entry.getValue(), depth + 1);
+            }
+            return weight;
+        }
+        return 64;
+    }
+
+    /**
+     * 把命中的条目写入当前线程对应的读缓冲区，积累到一定数量时尝试获取锁批量处理，
+     * 锁被占用时直接返回，由持有锁的线程或下一次写入处理
+     */
+    private void recordRead(Node node) {
+        ReadBuffer buffer = readBuffers[(int)(Thread.currentThread().getId() & (readBuffers.length - 1))];
+        long write = buffer.writes.getAndIncrement();
+        buffer.slots.lazySet((int)(write & (READ_BUFFER_SIZE - 1)), node);
+        if (((write + 1) & (READ_BUFFER_DRAIN_THRESHOLD - 1)) == 0 && lock.tryLock()) {
+            List<Removal> removals = new ArrayList<>();
+            try {
+                drainReadBuffers();
+                expire(now(), removals);
+            } finally {
+                lock.unlock();
+            }
+            notifyListeners(removals);
+        }
+    }
+
+    // 按缓冲区中的命中记录更新访问频率和访问顺序，需要持有锁
+    private void drainReadBuffers() {
+        for (ReadBuffer buffer : readBuffers) {
+            long writes = buffer.writes.get();
+            for (long read = Math.max(buffer.reads, writes - READ_BUFFER_SIZE); read < writes; read++) {
+                Node node = buffer.slots.getAndSet((int)(read & (READ_BUFFER_SIZE - 1)), null);
+                if (node != null && node.region != DETACHED) {
+                    sketch.increment(node.key.hashCode());
+                    onAccess(node);
+                }
+            }
+            buffer.reads = writes;
+        }
+    }
+
+    private static ReadBuffer[] createReadBuffers() {
+        int processors = Runtime.getRuntime().availableProcessors();
+        int stripes = Math.min(64, Integer.highestOneBit(Math.max(1, processors * 2 - 1)) << 1);
+        ReadBuffer[] buffers = new ReadBuffer[stripes];
+        for (int i = 0; i < stripes; i++) {
+            buffers[i] = new ReadBuffer();
+        }
+        return buffers;
+    }
+
+    private long now() {
+        return System.nanoTime() - startNanos;
+    }
+
+    private static long expiresAt(long now, long expirationTimeMs) {
+        if (expirationTimeMs <= 0) {
+            return NEVER;
+        }
+        long nanos = TimeUnit.MILLISECONDS.toNanos(expirationTimeMs);
+        return nanos >= NEVER - now ? NEVER - 1 : now + nanos;
+    }
+
+    private AccessQueue queueOf(Node node) {
+        switch (node.region) {
+            case WINDOW: return window;
+            case PROBATION: return probation;
+            case PROTECTED: return protectedQueue;
+            default: return null;
+        }
+    }
+
+    /**
+     * 命中后调整访问顺序，试用区的条目升入保护区
+     */
+    private void onAccess(Node node) {
+        if (node.region == PROBATION) {
+            probation.remove(node);
+            node.region = PROTECTED;
+            protectedQueue.addLast(node);
+            while (protectedQueue.count > protectedMaxEntries || protectedQueue.weight > protectedMaxWeight) {
+                demote(protectedQueue.peekFirst());
+            }
+        } else {
+            AccessQueue queue = queueOf(node);
+            if (queue != null) {
+                queue.moveToLast(node);
+            }
+        }
+    }
+
+    // 保护区溢出的条目降回试用区
+    private void demote(Node node) {
+        protectedQueue.remove(node);
+        node.region = PROBATION;
+        probation.addLast(node);
+    }
+
+    /**
+     * 窗口区溢出的条目进入主区竞争，之后整体仍超出限制时从主区开始淘汰
+     */
+    private void evict(List<Removal> removals) {
+        while (window.count > windowMaxEntries || window.weight > windowMaxWeight) {
+            Node candidate = window.peekFirst();
+            window.remove(candidate);
+            candidate.region = DETACHED;
+            admit(candidate, removals);
+        }
+        while (data.size() > maxEntries || window.weight + probation.weight + protectedQueue.weight > maxWeight) {
+            Node victim = mainVictim();
+            if (victim == null) {
+                victim = window.peekFirst();
+            }
+            removeNode(victim, RemovalCause.SIZE, removals);
+        }
+    }
+
+    /**
+     * TinyLFU准入：主区空间不足时，候选条目的访问频率高于主区淘汰对象才能进入
+     */
+    private void admit(Node candidate, List<Removal> removals) {
+        long mainMaxEntries = maxEntries - windowMaxEntries;
+        long mainMaxWeight = maxWeight - windowMaxWeight;
+        int candidateFrequency = sketch.frequency(candidate.key.hashCode());
+        while (probation.count + protectedQueue.count + 1 > mainMaxEntries
+                || probation.weight + protectedQueue.weight + candidate.weight > mainMaxWeight) {
+            Node victim = mainVictim();
+            if (victim == null || candidateFrequency <= sketch.frequency(victim.key.hashCode())) {
+                removeNode(candidate, RemovalCause.SIZE, removals);
+                return;
+            }
+            removeNode(victim, RemovalCause.SIZE, removals);
+        }
+        candidate.region = PROBATION;
+        probation.addLast(candidate);
+    }
+
+    private Node mainVictim() {
+        Node victim = probation.peekFirst();
+        return victim != null ? victim : protectedQueue.peekFirst();
+    }
+
+    private void expire(long now, List<Removal> removals) {
+        for (Node node : timerWheel.advance(now)) {
+            removeNode(node, RemovalCause.EXPIRED, removals);
+        }
+    }
+
+    private void removeNode(Node node, RemovalCause cause, List<Removal> removals) {
+        data.remove(node.key);
+        AccessQueue queue = queueOf(node);
+        if (queue != null) {
+            queue.remove(node);
+        }
+        node.region = DETACHED;
+        timerWheel.deschedule(node);
+        if (cause == RemovalCause.SIZE) {
+            evictions.increment();
+        }
+        removals.add(new Removal(node.key, node.value, cause));
+    }
+
+    private void notifyListeners(List<Removal> removals) {
+        if (removals.isEmpty() || listeners.isEmpty()) {
+            return;
+        }
+        for (Removal removal : removals) {
+            for (EvictionListener listener : listeners) {
+                try {
+                    listener.onRemoval(removal.key, removal.value, removal.cause);
+                } catch (RuntimeException e) {
+                    System.err.println("缓存移除监听器执行失败: " + e.getMessage());
+                }
+            }
+        }
     }
 }
@@ -29,12 +29,13 @@ public class ConfigurationManager {
     private final PerformanceMonitor performanceMonitor = new PerformanceMonitor();
 
     // 缓存管理器
-    private final CacheManager cacheManager = new CacheManager();
+    private final CacheManager cacheManager;
 
     // 私有构造函数
     private ConfigurationManager() {
         // 加载默认配置
         loadDefaultConfig();
+        cacheManager = new CacheManager(getCacheMaxEntries(), getCacheMaxWeightBytes());
     }
 
     /**
@@ -54,17 +55,35 @@ public class ConfigurationManager {
         // 解析线程数
         config.setProperty("parser.threadCount", String.valueOf(Runtime.getRuntime().availableProcessors()));
 
+        // 编译单元缓存配置：OFF / LRU / SOFT
+        config.setProperty("parser.unitCache.mode", "LRU");
+        config.setProperty("parser.unitCache.maxEntries", "512");
+        config.setProperty("parser.unitCache.maxSourceMB", "16");
+
         // 索引配置
         config.setProperty("index.ramBufferSizeMB", "256");
+        config.setProperty("index.threadCount", String.valueOf(Runtime.getRuntime().availableProcessors()));
         config.setProperty("index.useCompoundFile", "true");
+        config.setProperty("index.mergePolicy", TuningProfile.DEFAULT_MERGE_POLICY);
+        config.setProperty("index.mergeFactor", String.valueOf(TuningProfile.DEFAULT_MERGE_FACTOR));
+        config.setProperty("index.maxMergedSegmentMB", String.valueOf(TuningProfile.DEFAULT_MAX_MERGED_SEGMENT_MB));
+        config.setProperty("index.mergeThreadCount", "0"); // 0表示自动
+        config.setProperty("index.maxStalenessSec", String.valueOf(TuningProfile.DEFAULT_MAX_STALENESS_SEC));
 
         // 缓存配置
-        config.setProperty("cache.maxEntries", "10000");
+        config.setProperty("cache.enabled", "true");
+        config.setProperty("cache.maxEntries", String.valueOf(CacheManager.DEFAULT_MAX_ENTRIES));
+        config.setProperty("cache.maxWeightMB", String.valueOf(CacheManager.DEFAULT_MAX_WEIGHT / (1024 * 1024)));
         config.setProperty("cache.expirationTimeMinutes", "60");
 
         // 查询配置
         config.setProperty("query.maxResults", "100");
         config.setProperty("query.timeout", "10000"); // 毫秒
+
+        // 相似度分析的LSH参数
+        config.setProperty("semantic.similarity.bands", String.valueOf(TuningProfile.DEFAULT_SIMILARITY_BANDS));
+        config.setProperty("semantic.similarity.rowsPerBand",
+                String.valueOf(TuningProfile.DEFAULT_SIMILARITY_ROWS_PER_BAND));
     }
 
     /**
@@ -75,6 +94,7 @@ public class ConfigurationManager {
         try (FileInputStream fis = new FileInputStream(configFile)) {
             config.load(fis);
         }
+        applyCacheLimits();
     }
 
     /**
@@ -92,6 +112,21 @@ public class ConfigurationManager {
         }
     }
 
+    /**
+     * 获取浮点数配置
+     */
+    public double getDoubleConfig(String key, double defaultValue) {
+        String value = config.getProperty(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
     /**
      * 获取布尔配置
      */
@@ -115,6 +150,14 @@ public class ConfigurationManager {
      */
     public void setConfig(String key, String value) {
         config.setProperty(key, value);
+        if (key.startsWith("cache.max")) {
+            applyCacheLimits();
+        }
+    }
+
+    // 缓存大小限制变化后立即生效
+    private void applyCacheLimits() {
+        cacheManager.setMaximum(getCacheMaxEntries(), getCacheMaxWeightBytes());
     }
 
     /**
@@ -131,6 +174,35 @@ public class ConfigurationManager {
         return cacheManager;
     }
 
+    /**
+     * 是否缓存查询结果
+     */
+    public boolean isCacheEnabled() {
+        return getBooleanConfig("cache.enabled", true);
+    }
+
+    /**
+     * 获取缓存最大条目数
+     */
+    public int getCacheMaxEntries() {
+        return Math.max(1, getIntConfig("cache.maxEntries", CacheManager.DEFAULT_MAX_ENTRIES));
+    }
+
+    /**
+     * 获取缓存最大估算字节数
+     */
+    public long getCacheMaxWeightBytes() {
+        int maxWeightMB = getIntConfig("cache.maxWeightMB", (int)(CacheManager.DEFAULT_MAX_WEIGHT / (1024 * 1024)));
+        return Math.max(1, maxWeightMB) * 1024L * 1024;
+    }
+
+    /**
+     * 获取缓存过期时间（分钟）
+     */
+    public int getCacheExpirationTimeMinutes() {
+        return getIntConfig("cache.expirationTimeMinutes", 60);
+    }
+
     /**
      * 获取解析线程数
      */
@@ -138,6 +210,34 @@ public class ConfigurationManager {
         return getIntConfig("parser.threadCount", Runtime.getRuntime().availableProcessors());
     }
 
+    /**
+     * 获取编译单元缓存模式
+     */
+    public String getUnitCacheMode() {
+        return getStringConfig("parser.unitCache.mode", "LRU");
+    }
+
+    /**
+     * 获取编译单元缓存的最大条目数
+     */
+    public int getUnitCacheMaxEntries() {
+        return getIntConfig("parser.unitCache.maxEntries", 512);
+    }
+
+    /**
+     * 获取编译单元缓存的最大源码量（百万字符）
+     */
+    public int getUnitCacheMaxSourceMB() {
+        return getIntConfig("parser.unitCache.maxSourceMB", 16);
+    }
+
+    /**
+     * 获取索引构建线程数
+     */
+    public int getIndexThreadCount() {
+        return getIntConfig("index.threadCount", Runtime.getRuntime().availableProcessors());
+    }
+
     /**
      * 获取索引内存缓冲区大小
      */
@@ -165,4 +265,28 @@ public class ConfigurationManager {
     public int getMaxQueryResults() {
         return getIntConfig("query.maxResults", 100);
     }
+
+    /**
+     * 根据当前配置生成调优参数，每次调用返回新对象
+     */
+    public TuningProfile getTuningProfile() {
+        TuningProfile profile = new TuningProfile();
+        profile.setParserThreadCount(Math.max(1, getParserThreadCount()));
+        profile.setIndexThreadCount(Math.max(1, getIndexThreadCount()));
+        profile.setRamBufferSizeMB(Math.max(16, getIndexRamBufferSizeMB()));
+        profile.setUseCompoundFile(useCompoundIndexFile());
+        profile.setMergePolicy(getStringConfig("index.mergePolicy", TuningProfile.DEFAULT_MERGE_POLICY));
+        profile.setMergeFactor(getDoubleConfig("index.mergeFactor", TuningProfile.DEFAULT_MERGE_FACTOR));
+        profile.setMaxMergedSegmentMB(getDoubleConfig("index.maxMergedSegmentMB",
+                TuningProfile.DEFAULT_MAX_MERGED_SEGMENT_MB));
+        profile.setMergeThreadCount(Math.max(0, getIntConfig("index.mergeThreadCount", 0)));
+        profile.setQueryTimeoutMs(Math.max(0, getQueryTimeoutMs()));
+        profile.setMaxQueryResults(Math.max(1, getMaxQueryResults()));
+        profile.setMaxStalenessSec(getDoubleConfig("index.maxStalenessSec", TuningProfile.DEFAULT_MAX_STALENESS_SEC));
+        profile.setSimilarityBands(Math.max(1, getIntConfig("semantic.similarity.bands",
+                TuningProfile.DEFAULT_SIMILARITY_BANDS)));
+        profile.setSimilarityRowsPerBand(Math.max(1, getIntConfig("semantic.similarity.rowsPerBand",
+                TuningProfile.DEFAULT_SIMILARITY_ROWS_PER_BAND)));
+        return profile;
+    }
 }
\ No newline at end of file
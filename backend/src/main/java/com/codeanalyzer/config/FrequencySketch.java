@@ -0,0 +1,106 @@
+package com.codeanalyzer.config;
+
+/**
+ * 访问频率草图 - 4位计数器的Count-Min Sketch，供缓存准入判断使用
+ * 每个long保存16个计数器，每个键在4个long中各占一个计数器，频率取其中的最小值；
+ * 累计增加次数达到样本上限后所有计数器减半，使较早的访问热度逐渐衰减
+ */
+final class FrequencySketch {
+    private static final long[] SEEDS = {
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+    private static final long RESET_MASK = 0x7777777777777777L;
+    private static final long ONE_MASK = 0x1111111111111111L;
+    private static final int MAX_TABLE_LENGTH = 1 << 24;
+
+    private long[] table;
+    private int tableMask;
+    private int sampleSize;
+    private int size;
+
+    FrequencySketch(long maximumEntries) {
+        ensureCapacity(maximumEntries);
+    }
+
+    /**
+     * 按最大条目数调整计数表大小，表大小变化时清空已有计数
+     */
+    void ensureCapacity(long maximumEntries) {
+        int length = tableLength(maximumEntries);
+        if (table != null && table.length == length) {
+            return;
+        }
+        table = new long[length];
+        tableMask = length - 1;
+        sampleSize = 10 * length;
+        size = 0;
+    }
+
+    /**
+     * 估计的访问次数，最大为15
+     */
+    int frequency(int hashCode) {
+        int hash = spread(hashCode);
+        int start = (hash & 3) << 2;
+        int frequency = Integer.MAX_VALUE;
+        for (int i = 0; i < 4; i++) {
+            int index = indexOf(hash, i);
+            int count = (int)((table[index] >>> ((start + i) << 2)) & 0xfL);
+            frequency = Math.min(frequency, count);
+        }
+        return frequency;
+    }
+
+    /**
+     * 记录一次访问
+     */
+    void increment(int hashCode) {
+        int hash = spread(hashCode);
+        int start = (hash & 3) << 2;
+        boolean added = false;
+        for (int i = 0; i < 4; i++) {
+            added |= incrementAt(indexOf(hash, i), start + i);
+        }
+        if (added && ++size == sampleSize) {
+            reset();
+        }
+    }
+
+    private boolean incrementAt(int index, int counter) {
+        int offset = counter << 2;
+        long mask = 0xfL << offset;
+        if ((table[index] & mask) != mask) {
+            table[index] += 1L << offset;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 所有计数器减半
+     */
+    private void reset() {
+        int odd = 0;
+        for (int i = 0; i < table.length; i++) {
+            odd += Long.bitCount(table[i] & ONE_MASK);
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        size = (size - (odd >>> 2)) >>> 1;
+    }
+
+    private int indexOf(int hash, int depth) {
+        long h = (hash + SEEDS[depth]) * SEEDS[depth];
+        h += h >>> 32;
+        return ((int)h) & tableMask;
+    }
+
+    private static int spread(int x) {
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        return (x >>> 16) ^ x;
+    }
+
+    private static int tableLength(long maximumEntries) {
+        int length = (int)Math.min(Math.max(maximumEntries, 16), MAX_TABLE_LENGTH);
+        return Integer.highestOneBit(length - 1) << 1;
+    }
+}
@@ -0,0 +1,142 @@
+package com.codeanalyzer.config;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 耗时直方图 - 固定内存的对数线性分桶（HDR风格）
+ * 以微秒为单位记录，0~63微秒每微秒一个桶，之后每个2的幂区间分为32个桶，
+ * 相对误差约3%，最大可记录2^35微秒（约9.5小时），超出的值计入最后一个桶
+ * 共992个计数器（约8KB），记录时只做原子累加；分桶方式固定，任意两个直方图都可以直接相加合并
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 6;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int SUB_BUCKET_HALF = SUB_BUCKET_COUNT / 2;
+    private static final int MAX_MAGNITUDE = 35;
+    private static final int BUCKET_COUNT = indexOf((1L << MAX_MAGNITUDE) - 1) + 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder totalCount = new LongAdder();
+    private final LongAdder totalMicros = new LongAdder();
+    private final LongAccumulator maxMicros = new LongAccumulator(Math::max, 0);
+
+    /**
+     * 记录一次耗时
+     */
+    public void record(long durationNanos) {
+        record(durationNanos, 1);
+    }
+
+    /**
+     * 记录count次相同的耗时
+     */
+    public void record(long durationNanos, long count) {
+        if (count <= 0) {
+            return;
+        }
+        long micros = Math.min(TimeUnit.NANOSECONDS.toMicros(Math.max(0, durationNanos)), (1L << MAX_MAGNITUDE) - 1);
+        counts.addAndGet(indexOf(micros), count);
+        totalCount.add(count);
+        totalMicros.add(micros * count);
+        maxMicros.accumulate(micros);
+    }
+
+    /**
+     * 把另一个直方图的计数加入当前直方图
+     */
+    public void merge(LatencyHistogram other) {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            long count = other.counts.get(i);
+            if (count > 0) {
+                counts.addAndGet(i, count);
+            }
+        }
+        totalCount.add(other.totalCount.sum());
+        totalMicros.add(other.totalMicros.sum());
+        maxMicros.accumulate(other.maxMicros.get());
+    }
+
+    /**
+     * 清空计数，与并发的record同时执行时可能保留少量计数
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts.set(i, 0);
+        }
+        totalCount.reset();
+        totalMicros.reset();
+        maxMicros.reset();
+    }
+
+    /**
+     * 记录次数
+     */
+    public long getCount() {
+        return totalCount.sum();
+    }
+
+    /**
+     * 最大耗时（纳秒）
+     */
+    public long getMaxNanos() {
+        return TimeUnit.MICROSECONDS.toNanos(maxMicros.get());
+    }
+
+    /**
+     * 平均耗时（纳秒）
+     */
+    public double getMeanNanos() {
+        long count = totalCount.sum();
+        return count > 0 ? totalMicros.sum() * 1000.0 / count : 0;
+    }
+
+    /**
+     * 指定百分位的耗时（纳秒），返回所在桶的上界，不超过记录到的最大值
+     * @param percentile 百分位，0~100
+     */
+    public long getValueAtPercentile(double percentile) {
+        long total = 0;
+        long[] snapshot = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+
+        double ratio = Math.min(100.0, Math.max(0.0, percentile)) / 100.0;
+        long target = Math.max(1, (long)Math.ceil(ratio * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += snapshot[i];
+            if (seen >= target) {
+                long micros = Math.min(highestEquivalentValue(i), maxMicros.get());
+                return TimeUnit.MICROSECONDS.toNanos(micros);
+            }
+        }
+        return getMaxNanos();
+    }
+
+    private static int indexOf(long micros) {
+        if (micros < SUB_BUCKET_COUNT) {
+            return (int)micros;
+        }
+        int shift = (63 - Long.numberOfLeadingZeros(micros)) - (SUB_BUCKET_BITS - 1);
+        int subBucket = (int)(micros >>> shift);
+        return SUB_BUCKET_COUNT + (shift - 1) * SUB_BUCKET_HALF + (subBucket - SUB_BUCKET_HALF);
+    }
+
+    private static long highestEquivalentValue(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int offset = index - SUB_BUCKET_COUNT;
+        int shift = offset / SUB_BUCKET_HALF + 1;
+        long subBucket = offset % SUB_BUCKET_HALF + SUB_BUCKET_HALF;
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
@@ -1,26 +1,116 @@
 package com.codeanalyzer.config;
 
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
 /**
- * 操作性能指标
+ * 操作性能指标 - 同一类操作的次数、耗时汇总和耗时分布
+ * 计数器使用LongAdder，多个线程同时记录时不会丢失更新，也不会争用同一个缓存行
+ * 耗时分布保存两份：启动以来的全部记录，以及最近一分钟的滑动窗口（6个10秒的时间片），
+ * 占用的内存固定，与记录次数无关
  */
 public class OperationMetric {
-    private final String operationId;
+    // 滑动窗口的时间片长度和个数
+    public static final long WINDOW_SLOT_NANOS = TimeUnit.SECONDS.toNanos(10);
+    public static final int WINDOW_SLOTS = 6;
+
     private final String operationType;
-    private final long startTime;
-    private long endTime;
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator minNanos = new LongAccumulator(Math::min, Long.MAX_VALUE);
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
 
-    public OperationMetric(String operationId, String operationType, long startTime) {
-        this.operationId = operationId;
+    private final LatencyHistogram histogram = new LatencyHistogram();
+    private final LatencyHistogram[] windowSlots = new LatencyHistogram[WINDOW_SLOTS];
+    // 每个时间片当前对应的时间段编号
+    private final AtomicLongArray slotEpochs = new AtomicLongArray(WINDOW_SLOTS);
+
+    public OperationMetric(String operationType) {
         this.operationType = operationType;
-        this.startTime = startTime;
+        for (int i = 0; i < WINDOW_SLOTS; i++) {
+            windowSlots[i] = new LatencyHistogram();
+            slotEpochs.set(i, Long.MIN_VALUE);
+        }
+    }
+
+    /**
+     * 记录一次操作
+     * @param durationNanos 耗时（纳秒）
+     */
+    public void record(long durationNanos) {
+        record(durationNanos, 1);
+    }
+
+    /**
+     * 记录count次耗时相同的操作，例如一批文档按平均耗时记录
+     * @param durationNanos 单次耗时（纳秒）
+     */
+    public void record(long durationNanos, long count) {
+        if (count <= 0) {
+            return;
+        }
+        long duration = Math.max(0, durationNanos);
+        this.count.add(count);
+        totalNanos.add(duration * count);
+        minNanos.accumulate(duration);
+        maxNanos.accumulate(duration);
+        histogram.record(duration, count);
+        currentSlot().record(duration, count);
+    }
+
+    /**
+     * 当前时间所在的时间片，时间片被复用时先清空上一轮的计数
+     */
+    private LatencyHistogram currentSlot() {
+        long epoch = Math.floorDiv(System.nanoTime(), WINDOW_SLOT_NANOS);
+        int slot = (int)Math.floorMod(epoch, (long)WINDOW_SLOTS);
+        long slotEpoch = slotEpochs.get(slot);
+        if (slotEpoch != epoch && slotEpochs.compareAndSet(slot, slotEpoch, epoch)) {
+            windowSlots[slot].reset();
+        }
+        return windowSlots[slot];
     }
 
-    public String getOperationId() { return operationId; }
     public String getOperationType() { return operationType; }
-    public long getStartTime() { return startTime; }
-    public long getEndTime() { return endTime; }
+    public long getCount() { return count.sum(); }
+    public long getTotalNanos() { return totalNanos.sum(); }
+
+    public long getMinNanos() {
+        long min = minNanos.get();
+        return min == Long.MAX_VALUE ? 0 : min;
+    }
+
+    public long getMaxNanos() { return maxNanos.get(); }
+
+    /**
+     * 平均耗时（毫秒）
+     */
+    public double getAverageMillis() {
+        long operations = count.sum();
+        return operations > 0 ? totalNanos.sum() / (double)operations / TimeUnit.MILLISECONDS.toNanos(1) : 0;
+    }
+
+    /**
+     * 启动以来的耗时分布
+     */
+    public LatencyHistogram getHistogram() {
+        return histogram;
+    }
 
-    public void setEndTime(long endTime) {
-        this.endTime = endTime;
+    /**
+     * 最近一分钟的耗时分布，由未过期的时间片合并而成
+     */
+    public LatencyHistogram getRecentHistogram() {
+        long epoch = Math.floorDiv(System.nanoTime(), WINDOW_SLOT_NANOS);
+        LatencyHistogram recent = new LatencyHistogram();
+        for (int i = 0; i < WINDOW_SLOTS; i++) {
+            long slotEpoch = slotEpochs.get(i);
+            if (slotEpoch != Long.MIN_VALUE && epoch - slotEpoch < WINDOW_SLOTS) {
+                recent.merge(windowSlots[i]);
+            }
+        }
+        return recent;
     }
-}
\ No newline at end of file
+}
@@ -1,17 +1,123 @@
 package com.codeanalyzer.config;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * 性能监控器
+ * 按操作类型汇总次数、耗时和耗时分布（见OperationMetric），不保留单次操作的记录，内存占用与操作次数无关；
+ * 记录路径只有一次ConcurrentHashMap查找和若干原子累加，可以在生产环境常开
+ * 操作类型命名：parse.file、index.document、search.<级别>、semantic.<接口>等
  */
 public class PerformanceMonitor {
-    // 各操作的耗时统计
-    private final List<OperationMetric> metrics = new ArrayList<>();
+    // 各操作类型的耗时统计
+    private final Map<String, OperationMetric> metrics = new ConcurrentHashMap<>();
+
+    // startOperation返回的操作ID -> 计时器
+    private final Map<String, Timer> activeOperations = new ConcurrentHashMap<>();
+    private final AtomicLong operationSequence = new AtomicLong();
+
+    /**
+     * 计时器，由start返回，结束时调用stop或close，只能调用一次
+     * 计时器本身就是结束计时所需的全部状态，不需要按ID查找
+     */
+    public static final class Timer implements AutoCloseable {
+        private final OperationMetric metric;
+        private final long startTime;
+
+        private Timer(OperationMetric metric) {
+            this.metric = metric;
+            this.startTime = System.nanoTime();
+        }
+
+        /**
+         * 结束计时并记录
+         * @return 耗时（纳秒）
+         */
+        public long stop() {
+            long duration = System.nanoTime() - startTime;
+            metric.record(duration);
+            return duration;
+        }
+
+        @Override
+        public void close() {
+            stop();
+        }
+    }
+
+    /**
+     * 开始计时
+     * @param operationType 操作类型
+     */
+    public Timer start(String operationType) {
+        return new Timer(getOrCreateMetric(operationType));
+    }
+
+    /**
+     * 有返回值的计时操作
+     */
+    @FunctionalInterface
+    public interface TimedCall<T, E extends Exception> {
+        T call() throws E;
+    }
+
+    /**
+     * 无返回值的计时操作
+     */
+    @FunctionalInterface
+    public interface TimedTask<E extends Exception> {
+        void run() throws E;
+    }
+
+    /**
+     * 执行操作并记录耗时，操作抛出异常时同样记录
+     * @param operationType 操作类型
+     * @return 操作的返回值
+     */
+    public <T, E extends Exception> T time(String operationType, TimedCall<T, E> call) throws E {
+        Timer timer = start(operationType);
+        try {
+            return call.call();
+        } finally {
+            timer.stop();
+        }
+    }
+
+    /**
+     * 执行无返回值的操作并记录耗时，操作抛出异常时同样记录
+     * @param operationType 操作类型
+     */
+    public <E extends Exception> void run(String operationType, TimedTask<E> task) throws E {
+        Timer timer = start(operationType);
+        try {
+            task.run();
+        } finally {
+            timer.stop();
+        }
+    }
+
+    /**
+     * 记录一次已经完成的操作
+     * @param operationType 操作类型
+     * @param durationNanos 耗时（纳秒）
+     */
+    public void record(String operationType, long durationNanos) {
+        getOrCreateMetric(operationType).record(durationNanos);
+    }
+
+    /**
+     * 记录一批耗时相同的操作
+     * @param operationType 操作类型
+     * @param durationNanos 单次耗时（纳秒）
+     * @param count 操作次数
+     */
+    public void record(String operationType, long durationNanos, long count) {
+        getOrCreateMetric(operationType).record(durationNanos, count);
+    }
 
     /**
      * 开始记录操作耗时
@@ -19,37 +125,19 @@ public class PerformanceMonitor {
      * @return 操作ID
      */
     public String startOperation(String operationName) {
-        String operationId = operationName + "-" + System.nanoTime();
-        metrics.add(new OperationMetric(operationId, operationName, System.nanoTime()));
+        String operationId = operationName + "-" + operationSequence.incrementAndGet();
+        activeOperations.put(operationId, start(operationName));
         return operationId;
     }
 
     /**
      * 结束操作耗时记录
      * @param operationId 操作ID
+     * @return 耗时（毫秒），操作ID不存在或已结束时返回-1
      */
-    public void endOperation(String operationId) {
-        long endTime = System.nanoTime();
-        for (OperationMetric metric : metrics) {
-            if (metric.getOperationId().equals(operationId)) {
-                metric.setEndTime(endTime);
-                break;
-            }
-        }
-    }
-
-    /**
-     * 获取操作耗时
-     * @param operationId 操作ID
-     * @return 耗时（毫秒）
-     */
-    public long getOperationDuration(String operationId) {
-        for (OperationMetric metric : metrics) {
-            if (metric.getOperationId().equals(operationId) && metric.getEndTime() > 0) {
-                return TimeUnit.NANOSECONDS.toMillis(metric.getEndTime() - metric.getStartTime());
-            }
-        }
-        return -1; // 未找到或操作未结束
+    public long endOperation(String operationId) {
+        Timer timer = activeOperations.remove(operationId);
+        return timer == null ? -1 : TimeUnit.NANOSECONDS.toMillis(timer.stop());
     }
 
     /**
@@ -58,31 +146,29 @@ public class PerformanceMonitor {
      * @return 平均耗时（毫秒）
      */
     public double getAverageOperationTime(String operationType) {
-        long totalTime = 0;
-        int count = 0;
-
-        for (OperationMetric metric : metrics) {
-            if (metric.getOperationType().equals(operationType) && metric.getEndTime() > 0) {
-                totalTime += (metric.getEndTime() - metric.getStartTime());
-                count++;
-            }
-        }
+        OperationMetric metric = metrics.get(operationType);
+        return metric == null ? 0 : metric.getAverageMillis();
+    }
 
-        return count > 0 ? TimeUnit.NANOSECONDS.toMillis(totalTime) / (double)count : 0;
+    /**
+     * 获取指定类型操作的统计，没有记录时返回null
+     */
+    public OperationMetric getOperationMetric(String operationType) {
+        return metrics.get(operationType);
     }
 
     /**
-     * 清空性能指标
+     * 获取所有性能指标，按操作类型排序
      */
-    public void clearMetrics() {
-        metrics.clear();
+    public Map<String, OperationMetric> getAllMetrics() {
+        return new TreeMap<>(metrics);
     }
 
     /**
-     * 获取所有性能指标
+     * 清空性能指标
      */
-    public List<OperationMetric> getAllMetrics() {
-        return new ArrayList<>(metrics);
+    public void clearMetrics() {
+        metrics.clear();
     }
 
     /**
@@ -91,43 +177,45 @@ public class PerformanceMonitor {
     public void printPerformanceReport() {
         System.out.println("===== 性能报告 =====");
 
-        // 按操作类型分组统计
-        Map<String, List<Long>> operationTimes = new HashMap<>();
-
-        for (OperationMetric metric : metrics) {
-            if (metric.getEndTime() > 0) {
-                long duration = metric.getEndTime() - metric.getStartTime();
-                operationTimes.computeIfAbsent(metric.getOperationType(), k -> new ArrayList<>())
-                        .add(duration);
-            }
-        }
-
         // 打印每种操作类型的统计信息
-        for (Map.Entry<String, List<Long>> entry : operationTimes.entrySet()) {
-            String operationType = entry.getKey();
-            List<Long> times = entry.getValue();
-
-            long totalTime = 0;
-            long minTime = Long.MAX_VALUE;
-            long maxTime = 0;
-
-            for (Long time : times) {
-                totalTime += time;
-                minTime = Math.min(minTime, time);
-                maxTime = Math.max(maxTime, time);
+        for (OperationMetric metric : getAllMetrics().values()) {
+            System.out.println("操作类型: " + metric.getOperationType());
+            System.out.println("  次数: " + metric.getCount());
+            System.out.println("  平均耗时: " + String.format("%.2f", metric.getAverageMillis()) + " ms");
+            System.out.println("  最小耗时: " + TimeUnit.NANOSECONDS.toMillis(metric.getMinNanos()) + " ms");
+            System.out.println("  最大耗时: " + TimeUnit.NANOSECONDS.toMillis(metric.getMaxNanos()) + " ms");
+            System.out.println("  总耗时: " + TimeUnit.NANOSECONDS.toMillis(metric.getTotalNanos()) + " ms");
+            System.out.println("  分位耗时: " + formatPercentiles(metric.getHistogram()));
+            LatencyHistogram recent = metric.getRecentHistogram();
+            if (recent.getCount() > 0) {
+                System.out.println("  最近一分钟: " + recent.getCount() + " 次，" + formatPercentiles(recent));
             }
-
-            double avgTime = times.isEmpty() ? 0 : totalTime / (double)times.size();
-
-            System.out.println("操作类型: " + operationType);
-            System.out.println("  次数: " + times.size());
-            System.out.println("  平均耗时: " + TimeUnit.NANOSECONDS.toMillis((long)avgTime) + " ms");
-            System.out.println("  最小耗时: " + TimeUnit.NANOSECONDS.toMillis(minTime) + " ms");
-            System.out.println("  最大耗时: " + TimeUnit.NANOSECONDS.toMillis(maxTime) + " ms");
-            System.out.println("  总耗时: " + TimeUnit.NANOSECONDS.toMillis(totalTime) + " ms");
             System.out.println();
         }
 
         System.out.println("====================");
     }
-}
\ No newline at end of file
+
+    // p50/p90/p99/p999/max，单位毫秒
+    private static String formatPercentiles(LatencyHistogram histogram) {
+        return String.format("p50=%.2f p90=%.2f p99=%.2f p999=%.2f max=%.2f ms",
+                toMillis(histogram.getValueAtPercentile(50)),
+                toMillis(histogram.getValueAtPercentile(90)),
+                toMillis(histogram.getValueAtPercentile(99)),
+                toMillis(histogram.getValueAtPercentile(99.9)),
+                toMillis(histogram.getMaxNanos()));
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / (double)TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    private OperationMetric getOrCreateMetric(String operationType) {
+        // 先用get避免computeIfAbsent在已存在时也加锁
+        OperationMetric metric = metrics.get(operationType);
+        if (metric == null) {
+            metric = metrics.computeIfAbsent(operationType, OperationMetric::new);
+        }
+        return metric;
+    }
+}
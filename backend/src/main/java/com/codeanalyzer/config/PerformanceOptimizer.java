@@ -21,8 +21,9 @@ public class PerformanceOptimizer {
 
     /**
      * 根据系统资源动态调整配置
+     * @return 调整后的调优参数
      */
-    public void optimizeConfigurations() {
+    public TuningProfile optimizeConfigurations() {
         // 获取可用处理器数量
         int availableProcessors = Runtime.getRuntime().availableProcessors();
 
@@ -30,6 +31,11 @@ public class PerformanceOptimizer {
         int optimalThreadCount = availableProcessors + 1;
         configManager.setConfig("parser.threadCount", String.valueOf(optimalThreadCount));
 
+        // 索引构建线程与核数相同，后台合并最多占用一半的核
+        configManager.setConfig("index.threadCount", String.valueOf(availableProcessors));
+        int mergeThreadCount = Math.max(1, Math.min(4, availableProcessors / 2));
+        configManager.setConfig("index.mergeThreadCount", String.valueOf(mergeThreadCount));
+
         // 根据可用内存调整索引缓冲区大小
         Runtime runtime = Runtime.getRuntime();
         long maxMemory = runtime.maxMemory();
@@ -53,6 +59,9 @@ public class PerformanceOptimizer {
         System.out.println("- 索引缓冲区大小: " + ramBufferSize + "MB");
         System.out.println("- 使用复合索引文件: " + useCompoundFile);
         System.out.println("- 缓存大小: " + cacheSize + " 条目");
+        System.out.println("- 索引线程数: " + availableProcessors + "，合并线程数: " + mergeThreadCount);
+
+        return configManager.getTuningProfile();
     }
 
     /**
@@ -84,7 +93,9 @@ public class PerformanceOptimizer {
         // 打印缓存统计
         CacheManager cacheManager = configManager.getCacheManager();
         System.out.println("===== 缓存统计 =====");
-        System.out.println("缓存大小: " + cacheManager.size() + " 条目");
+        System.out.println("缓存大小: " + cacheManager.size() + " / " + cacheManager.getMaxEntries() + " 条目，" +
+                cacheManager.getWeight() / 1024 + " / " + cacheManager.getMaxWeight() / 1024 + " KB");
+        System.out.println("淘汰次数: " + cacheManager.getEvictions());
         System.out.println("命中次数: " + cacheManager.getHits());
         System.out.println("未命中次数: " + cacheManager.getMisses());
         System.out.println("命中率: " + String.format("%.2f%%", cacheManager.getHitRate() * 100));
@@ -96,6 +107,7 @@ public class PerformanceOptimizer {
 
     /**
      * 执行基准测试
+     * 仅用于快速粗略检查，可对比的基准结果请使用benchmark模块（JMH）
      */
     public void runBenchmark(String projectPath, int iterations) throws Exception {
         System.out.println("开始基准测试...");
@@ -118,37 +130,34 @@ public class PerformanceOptimizer {
         );
 
         // 解析项目
-        String parseOpId = configManager.getPerformanceMonitor().startOperation("Project Parse");
+        PerformanceMonitor monitor = configManager.getPerformanceMonitor();
+        PerformanceMonitor.Timer parseTimer = monitor.start("Project Parse");
         com.codeanalyzer.ast.ParsedProjectStructure structure = parser.parseProject(path);
-        configManager.getPerformanceMonitor().endOperation(parseOpId);
+        parseTimer.stop();
 
         // 创建索引管理器
         com.codeanalyzer.index.IndexManager indexManager = new com.codeanalyzer.index.IndexManager(
-                "/tmp/benchmark_index"
+                "/tmp/benchmark_index",
+                configManager.getTuningProfile()
         );
 
         // 构建索引
-        String indexOpId = configManager.getPerformanceMonitor().startOperation("Index Build");
-        indexManager.buildIndex(structure);
-        configManager.getPerformanceMonitor().endOperation(indexOpId);
+        monitor.run("Index Build", () -> indexManager.buildIndex(structure));
 
         // 执行查询测试
         for (int i = 0; i < iterations; i++) {
             for (String query : queries) {
-                String searchOpId = configManager.getPerformanceMonitor().startOperation("Search: " + query);
-                indexManager.search(query, com.codeanalyzer.index.IndexLevel.ALL, 10);
-                configManager.getPerformanceMonitor().endOperation(searchOpId);
+                monitor.run("Search: " + query,
+                        () -> indexManager.search(query, com.codeanalyzer.index.IndexLevel.ALL, 10));
             }
 
             // 语义搜索测试
-            String semanticOpId = configManager.getPerformanceMonitor().startOperation("Semantic Search");
-            indexManager.semanticSearch("handle concurrent connections", 10);
-            configManager.getPerformanceMonitor().endOperation(semanticOpId);
+            monitor.run("Semantic Search",
+                    () -> indexManager.semanticSearch("handle concurrent connections", 10));
 
             // 关系搜索测试
-            String relationOpId = configManager.getPerformanceMonitor().startOperation("Relation Search");
-            indexManager.searchByRelation("IMPLEMENTS", "Serializable", 10);
-            configManager.getPerformanceMonitor().endOperation(relationOpId);
+            monitor.run("Relation Search",
+                    () -> indexManager.searchByRelation("IMPLEMENTS", "Serializable", 10));
         }
 
         // 关闭资源
@@ -0,0 +1,213 @@
+package com.codeanalyzer.config;
+
+import org.apache.lucene.index.ConcurrentMergeScheduler;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LogByteSizeMergePolicy;
+import org.apache.lucene.index.MergePolicy;
+import org.apache.lucene.index.NoMergePolicy;
+import org.apache.lucene.index.TieredMergePolicy;
+
+/**
+ * 性能调优参数 - 解析、索引和查询共用的一组配置
+ * 由ConfigurationManager根据配置项生成，ASTParser、IndexManager和SemanticAnalyzer在创建时读取
+ */
+public class TuningProfile {
+    // 默认值
+    public static final int DEFAULT_THREAD_COUNT = Runtime.getRuntime().availableProcessors();
+    public static final double DEFAULT_RAM_BUFFER_SIZE_MB = 256.0;
+    public static final boolean DEFAULT_USE_COMPOUND_FILE = true;
+    public static final String DEFAULT_MERGE_POLICY = "tiered";
+    public static final double DEFAULT_MERGE_FACTOR = 10.0;
+    public static final double DEFAULT_MAX_MERGED_SEGMENT_MB = 5 * 1024.0;
+    public static final int DEFAULT_QUERY_TIMEOUT_MS = 10000;
+    public static final int DEFAULT_MAX_QUERY_RESULTS = 100;
+    public static final double DEFAULT_MAX_STALENESS_SEC = 1.0;
+    // 10带 x 5行，LSH候选阈值约0.63，与语义分析的重复阈值0.8相匹配
+    public static final int DEFAULT_SIMILARITY_BANDS = 10;
+    public static final int DEFAULT_SIMILARITY_ROWS_PER_BAND = 5;
+
+    // 解析线程数
+    private int parserThreadCount = DEFAULT_THREAD_COUNT;
+    // 索引构建线程数，全量、流水线和增量构建共用同一个线程池，同时也限制了IndexWriter并发写入的线程状态数
+    private int indexThreadCount = DEFAULT_THREAD_COUNT;
+    // IndexWriter内存缓冲区大小
+    private double ramBufferSizeMB = DEFAULT_RAM_BUFFER_SIZE_MB;
+    // 是否使用复合索引文件
+    private boolean useCompoundFile = DEFAULT_USE_COMPOUND_FILE;
+    // 合并策略：tiered / logByteSize / none
+    private String mergePolicy = DEFAULT_MERGE_POLICY;
+    // 合并因子：tiered为每层段数，logByteSize为合并因子
+    private double mergeFactor = DEFAULT_MERGE_FACTOR;
+    // 合并后段的最大大小
+    private double maxMergedSegmentMB = DEFAULT_MAX_MERGED_SEGMENT_MB;
+    // 后台合并线程数，0表示由Lucene根据磁盘类型和核数决定
+    private int mergeThreadCount = 0;
+    // 单次查询超时时间
+    private int queryTimeoutMs = DEFAULT_QUERY_TIMEOUT_MS;
+    // 单次查询最多返回的结果数
+    private int maxQueryResults = DEFAULT_MAX_QUERY_RESULTS;
+    // 写入到对搜索可见的最大延迟（秒），后台刷新线程按此间隔重新打开搜索器
+    private double maxStalenessSec = DEFAULT_MAX_STALENESS_SEC;
+    // 相似度分析的LSH分桶带数，越多召回率越高、候选对越多
+    private int similarityBands = DEFAULT_SIMILARITY_BANDS;
+    // 相似度分析的LSH每带行数，越多候选越严格、速度越快但召回率下降
+    private int similarityRowsPerBand = DEFAULT_SIMILARITY_ROWS_PER_BAND;
+
+    /**
+     * 将索引相关参数应用到IndexWriter配置
+     * @return 传入的配置对象
+     */
+    public IndexWriterConfig applyTo(IndexWriterConfig config) {
+        config.setRAMBufferSizeMB(ramBufferSizeMB);
+        config.setUseCompoundFile(useCompoundFile);
+        config.setMergePolicy(createMergePolicy());
+
+        if (mergeThreadCount > 0) {
+            ConcurrentMergeScheduler scheduler = new ConcurrentMergeScheduler();
+            // 允许排队的合并数比线程数多几个，避免写入线程被合并阻塞
+            scheduler.setMaxMergesAndThreads(mergeThreadCount + 5, mergeThreadCount);
+            config.setMergeScheduler(scheduler);
+        }
+        return config;
+    }
+
+    /**
+     * 按配置创建合并策略，无法识别的策略名抛出IllegalArgumentException
+     */
+    private MergePolicy createMergePolicy() {
+        switch (mergePolicy.trim().toLowerCase()) {
+            case "tiered":
+                TieredMergePolicy tiered = new TieredMergePolicy();
+                tiered.setSegmentsPerTier(Math.max(2.0, mergeFactor));
+                tiered.setMaxMergedSegmentMB(maxMergedSegmentMB);
+                return tiered;
+
+            case "logbytesize":
+                LogByteSizeMergePolicy logByteSize = new LogByteSizeMergePolicy();
+                logByteSize.setMergeFactor(Math.max(2, (int)mergeFactor));
+                logByteSize.setMaxMergeMB(maxMergedSegmentMB);
+                return logByteSize;
+
+            case "none":
+                return NoMergePolicy.INSTANCE;
+
+            default:
+                throw new IllegalArgumentException("未知的合并策略: " + mergePolicy);
+        }
+    }
+
+    public int getParserThreadCount() {
+        return parserThreadCount;
+    }
+
+    public void setParserThreadCount(int parserThreadCount) {
+        this.parserThreadCount = parserThreadCount;
+    }
+
+    public int getIndexThreadCount() {
+        return indexThreadCount;
+    }
+
+    public void setIndexThreadCount(int indexThreadCount) {
+        this.indexThreadCount = indexThreadCount;
+    }
+
+    public double getRamBufferSizeMB() {
+        return ramBufferSizeMB;
+    }
+
+    public void setRamBufferSizeMB(double ramBufferSizeMB) {
+        this.ramBufferSizeMB = ramBufferSizeMB;
+    }
+
+    public boolean isUseCompoundFile() {
+        return useCompoundFile;
+    }
+
+    public void setUseCompoundFile(boolean useCompoundFile) {
+        this.useCompoundFile = useCompoundFile;
+    }
+
+    public String getMergePolicy() {
+        return mergePolicy;
+    }
+
+    public void setMergePolicy(String mergePolicy) {
+        this.mergePolicy = mergePolicy;
+    }
+
+    public double getMergeFactor() {
+        return mergeFactor;
+    }
+
+    public void setMergeFactor(double mergeFactor) {
+        this.mergeFactor = mergeFactor;
+    }
+
+    public double getMaxMergedSegmentMB() {
+        return maxMergedSegmentMB;
+    }
+
+    public void setMaxMergedSegmentMB(double maxMergedSegmentMB) {
+        this.maxMergedSegmentMB = maxMergedSegmentMB;
+    }
+
+    public int getMergeThreadCount() {
+        return mergeThreadCount;
+    }
+
+    public void setMergeThreadCount(int mergeThreadCount) {
+        this.mergeThreadCount = mergeThreadCount;
+    }
+
+    public int getQueryTimeoutMs() {
+        return queryTimeoutMs;
+    }
+
+    public void setQueryTimeoutMs(int queryTimeoutMs) {
+        this.queryTimeoutMs = queryTimeoutMs;
+    }
+
+    public int getMaxQueryResults() {
+        return maxQueryResults;
+    }
+
+    public void setMaxQueryResults(int maxQueryResults) {
+        this.maxQueryResults = maxQueryResults;
+    }
+
+    public double getMaxStalenessSec() {
+        return maxStalenessSec;
+    }
+
+    public void setMaxStalenessSec(double maxStalenessSec) {
+        this.maxStalenessSec = maxStalenessSec;
+    }
+
+    public int getSimilarityBands() {
+        return similarityBands;
+    }
+
+    public void setSimilarityBands(int similarityBands) {
+        this.similarityBands = similarityBands;
+    }
+
+    public int getSimilarityRowsPerBand() {
+        return similarityRowsPerBand;
+    }
+
+    public void setSimilarityRowsPerBand(int similarityRowsPerBand) {
+        this.similarityRowsPerBand = similarityRowsPerBand;
+    }
+
+    @Override
+    public String toString() {
+        return "TuningProfile{parserThreads=" + parserThreadCount + ", indexThreads=" + indexThreadCount +
+                ", ramBufferSizeMB=" + ramBufferSizeMB + ", useCompoundFile=" + useCompoundFile +
+                ", mergePolicy=" + mergePolicy + ", mergeFactor=" + mergeFactor +
+                ", maxMergedSegmentMB=" + maxMergedSegmentMB + ", mergeThreads=" + mergeThreadCount +
+                ", queryTimeoutMs=" + queryTimeoutMs + ", maxQueryResults=" + maxQueryResults +
+                ", maxStalenessSec=" + maxStalenessSec +
+                ", similarityBands=" + similarityBands + ", similarityRowsPerBand=" + similarityRowsPerBand + "}";
+    }
+}
@@ -32,6 +32,10 @@ public class WebConfig implements WebMvcConfigurer {
         // 允许的头信息
         config.addAllowedHeader("*");
 
+        // 允许前端读取的响应头：查询截断标记和分页游标
+        config.addExposedHeader("X-Search-Truncated");
+        config.addExposedHeader("X-Next-Cursor");
+
         // 允许发送凭证
         config.setAllowCredentials(true);
 
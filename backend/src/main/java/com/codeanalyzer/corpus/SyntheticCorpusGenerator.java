@@ -0,0 +1,336 @@
+package com.codeanalyzer.corpus;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 合成Java语料生成器 - 生成可配置规模的Java项目，用于扩展性测试和性能分析
+ * 特点:
+ * 1. 每个类一个文件，规模由包数量和每包类数决定
+ * 2. 类之间按配置的扇出互相调用，调用通过字段进行，可被调用图解析
+ * 3. 类按继承深度组成继承链
+ * 4. 按比例生成JavaDoc和重复方法（仅参数名不同的克隆）
+ * 5. 相同配置和种子总是生成完全相同的代码
+ */
+public class SyntheticCorpusGenerator {
+    // 根包名
+    private static final String ROOT_PACKAGE = "corpus";
+
+    // 用于生成标识符和注释的词汇
+    private static final String[] NOUNS = {
+            "order", "customer", "payment", "invoice", "account", "session", "cache", "report",
+            "database", "connection", "query", "message", "request", "response", "user", "product",
+            "inventory", "shipment", "address", "token", "config", "metric", "event", "schedule"
+    };
+    private static final String[] VERBS = {
+            "load", "save", "update", "validate", "process", "compute", "find", "build",
+            "parse", "convert", "merge", "resolve", "handle", "check", "apply", "format"
+    };
+    private static final String[] SUFFIXES = {
+            "Service", "Manager", "Repository", "Handler", "Helper", "Processor", "Controller", "Factory"
+    };
+
+    // 重复方法使用的方法体模板数量
+    private static final int CLONE_TEMPLATE_COUNT = 8;
+
+    // 生成参数
+    private int packageCount = 10;
+    private int classesPerPackage = 10;
+    private int methodsPerClass = 8;
+    private int callFanOut = 3;
+    private int inheritanceDepth = 2;
+    private double javadocRatio = 0.5;
+    private double duplicateMethodRatio = 0.1;
+    private long seed = 42L;
+
+    /**
+     * 创建生成约指定数量文件的生成器，其余参数使用默认值
+     * @param fileCount 目标文件数量
+     */
+    public static SyntheticCorpusGenerator forFileCount(int fileCount) {
+        SyntheticCorpusGenerator generator = new SyntheticCorpusGenerator();
+        int classes = Math.max(1, fileCount);
+        // 每包类数随规模增长，避免包数量过多
+        generator.classesPerPackage = Math.max(1, Math.min(100, (int)Math.sqrt(classes)));
+        generator.packageCount = (classes + generator.classesPerPackage - 1) / generator.classesPerPackage;
+        return generator;
+    }
+
+    public SyntheticCorpusGenerator packageCount(int packageCount) {
+        this.packageCount = requirePositive(packageCount, "packageCount");
+        return this;
+    }
+
+    public SyntheticCorpusGenerator classesPerPackage(int classesPerPackage) {
+        this.classesPerPackage = requirePositive(classesPerPackage, "classesPerPackage");
+        return this;
+    }
+
+    public SyntheticCorpusGenerator methodsPerClass(int methodsPerClass) {
+        this.methodsPerClass = requirePositive(methodsPerClass, "methodsPerClass");
+        return this;
+    }
+
+    /**
+     * 每个方法调用其他类方法的次数
+     */
+    public SyntheticCorpusGenerator callFanOut(int callFanOut) {
+        this.callFanOut = requireNonNegative(callFanOut, "callFanOut");
+        return this;
+    }
+
+    /**
+     * 继承链深度，0表示不生成继承关系
+     */
+    public SyntheticCorpusGenerator inheritanceDepth(int inheritanceDepth) {
+        this.inheritanceDepth = requireNonNegative(inheritanceDepth, "inheritanceDepth");
+        return this;
+    }
+
+    /**
+     * 带JavaDoc的类和方法所占比例（0~1）
+     */
+    public SyntheticCorpusGenerator javadocRatio(double javadocRatio) {
+        this.javadocRatio = requireRatio(javadocRatio, "javadocRatio");
+        return this;
+    }
+
+    /**
+     * 重复方法所占比例（0~1），重复方法共享方法体模板，只有参数名不同
+     */
+    public SyntheticCorpusGenerator duplicateMethodRatio(double duplicateMethodRatio) {
+        this.duplicateMethodRatio = requireRatio(duplicateMethodRatio, "duplicateMethodRatio");
+        return this;
+    }
+
+    public SyntheticCorpusGenerator seed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    /**
+     * 生成的文件（类）总数
+     */
+    public int getFileCount() {
+        return packageCount * classesPerPackage;
+    }
+
+    /**
+     * 在目录下生成语料
+     * @param rootDir 输出目录，不存在时自动创建
+     * @return 生成的文件列表（按生成顺序）
+     */
+    public List<Path> generate(Path rootDir) throws IOException {
+        Random random = new Random(seed);
+        int classCount = getFileCount();
+        List<Path> files = new ArrayList<>(classCount);
+
+        for (int c = 0; c < classCount; c++) {
+            String packageName = packageName(c);
+            Path file = rootDir.resolve(packageName.replace('.', '/')).resolve(className(c) + ".java");
+            Files.createDirectories(file.getParent());
+
+            try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                writer.write(generateClass(c, classCount, random));
+            }
+            files.add(file);
+        }
+
+        return files;
+    }
+
+    /**
+     * 生成单个类的源代码
+     */
+    private String generateClass(int classIndex, int classCount, Random random) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("package ").append(packageName(classIndex)).append(";\n\n");
+
+        if (random.nextDouble() < javadocRatio) {
+            sb.append("/**\n * ").append(sentence(random)).append("\n */\n");
+        }
+
+        sb.append("public class ").append(className(classIndex));
+        // 继承链: 每条链长度为inheritanceDepth + 1，链中每个类继承前一个类
+        if (inheritanceDepth > 0 && classIndex % (inheritanceDepth + 1) != 0) {
+            sb.append(" extends ").append(qualifiedClassName(classIndex - 1));
+        }
+        sb.append(" {\n");
+
+        // 依赖字段，方法通过这些字段调用其他类
+        int dependencyCount = Math.min(callFanOut, classCount);
+        int[] dependencies = new int[dependencyCount];
+        for (int d = 0; d < dependencyCount; d++) {
+            dependencies[d] = random.nextInt(classCount);
+            sb.append("    private ").append(qualifiedClassName(dependencies[d]))
+                    .append(" dependency").append(d).append(";\n");
+        }
+        sb.append("    private String ").append(noun(random)).append("Label;\n\n");
+
+        for (int m = 0; m < methodsPerClass; m++) {
+            generateMethod(sb, classIndex, m, dependencies, random);
+        }
+
+        sb.append("}\n");
+        return sb.toString();
+    }
+
+    /**
+     * 生成单个方法
+     * 所有方法签名相同（int, String）-> int，调用任意方法都能通过编译
+     */
+    private void generateMethod(StringBuilder sb, int classIndex, int methodIndex, int[] dependencies, Random random) {
+        String name = methodName(classIndex, methodIndex);
+        boolean duplicate = isDuplicate(classIndex, methodIndex);
+        int template = methodIndex % CLONE_TEMPLATE_COUNT;
+
+        if (random.nextDouble() < javadocRatio) {
+            // 重复方法的JavaDoc也随代码一起复制
+            String doc = duplicate ? "Accumulates the " + NOUNS[template] + " total." : sentence(random);
+            sb.append("    /**\n     * ").append(doc).append("\n     */\n");
+        }
+
+        if (duplicate) {
+            // 重复方法：方法名、JavaDoc和方法体来自固定模板，参数名按类随机变化
+            String value = noun(random) + "Value";
+            String text = noun(random) + "Text";
+            sb.append("    public int ").append(name).append("(int ").append(value)
+                    .append(", String ").append(text).append(") {\n");
+            appendCloneBody(sb, template, value, text);
+        } else {
+            sb.append("    public int ").append(name).append("(int value, String text) {\n");
+            sb.append("        int result = value + text.length();\n");
+            for (int k = 0; k < callFanOut && dependencies.length > 0; k++) {
+                int d = random.nextInt(dependencies.length);
+                sb.append("        result += dependency").append(d).append('.')
+                        .append(methodName(dependencies[d], random.nextInt(methodsPerClass))).append("(result, \"")
+                        .append(noun(random)).append("\");\n");
+            }
+            sb.append("        return result;\n");
+        }
+        sb.append("    }\n\n");
+    }
+
+    /**
+     * 生成重复方法的方法体
+     */
+    private void appendCloneBody(StringBuilder sb, int template, String value, String text) {
+        sb.append("        int total = ").append(value).append(";\n");
+        sb.append("        for (int i = 0; i < ").append(template + 2).append("; i++) {\n");
+        sb.append("            total += ").append(text).append(".length() * i;\n");
+        sb.append("            if (total > ").append((template + 1) * 100).append(") {\n");
+        sb.append("                total = total % ").append(template + 7).append(";\n");
+        sb.append("            }\n");
+        sb.append("        }\n");
+        sb.append("        return total;\n");
+    }
+
+    /**
+     * 方法名只由类和方法序号决定，调用方可以直接算出目标方法名
+     * 普通方法为 动词 + 名词 + 序号，重复方法使用模板名，不同类中相同序号的重复方法同名
+     */
+    private String methodName(int classIndex, int methodIndex) {
+        if (isDuplicate(classIndex, methodIndex)) {
+            int template = methodIndex % CLONE_TEMPLATE_COUNT;
+            int round = methodIndex / CLONE_TEMPLATE_COUNT;
+            return "accumulate" + capitalize(NOUNS[template]) + "Total" + (round > 0 ? String.valueOf(round) : "");
+        }
+
+        int hash = mix(classIndex, methodIndex);
+        return VERBS[Math.floorMod(hash, VERBS.length)]
+                + capitalize(NOUNS[Math.floorMod(hash >>> 8, NOUNS.length)]) + methodIndex;
+    }
+
+    /**
+     * 方法是否为重复方法，按哈希决定而不是随机序列，调用方无需生成目标类即可判断
+     */
+    private boolean isDuplicate(int classIndex, int methodIndex) {
+        int hash = mix(classIndex, methodIndex);
+        return (hash >>> 8) / (double)(1 << 24) < duplicateMethodRatio;
+    }
+
+    /**
+     * 由种子、类序号和方法序号计算的哈希
+     */
+    private int mix(int classIndex, int methodIndex) {
+        long h = seed ^ ((long)classIndex << 20) ^ methodIndex;
+        h = (h ^ (h >>> 33)) * 0xff51afd7ed558ccdL;
+        h = (h ^ (h >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return (int)(h ^ (h >>> 33));
+    }
+
+    private String packageName(int classIndex) {
+        return ROOT_PACKAGE + ".p" + (classIndex / classesPerPackage);
+    }
+
+    private String className(int classIndex) {
+        return capitalize(NOUNS[classIndex % NOUNS.length])
+                + SUFFIXES[(classIndex / NOUNS.length) % SUFFIXES.length] + classIndex;
+    }
+
+    private String qualifiedClassName(int classIndex) {
+        return packageName(classIndex) + "." + className(classIndex);
+    }
+
+    private static String noun(Random random) {
+        return NOUNS[random.nextInt(NOUNS.length)];
+    }
+
+    private static String sentence(Random random) {
+        StringBuilder sb = new StringBuilder(capitalize(VERBS[random.nextInt(VERBS.length)]));
+        for (int i = 0; i < 6; i++) {
+            sb.append(' ').append(noun(random));
+        }
+        return sb.append('.').toString();
+    }
+
+    private static String capitalize(String word) {
+        return Character.toUpperCase(word.charAt(0)) + word.substring(1);
+    }
+
+    private static int requirePositive(int value, String name) {
+        if (value <= 0) {
+            throw new IllegalArgumentException(name + " must be positive");
+        }
+        return value;
+    }
+
+    private static int requireNonNegative(int value, String name) {
+        if (value < 0) {
+            throw new IllegalArgumentException(name + " must not be negative");
+        }
+        return value;
+    }
+
+    private static double requireRatio(double value, String name) {
+        if (value < 0 || value > 1) {
+            throw new IllegalArgumentException(name + " must be between 0 and 1");
+        }
+        return value;
+    }
+
+    /**
+     * 命令行入口: SyntheticCorpusGenerator <输出目录> <文件数量> [种子]
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("用法: SyntheticCorpusGenerator <输出目录> <文件数量> [种子]");
+            System.exit(1);
+        }
+
+        SyntheticCorpusGenerator generator = forFileCount(Integer.parseInt(args[1]));
+        if (args.length > 2) {
+            generator.seed(Long.parseLong(args[2]));
+        }
+
+        List<Path> files = generator.generate(Paths.get(args[0]));
+        System.out.println("已生成 " + files.size() + " 个文件");
+    }
+}
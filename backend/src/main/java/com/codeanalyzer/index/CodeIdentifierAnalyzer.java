@@ -0,0 +1,67 @@
+package com.codeanalyzer.index;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.CharArraySet;
+import org.apache.lucene.analysis.LowerCaseFilter;
+import org.apache.lucene.analysis.StopFilter;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.core.FlattenGraphFilter;
+import org.apache.lucene.analysis.miscellaneous.WordDelimiterGraphFilter;
+import org.apache.lucene.analysis.standard.StandardTokenizer;
+
+import java.util.Arrays;
+
+/**
+ * 代码标识符分析器 - 按驼峰、下划线和数字拆分标识符
+ * 例如getUserById会产生getuserbyid、get、user、by、id五个词项，
+ * 检索user时可以直接用词项查询命中，不需要通配符扫描词典
+ * 处理顺序：标准分词 -> 去除Java关键字 -> 拆分标识符并保留原词 -> 转小写
+ */
+public final class CodeIdentifierAnalyzer extends Analyzer {
+    /**
+     * Java关键字，区分大小写，只在整个词等于关键字时去除，
+     * getClass拆分出的class和注释中的Class都会保留
+     */
+    public static final CharArraySet JAVA_KEYWORDS = CharArraySet.unmodifiableSet(new CharArraySet(Arrays.asList(
+            "abstract", "assert", "boolean", "break", "byte", "case", "catch", "char", "class", "const",
+            "continue", "default", "do", "double", "else", "enum", "extends", "final", "finally", "float",
+            "for", "goto", "if", "implements", "import", "instanceof", "int", "interface", "long", "native",
+            "new", "package", "private", "protected", "public", "return", "short", "static", "strictfp", "super",
+            "switch", "synchronized", "this", "throw", "throws", "transient", "try", "void", "volatile", "while",
+            "true", "false", "null"), false));
+
+    private static final int SPLIT_FLAGS = WordDelimiterGraphFilter.GENERATE_WORD_PARTS
+            | WordDelimiterGraphFilter.GENERATE_NUMBER_PARTS
+            | WordDelimiterGraphFilter.SPLIT_ON_CASE_CHANGE
+            | WordDelimiterGraphFilter.SPLIT_ON_NUMERICS
+            | WordDelimiterGraphFilter.STEM_ENGLISH_POSSESSIVE
+            | WordDelimiterGraphFilter.PRESERVE_ORIGINAL;
+
+    // 索引时需要把拆分产生的词图展平，查询时保留词图供查询解析器使用
+    private final boolean indexing;
+
+    /**
+     * @param indexing 是否用于写入索引
+     */
+    public CodeIdentifierAnalyzer(boolean indexing) {
+        this.indexing = indexing;
+    }
+
+    @Override
+    protected TokenStreamComponents createComponents(String fieldName) {
+        StandardTokenizer source = new StandardTokenizer();
+        TokenStream result = new StopFilter(source, JAVA_KEYWORDS);
+        result = new WordDelimiterGraphFilter(result, SPLIT_FLAGS, null);
+        result = new LowerCaseFilter(result);
+        if (indexing) {
+            result = new FlattenGraphFilter(result);
+        }
+        return new TokenStreamComponents(source, result);
+    }
+
+    @Override
+    protected TokenStream normalize(String fieldName, TokenStream in) {
+        // 通配符、前缀等不经过分词的查询只做小写转换
+        return new LowerCaseFilter(in);
+    }
+}
@@ -0,0 +1,188 @@
+package com.codeanalyzer.index;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 源文件清单 - 记录文件路径到内容哈希的映射，用于增量分析
+ * 特点:
+ * 1. 与索引存放在同一目录，随索引一起持久化
+ * 2. 文件大小和修改时间未变时直接复用旧哈希，避免重复读盘
+ * 3. 修改时间变化但内容相同的文件（如重新解压）不会被视为变更
+ */
+public class FileManifest {
+    // 清单文件名
+    public static final String MANIFEST_FILE = "file_manifest.properties";
+
+    // 相对路径 -> 文件状态（按路径排序，便于比较和查看）
+    private final Map<String, FileState> files = new TreeMap<>();
+
+    /**
+     * 单个文件的状态
+     */
+    private static class FileState {
+        private final String hash;
+        private final long size;
+        private final long lastModified;
+
+        FileState(String hash, long size, long lastModified) {
+            this.hash = hash;
+            this.size = size;
+            this.lastModified = lastModified;
+        }
+    }
+
+    /**
+     * 从磁盘加载清单，文件不存在时返回空清单
+     * @param manifestPath 清单文件路径
+     */
+    public static FileManifest load(Path manifestPath) throws IOException {
+        FileManifest manifest = new FileManifest();
+        if (!Files.exists(manifestPath)) {
+            return manifest;
+        }
+
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(manifestPath)) {
+            properties.load(in);
+        }
+
+        // 值格式: 哈希,大小,修改时间
+        for (String path : properties.stringPropertyNames()) {
+            String[] parts = properties.getProperty(path).split(",");
+            if (parts.length == 3) {
+                try {
+                    manifest.files.put(path, new FileState(parts[0],
+                            Long.parseLong(parts[1]), Long.parseLong(parts[2])));
+                } catch (NumberFormatException e) {
+                    // 忽略损坏的条目，对应文件会被视为新增
+                }
+            }
+        }
+        return manifest;
+    }
+
+    /**
+     * 扫描目录下的所有Java文件，生成新的清单
+     * @param rootDir 源代码根目录
+     * @param previous 上一次的清单，用于复用未修改文件的哈希，可以为null
+     */
+    public static FileManifest scan(Path rootDir, FileManifest previous) throws IOException {
+        FileManifest manifest = new FileManifest();
+
+        List<Path> javaFiles;
+        try (Stream<Path> stream = Files.walk(rootDir)) {
+            javaFiles = stream
+                    .filter(Files::isRegularFile)
+                    .filter(path -> path.getFileName().toString().endsWith(".java"))
+                    .collect(Collectors.toList());
+        }
+
+        for (Path file : javaFiles) {
+            String relativePath = rootDir.relativize(file).toString().replace(File.separatorChar, '/');
+            long size = Files.size(file);
+            long lastModified = Files.getLastModifiedTime(file).toMillis();
+
+            FileState old = previous != null ? previous.files.get(relativePath) : null;
+            if (old != null && old.size == size && old.lastModified == lastModified) {
+                // 大小和修改时间都未变化，直接复用哈希
+                manifest.files.put(relativePath, old);
+            } else {
+                manifest.files.put(relativePath, new FileState(hashFile(file), size, lastModified));
+            }
+        }
+
+        return manifest;
+    }
+
+    /**
+     * 保存清单，先写临时文件再原子替换，避免中途失败留下损坏的清单
+     * @param manifestPath 清单文件路径
+     */
+    public void save(Path manifestPath) throws IOException {
+        Properties properties = new Properties();
+        for (Map.Entry<String, FileState> entry : files.entrySet()) {
+            FileState state = entry.getValue();
+            properties.setProperty(entry.getKey(), state.hash + "," + state.size + "," + state.lastModified);
+        }
+
+        Path tempPath = manifestPath.resolveSibling(manifestPath.getFileName() + ".tmp");
+        try (OutputStream out = Files.newOutputStream(tempPath)) {
+            properties.store(out, "source file manifest");
+        }
+        Files.move(tempPath, manifestPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * 获取相对于旧清单新增或内容变化的文件
+     */
+    public Set<String> changedSince(FileManifest previous) {
+        Set<String> changed = new TreeSet<>();
+        for (Map.Entry<String, FileState> entry : files.entrySet()) {
+            FileState old = previous.files.get(entry.getKey());
+            if (old == null || !old.hash.equals(entry.getValue().hash)) {
+                changed.add(entry.getKey());
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * 获取相对于旧清单已删除的文件
+     */
+    public Set<String> removedSince(FileManifest previous) {
+        Set<String> removed = new TreeSet<>(previous.files.keySet());
+        removed.removeAll(files.keySet());
+        return removed;
+    }
+
+    /**
+     * 获取清单中的所有文件
+     */
+    public Set<String> getFiles() {
+        return Collections.unmodifiableSet(files.keySet());
+    }
+
+    /**
+     * 清单是否为空
+     */
+    public boolean isEmpty() {
+        return files.isEmpty();
+    }
+
+    /**
+     * 计算文件内容的SHA-256哈希
+     */
+    private static String hashFile(Path file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+
+        byte[] buffer = new byte[8192];
+        try (InputStream in = Files.newInputStream(file)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+
+        StringBuilder sb = new StringBuilder();
+        for (byte b : digest.digest()) {
+            sb.append(String.format("%02x", b));
+        }
+        return sb.toString();
+    }
+}
@@ -1,9 +1,16 @@
 package com.codeanalyzer.index;
 
-import com.codeanalyzer.ast.CodeEntity;
 import com.codeanalyzer.ast.IntermediateRepresentation;
 import com.codeanalyzer.ast.ParsedProjectStructure;
+import com.codeanalyzer.config.CacheManager;
+import com.codeanalyzer.config.PerformanceMonitor;
+import com.codeanalyzer.config.TuningProfile;
 import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.LowerCaseFilter;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.core.KeywordTokenizer;
+import org.apache.lucene.analysis.ngram.EdgeNGramTokenFilter;
+import org.apache.lucene.analysis.miscellaneous.PerFieldAnalyzerWrapper;
 import org.apache.lucene.analysis.standard.StandardAnalyzer;
 import org.apache.lucene.document.*;
 import org.apache.lucene.index.*;
@@ -18,8 +25,16 @@ import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * 索引管理模块 - 实现多级索引管理
@@ -28,22 +43,59 @@ import java.util.stream.Collectors;
  * 2. 支持关系检索（实现、继承、引用）
  * 3. 支持注释语义检索
  * 4. 内置查询优化，支持多种查询模式
+ * 5. 近实时检索，搜索器直接从IndexWriter获取，后台线程定期刷新
+ * 6. 多线程构建，各工作线程并行创建文档并写入同一个IndexWriter
  */
 public class IndexManager implements AutoCloseable {
     // 索引目录
     private final Path indexPath;
     // Lucene索引目录
     private final Directory directory;
-    // 索引分析器
-    private final Analyzer analyzer;
+    // 索引分析器：代码字段按标识符拆分，其余字段使用标准分析器
+    private final Analyzer indexAnalyzer;
+    // 查询分析器，与索引分析器按字段对应
+    private final Analyzer queryAnalyzer;
     // 索引写入器
-    private IndexWriter indexWriter;
-    // 索引读取器（延迟初始化）
-    private IndexReader indexReader;
-    // 索引搜索器（延迟初始化）
-    private IndexSearcher indexSearcher;
-    // 缓存常用的索引读取器和搜索器
-    private final Map<String, Object> searchCache = new ConcurrentHashMap<>();
+    private final IndexWriter indexWriter;
+    // 近实时搜索器管理，搜索时获取、用完释放，刷新不会影响进行中的搜索
+    private final SearcherManager searcherManager;
+    // 后台刷新线程，保证搜索器落后写入不超过最大延迟
+    private final ControlledRealTimeReopenThread<IndexSearcher> reopenThread;
+    // 索引构建线程池
+    private final ExecutorService indexExecutor;
+    // 索引构建线程数
+    private final int indexThreadCount;
+    // 单次查询最多返回的结果数
+    private final int maxQueryResults;
+    // 单次查询超时时间（毫秒），小于等于0表示不限制
+    private final int queryTimeoutMs;
+    // 查询结果缓存，为null时不缓存
+    private volatile CacheManager resultCache;
+    // 结果缓存项的过期时间
+    private volatile long resultCacheExpirationMs;
+    // 结果缓存统计
+    // 全量构建已清空索引但尚未提交：索引内容不完整，只能重新全量构建或在关闭时回滚
+    private volatile boolean buildPending;
+    private final AtomicLong resultCacheHits = new AtomicLong();
+    private final AtomicLong resultCacheMisses = new AtomicLong();
+    // 写入和查询耗时统计
+    private volatile PerformanceMonitor performanceMonitor = new PerformanceMonitor();
+
+    // 结果缓存键的前缀，与共用同一个CacheManager的其他缓存项区分
+    private static final String RESULT_CACHE_PREFIX = "index.search|";
+    // 流式构建的结束标记，每个工作线程收到一个后退出
+    private static final Map.Entry<String, Collection<IntermediateRepresentation>> END_OF_BUILD =
+            new AbstractMap.SimpleImmutableEntry<>("", Collections.emptyList());
+    // 统计命中总数的上限，与IndexSearcher默认值一致，超过后可以跳过低分文档
+    private static final int TOTAL_HITS_THRESHOLD = 1000;
+    // 关系检索和语义检索只返回各自关心的属性
+    private static final ResultProjection RELATION_PROJECTION = ResultProjection.of(ResultProjection.RELATIONSHIPS);
+    private static final ResultProjection SEMANTIC_PROJECTION = ResultProjection.of(ResultProjection.JAVADOC);
+
+    // 默认最大刷新延迟（秒）
+    public static final double DEFAULT_MAX_STALENESS_SEC = TuningProfile.DEFAULT_MAX_STALENESS_SEC;
+    // 最小刷新间隔（秒），等待特定写入可见时使用
+    private static final double MIN_STALENESS_SEC = 0.05;
 
     // 索引字段定义
     public static final String FIELD_ID = "id";
@@ -61,6 +113,28 @@ public class IndexManager implements AutoCloseable {
     public static final String FIELD_RETURN = "returnType";
     public static final String FIELD_FIELD_TYPE = "fieldType";
     public static final String FIELD_SNIPPET = "snippet";
+    public static final String FIELD_SOURCE_FILE = "sourceFile";
+    // 自动补全字段：名称、驼峰首字母缩写和完整ID的前缀
+    public static final String FIELD_SUGGEST_NAME = "suggestName";
+    public static final String FIELD_SUGGEST_HUMPS = "suggestHumps";
+    public static final String FIELD_SUGGEST_ID = "suggestId";
+    // 名称长度，补全结果得分相同时短名称优先
+    private static final String FIELD_NAME_LENGTH = "nameLength";
+
+    // 补全字段索引的最长前缀
+    private static final int MAX_SUGGEST_PREFIX = 64;
+    // 补全字段只需要判断是否命中，不记录词频、位置和长度归一化
+    private static final FieldType SUGGEST_FIELD_TYPE = new FieldType();
+    static {
+        SUGGEST_FIELD_TYPE.setTokenized(true);
+        SUGGEST_FIELD_TYPE.setIndexOptions(IndexOptions.DOCS);
+        SUGGEST_FIELD_TYPE.setOmitNorms(true);
+        SUGGEST_FIELD_TYPE.freeze();
+    }
+
+    // 按代码标识符分词的字段
+    static final Set<String> CODE_FIELDS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+            FIELD_NAME, FIELD_CONTENT, FIELD_PARAMS, FIELD_SNIPPET)));
 
     /**
      * 初始化索引管理器
@@ -68,18 +142,57 @@ public class IndexManager implements AutoCloseable {
      * @throws IOException 如果索引目录无法创建
      */
     public IndexManager(String indexPath) throws IOException {
+        this(indexPath, new TuningProfile());
+    }
+
+    /**
+     * 初始化索引管理器
+     * @param indexPath 索引存储路径
+     * @param profile 调优参数，包括搜索结果的最大刷新延迟
+     * @throws IOException 如果索引目录无法创建
+     */
+    public IndexManager(String indexPath, TuningProfile profile) throws IOException {
+        this(indexPath, profile.getMaxStalenessSec(), profile);
+    }
+
+    /**
+     * 初始化索引管理器
+     * @param indexPath 索引存储路径
+     * @param maxStalenessSec 搜索结果相对于写入的最大延迟（秒）
+     * @param profile 调优参数：内存缓冲区、复合文件、合并策略、构建线程数、查询限制
+     * @throws IOException 如果索引目录无法创建
+     */
+    public IndexManager(String indexPath, double maxStalenessSec, TuningProfile profile) throws IOException {
+        if (profile.getIndexThreadCount() <= 0) {
+            throw new IllegalArgumentException("索引构建线程数必须大于0: " + profile.getIndexThreadCount());
+        }
+        if (maxStalenessSec <= 0) {
+            throw new IllegalArgumentException("最大刷新延迟必须大于0: " + maxStalenessSec);
+        }
         this.indexPath = Paths.get(indexPath);
         this.directory = FSDirectory.open(this.indexPath);
-        this.analyzer = new StandardAnalyzer();
+        this.indexAnalyzer = createAnalyzer(true);
+        this.queryAnalyzer = createAnalyzer(false);
 
         // 配置索引写入器
-        IndexWriterConfig config = new IndexWriterConfig(analyzer);
+        IndexWriterConfig config = profile.applyTo(new IndexWriterConfig(indexAnalyzer));
         config.setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND);
-        config.setRAMBufferSizeMB(256.0);
-        config.setUseCompoundFile(true);
         config.setCommitOnClose(true);
 
         this.indexWriter = new IndexWriter(directory, config);
+
+        // 从写入器打开近实时读取器，未提交的变更也可被搜索
+        this.searcherManager = new SearcherManager(indexWriter, null);
+        this.reopenThread = new ControlledRealTimeReopenThread<>(
+                indexWriter, searcherManager, maxStalenessSec, Math.min(MIN_STALENESS_SEC, maxStalenessSec));
+        reopenThread.setName("index-nrt-reopen");
+        reopenThread.setDaemon(true);
+        reopenThread.start();
+
+        this.indexThreadCount = profile.getIndexThreadCount();
+        this.indexExecutor = Executors.newFixedThreadPool(indexThreadCount);
+        this.maxQueryResults = profile.getMaxQueryResults();
+        this.queryTimeoutMs = profile.getQueryTimeoutMs();
     }
 
     /**
@@ -89,98 +202,378 @@ public class IndexManager implements AutoCloseable {
      */
     public void buildIndex(ParsedProjectStructure projectStructure) throws IOException {
         // 清空现有索引
+        beginBuild();
+
+        // 按源文件分组，每个文件的全部文档作为一组并行写入
+        Map<String, List<IntermediateRepresentation>> fileGroups = groupBySourceFile(projectStructure.getIrMap());
+        indexFilesParallel(new ArrayList<>(fileGroups.entrySet()), false);
+
+        // 提交索引
+        finishBuild();
+    }
+
+    /**
+     * 清空现有索引，开始全量构建
+     * 清空和随后写入的文档在提交前就会被近实时搜索器看到；提交前中断时索引不完整，见{@link #isBuildPending()}
+     */
+    private void beginBuild() throws IOException {
+        buildPending = true;
         indexWriter.deleteAll();
+    }
 
-        // 文件级索引（按文件路径分组）
-        Map<String, List<IntermediateRepresentation>> fileGroups = new HashMap<>();
+    /**
+     * 开始流式构建索引：清空现有索引，随后通过返回的会话逐个提交源文件，最后调用finish提交
+     * 提交的文件进入有界队列，由索引构建线程池（index.threadCount个线程）并行创建文档并写入，
+     * 队列满时提交方阻塞，等待写入的文件数不超过队列容量
+     * @param queueCapacity 等待写入的最大文件数
+     * @throws IOException 索引异常
+     */
+    public StreamingBuild beginStreamingBuild(int queueCapacity) throws IOException {
+        if (queueCapacity <= 0) {
+            throw new IllegalArgumentException("队列容量必须大于0: " + queueCapacity);
+        }
+        beginBuild();
+        return new StreamingBuild(queueCapacity);
+    }
 
-        // 获取所有中间表示
-        Map<String, IntermediateRepresentation> irMap = projectStructure.getIrMap();
+    /**
+     * 流式构建会话：提交方（通常是解析结果的消费者）只负责入队，文档创建和写入都在工作线程中完成
+     * 任意文件写入失败后，剩余文件不再写入，后续的submit和finish抛出该异常
+     */
+    public final class StreamingBuild {
+        private final BlockingQueue<Map.Entry<String, Collection<IntermediateRepresentation>>> queue;
+        private final List<Future<Void>> workers = new ArrayList<>(indexThreadCount);
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+        private boolean finished;
+
+        private StreamingBuild(int queueCapacity) {
+            this.queue = new ArrayBlockingQueue<>(queueCapacity);
+            for (int w = 0; w < indexThreadCount; w++) {
+                workers.add(indexExecutor.submit(this::drain));
+            }
+        }
 
-        // 按文件路径分组
-        for (IntermediateRepresentation ir : irMap.values()) {
-            String filePath = extractFilePath(ir.getPath());
-            fileGroups.computeIfAbsent(filePath, k -> new ArrayList<>()).add(ir);
+        /**
+         * 工作线程：领取文件并写入，直到收到结束标记
+         */
+        private Void drain() throws InterruptedException {
+            while (true) {
+                Map.Entry<String, Collection<IntermediateRepresentation>> entry = queue.take();
+                if (entry == END_OF_BUILD) {
+                    return null;
+                }
+                // 已经失败时只消费不写入，避免提交方阻塞在满队列上
+                if (failure.get() != null) {
+                    continue;
+                }
+                try {
+                    writeFileDocuments(entry.getKey(), entry.getValue(), false);
+                } catch (Throwable e) {
+                    // 工作线程不能提前退出，否则提交方可能永远阻塞在满队列上
+                    failure.compareAndSet(null, e);
+                }
+            }
+        }
+
+        /**
+         * 提交单个源文件的全部IR，入队后调用方不应再修改这些IR
+         * @param sourceFile 源文件相对路径
+         * @param irs 该文件中的全部IR
+         * @throws IOException 之前提交的文件写入失败，或等待入队时被中断
+         */
+        public void submit(String sourceFile, Collection<IntermediateRepresentation> irs) throws IOException {
+            if (finished) {
+                throw new IllegalStateException("流式构建已结束");
+            }
+            rethrowFailure();
+            if (irs.isEmpty()) {
+                return;
+            }
+            try {
+                queue.put(new AbstractMap.SimpleImmutableEntry<>(sourceFile, irs));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("索引构建被中断", e);
+            }
         }
 
-        // 构建文件级索引
-        for (Map.Entry<String, List<IntermediateRepresentation>> entry : fileGroups.entrySet()) {
-            String filePath = entry.getKey();
-            List<IntermediateRepresentation> entities = entry.getValue();
+        /**
+         * 等待已提交的文件全部写入，然后提交索引并刷新搜索器
+         * @throws IOException 任意文件写入失败
+         */
+        public void finish() throws IOException {
+            awaitWorkers();
+            rethrowFailure();
+            finishBuild();
+        }
 
-            // 创建文件级文档
-            Document fileDoc = new Document();
-            fileDoc.add(new StringField(FIELD_ID, "file:" + filePath, Field.Store.YES));
-            fileDoc.add(new StringField(FIELD_TYPE, "file", Field.Store.YES));
-            fileDoc.add(new StringField(FIELD_PATH, filePath, Field.Store.YES));
+        /**
+         * 放弃本次构建：已入队的文件不再写入，等待工作线程退出
+         * 已清空和已写入的文档仍留在IndexWriter中，搜索器可能看到不完整的索引；
+         * 放弃后索引保持待完成状态，调用方需要重新全量构建，或关闭IndexManager回滚到上一次提交
+         */
+        public void abort() {
+            failure.compareAndSet(null, new IOException("索引构建已取消"));
+            try {
+                awaitWorkers();
+            } catch (IOException e) {
+                // 只等待工作线程退出
+            }
+        }
 
-            // 文件内容全文索引
-            StringBuilder fileContent = new StringBuilder();
-            for (IntermediateRepresentation ir : entities) {
-                fileContent.append(ir.getText()).append(" ");
+        /**
+         * 向每个工作线程发送结束标记并等待其退出
+         */
+        private void awaitWorkers() throws IOException {
+            if (finished) {
+                return;
             }
-            fileDoc.add(new TextField(FIELD_CONTENT, fileContent.toString(), Field.Store.NO));
+            finished = true;
+
+            boolean interrupted = false;
+            for (int w = 0; w < workers.size(); w++) {
+                try {
+                    queue.put(END_OF_BUILD);
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                    break;
+                }
+            }
+            if (interrupted) {
+                // 无法正常结束时中断工作线程，不提交部分写入的结果
+                for (Future<Void> worker : workers) {
+                    worker.cancel(true);
+                }
+                failure.compareAndSet(null, new IOException("索引构建被中断"));
+            }
+
+            for (Future<Void> worker : workers) {
+                try {
+                    worker.get();
+                } catch (CancellationException e) {
+                    // 已在上面设置失败原因
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                    worker.cancel(true);
+                    failure.compareAndSet(null, new IOException("索引构建被中断", e));
+                } catch (ExecutionException e) {
+                    failure.compareAndSet(null, e.getCause());
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void rethrowFailure() throws IOException {
+            Throwable cause = failure.get();
+            if (cause instanceof IOException) {
+                throw (IOException)cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException)cause;
+            }
+            if (cause != null) {
+                throw new IOException("索引构建失败", cause);
+            }
+        }
+    }
+
+    /**
+     * 创建并写入单个源文件的文档，按文件内文档的平均耗时记录每个文档的索引耗时
+     * @param replace 是否先删除该文件已有的文档
+     */
+    private void writeFileDocuments(String sourceFile, Collection<IntermediateRepresentation> irs,
+                                    boolean replace) throws IOException {
+        long start = System.nanoTime();
+        List<Document> docs = createFileDocuments(sourceFile, irs);
+        if (replace) {
+            indexWriter.updateDocuments(new Term(FIELD_SOURCE_FILE, sourceFile), docs);
+        } else {
+            indexWriter.addDocuments(docs);
+        }
+        performanceMonitor.record("index.document", (System.nanoTime() - start) / docs.size(), docs.size());
+    }
+
+    /**
+     * 结束全量构建：提交索引并刷新搜索器
+     */
+    private void finishBuild() throws IOException {
+        indexWriter.commit();
+        buildPending = false;
+        refreshSearcher();
+    }
+
+    /**
+     * 增量更新索引，只替换变更文件对应的文档
+     * @param projectStructure 解析结果，需包含所有变更文件的IR（可以包含其他文件）
+     * @param changedFiles 新增或内容变化的源文件
+     * @param removedFiles 已删除的源文件
+     * @throws IOException 索引更新异常
+     */
+    public void updateIndex(ParsedProjectStructure projectStructure,
+                            Set<String> changedFiles, Set<String> removedFiles) throws IOException {
+        if (buildPending) {
+            // 在不完整的索引上增量更新并提交，会把中断的构建固化下来
+            throw new IllegalStateException("上一次全量构建未完成，需要重新全量构建索引");
+        }
+        // 删除已移除文件的所有文档
+        for (String removedFile : removedFiles) {
+            indexWriter.deleteDocuments(new Term(FIELD_SOURCE_FILE, removedFile));
+        }
 
-            // 添加到索引
-            indexWriter.addDocument(fileDoc);
+        // 按源文件并行替换变更文件的文档
+        Map<String, List<IntermediateRepresentation>> fileGroups = groupBySourceFile(projectStructure.getIrMap());
+        List<Map.Entry<String, List<IntermediateRepresentation>>> changedGroups = new ArrayList<>();
+        for (String changedFile : changedFiles) {
+            List<IntermediateRepresentation> irs = fileGroups.get(changedFile);
+            if (irs == null || irs.isEmpty()) {
+                // 文件解析失败或不再包含任何实体
+                indexWriter.deleteDocuments(new Term(FIELD_SOURCE_FILE, changedFile));
+            } else {
+                changedGroups.add(new AbstractMap.SimpleImmutableEntry<>(changedFile, irs));
+            }
         }
+        indexFilesParallel(changedGroups, true);
 
-        // 构建类/接口/枚举级索引
-        List<IntermediateRepresentation> typeIRs = irMap.values().stream()
-                .filter(ir -> ir.getType().equals("CLASS") ||
-                        ir.getType().equals("INTERFACE") ||
-                        ir.getType().equals("ENUM"))
-                .collect(Collectors.toList());
+        // 提交索引
+        indexWriter.commit();
+        refreshSearcher();
+    }
 
-        for (IntermediateRepresentation ir : typeIRs) {
-            Document typeDoc = createDocument(ir);
-            indexWriter.addDocument(typeDoc);
+    /**
+     * 由工作线程池并行写入多个源文件的文档
+     * 各线程从共享游标领取下一个文件，文档创建和写入都在工作线程中完成
+     * @param fileGroups 源文件 -> IR列表
+     * @param replace 是否先删除该文件已有的文档
+     * @throws IOException 任意文件写入失败时抛出，其余未开始的文件不再写入
+     */
+    private void indexFilesParallel(List<Map.Entry<String, List<IntermediateRepresentation>>> fileGroups,
+                                    boolean replace) throws IOException {
+        int workerCount = Math.min(indexThreadCount, fileGroups.size());
+        AtomicInteger nextFile = new AtomicInteger();
+
+        List<Future<Void>> futures = new ArrayList<>(workerCount);
+        for (int w = 0; w < workerCount; w++) {
+            futures.add(indexExecutor.submit(() -> {
+                int i;
+                while ((i = nextFile.getAndIncrement()) < fileGroups.size()) {
+                    Map.Entry<String, List<IntermediateRepresentation>> entry = fileGroups.get(i);
+                    writeFileDocuments(entry.getKey(), entry.getValue(), replace);
+                }
+                return null;
+            }));
         }
 
-        // 构建方法级索引
-        List<IntermediateRepresentation> methodIRs = irMap.values().stream()
-                .filter(ir -> ir.getType().equals("METHOD"))
-                .collect(Collectors.toList());
+        // 等待所有工作线程结束后再返回，避免提交时仍有线程在写入
+        Throwable failure = null;
+        boolean interrupted = false;
+        for (Future<Void> future : futures) {
+            while (true) {
+                try {
+                    future.get();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                    // 剩余文件不再被领取，正在写入的文件结束后线程即退出
+                    nextFile.set(fileGroups.size());
+                } catch (ExecutionException e) {
+                    nextFile.set(fileGroups.size());
+                    if (failure == null) {
+                        failure = e.getCause();
+                    }
+                    break;
+                }
+            }
+        }
 
-        for (IntermediateRepresentation ir : methodIRs) {
-            Document methodDoc = createDocument(ir);
-            indexWriter.addDocument(methodDoc);
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+            throw new IOException("索引构建被中断", failure);
+        }
+        if (failure instanceof IOException) {
+            throw (IOException)failure;
         }
+        if (failure instanceof RuntimeException) {
+            throw (RuntimeException)failure;
+        }
+        if (failure != null) {
+            throw new IOException("索引构建失败", failure);
+        }
+    }
 
-        // 构建字段级索引
-        List<IntermediateRepresentation> fieldIRs = irMap.values().stream()
-                .filter(ir -> ir.getType().equals("FIELD"))
-                .collect(Collectors.toList());
+    /**
+     * 按源文件对IR分组，缺少源文件信息时退化为从实体路径推断
+     */
+    private Map<String, List<IntermediateRepresentation>> groupBySourceFile(
+            Map<String, IntermediateRepresentation> irMap) {
+        Map<String, List<IntermediateRepresentation>> fileGroups = new TreeMap<>();
+        for (IntermediateRepresentation ir : irMap.values()) {
+            String sourceFile = (String)ir.getAttribute("sourceFile");
+            if (sourceFile == null) {
+                sourceFile = extractFilePath(ir.getPath());
+            }
+            fileGroups.computeIfAbsent(sourceFile, k -> new ArrayList<>()).add(ir);
+        }
+        return fileGroups;
+    }
 
-        for (IntermediateRepresentation ir : fieldIRs) {
-            Document fieldDoc = createDocument(ir);
-            indexWriter.addDocument(fieldDoc);
+    /**
+     * 创建单个源文件的全部文档：文件级、类型级、方法级、字段级和代码片段级
+     * 所有文档都带有源文件字段，便于按文件整体替换或删除
+     */
+    private List<Document> createFileDocuments(String sourceFile, Collection<IntermediateRepresentation> irs) {
+        List<Document> docs = new ArrayList<>();
+
+        // 创建文件级文档
+        Document fileDoc = new Document();
+        fileDoc.add(new StringField(FIELD_ID, "file:" + sourceFile, Field.Store.YES));
+        addDocValueField(fileDoc, FIELD_TYPE, "file");
+        fileDoc.add(new StringField(FIELD_PATH, sourceFile, Field.Store.YES));
+        fileDoc.add(new StringField(FIELD_SOURCE_FILE, sourceFile, Field.Store.YES));
+
+        // 文件内容全文索引
+        StringBuilder fileContent = new StringBuilder();
+        for (IntermediateRepresentation ir : irs) {
+            fileContent.append(ir.getText()).append(" ");
+        }
+        fileDoc.add(new TextField(FIELD_CONTENT, fileContent.toString(), Field.Store.NO));
+        docs.add(fileDoc);
+
+        // 类/接口/枚举、方法、字段级文档
+        for (IntermediateRepresentation ir : irs) {
+            Document doc = createDocument(ir);
+            doc.add(new StringField(FIELD_SOURCE_FILE, sourceFile, Field.Store.YES));
+            docs.add(doc);
         }
 
         // 代码片段级索引 - 分割方法体为代码片段
-        int snippetId = 0;
-        for (IntermediateRepresentation ir : methodIRs) {
-            String methodText = ir.getText();
+        for (IntermediateRepresentation ir : irs) {
+            if (!ir.getType().equals("METHOD")) {
+                continue;
+            }
+
             // 分割为代码片段（此处简化处理，实际应按语法结构分割）
-            List<String> snippets = splitToSnippets(methodText);
+            List<String> snippets = splitToSnippets(ir.getText());
 
             for (int i = 0; i < snippets.size(); i++) {
                 String snippet = snippets.get(i);
                 if (snippet.trim().isEmpty()) continue;
 
+                // 片段ID由方法ID和序号组成，增量更新后保持稳定
                 Document snippetDoc = new Document();
-                snippetDoc.add(new StringField(FIELD_ID, "snippet:" + (snippetId++), Field.Store.YES));
-                snippetDoc.add(new StringField(FIELD_TYPE, "snippet", Field.Store.YES));
+                snippetDoc.add(new StringField(FIELD_ID, "snippet:" + ir.getId() + ":" + i, Field.Store.YES));
+                addDocValueField(snippetDoc, FIELD_TYPE, "snippet");
                 snippetDoc.add(new StringField(FIELD_METHOD, ir.getId(), Field.Store.YES));
-                snippetDoc.add(new StringField(FIELD_CLASS, (String)ir.getAttribute("className"), Field.Store.YES));
+                addDocValueField(snippetDoc, FIELD_CLASS, (String)ir.getAttribute("className"));
                 snippetDoc.add(new TextField(FIELD_SNIPPET, snippet, Field.Store.YES));
+                snippetDoc.add(new StringField(FIELD_SOURCE_FILE, sourceFile, Field.Store.YES));
 
-                indexWriter.addDocument(snippetDoc);
+                docs.add(snippetDoc);
             }
         }
 
-        // 提交索引
-        indexWriter.commit();
+        return docs;
     }
 
     /**
@@ -191,8 +584,8 @@ public class IndexManager implements AutoCloseable {
 
         // 基本字段
         doc.add(new StringField(FIELD_ID, ir.getId(), Field.Store.YES));
-        doc.add(new StringField(FIELD_NAME, ir.getName(), Field.Store.YES));
-        doc.add(new StringField(FIELD_TYPE, ir.getType(), Field.Store.YES));
+        doc.add(new TextField(FIELD_NAME, ir.getName(), Field.Store.YES));
+        addDocValueField(doc, FIELD_TYPE, ir.getType());
         doc.add(new StringField(FIELD_PATH, ir.getPath(), Field.Store.YES));
 
         // 全文内容
@@ -230,6 +623,7 @@ public class IndexManager implements AutoCloseable {
             case "CLASS":
             case "INTERFACE":
             case "ENUM":
+                addSuggestFields(doc, ir);
                 String packageName = (String)ir.getAttribute("package");
                 if (packageName != null) {
                     doc.add(new StringField(FIELD_PACKAGE, packageName, Field.Store.YES));
@@ -237,15 +631,9 @@ public class IndexManager implements AutoCloseable {
                 break;
 
             case "METHOD":
-                String className = (String)ir.getAttribute("className");
-                if (className != null) {
-                    doc.add(new StringField(FIELD_CLASS, className, Field.Store.YES));
-                }
-
-                String returnType = (String)ir.getAttribute("returnType");
-                if (returnType != null) {
-                    doc.add(new StringField(FIELD_RETURN, returnType, Field.Store.YES));
-                }
+                addSuggestFields(doc, ir);
+                addDocValueField(doc, FIELD_CLASS, (String)ir.getAttribute("className"));
+                addDocValueField(doc, FIELD_RETURN, (String)ir.getAttribute("returnType"));
 
                 // 参数
                 Object paramsObj = ir.getAttribute("parameters");
@@ -254,16 +642,13 @@ public class IndexManager implements AutoCloseable {
                     Map<String, String> params = (Map<String, String>)paramsObj;
                     for (Map.Entry<String, String> param : params.entrySet()) {
                         // 参数格式: 名称:类型
-                        doc.add(new StringField(FIELD_PARAMS, param.getKey() + ":" + param.getValue(), Field.Store.YES));
+                        doc.add(new TextField(FIELD_PARAMS, param.getKey() + ":" + param.getValue(), Field.Store.YES));
                     }
                 }
                 break;
 
             case "FIELD":
-                String fieldClassName = (String)ir.getAttribute("className");
-                if (fieldClassName != null) {
-                    doc.add(new StringField(FIELD_CLASS, fieldClassName, Field.Store.YES));
-                }
+                addDocValueField(doc, FIELD_CLASS, (String)ir.getAttribute("className"));
 
                 String fieldType = (String)ir.getAttribute("fieldType");
                 if (fieldType != null) {
@@ -275,6 +660,99 @@ public class IndexManager implements AutoCloseable {
         return doc;
     }
 
+    /**
+     * 添加自动补全字段，类型和方法才需要补全
+     */
+    private static void addSuggestFields(Document doc, IntermediateRepresentation ir) {
+        String name = ir.getName();
+        doc.add(new Field(FIELD_SUGGEST_NAME, name, SUGGEST_FIELD_TYPE));
+        doc.add(new Field(FIELD_SUGGEST_HUMPS, camelHumps(name), SUGGEST_FIELD_TYPE));
+        doc.add(new Field(FIELD_SUGGEST_ID, ir.getId(), SUGGEST_FIELD_TYPE));
+        doc.add(new NumericDocValuesField(FIELD_NAME_LENGTH, name.length()));
+    }
+
+    /**
+     * 提取标识符的驼峰首字母缩写，例如getUserById -> gubi，load_user_by_id -> lubi，HTTPServer -> hs
+     */
+    static String camelHumps(String name) {
+        StringBuilder humps = new StringBuilder();
+        char previous = '_';
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            char next = i + 1 < name.length() ? name.charAt(i + 1) : '_';
+            boolean start = Character.isLetterOrDigit(c) && (!Character.isLetterOrDigit(previous)
+                    || Character.isUpperCase(c) && !Character.isUpperCase(previous)
+                    || Character.isUpperCase(c) && Character.isLowerCase(next)
+                    || Character.isDigit(c) != Character.isDigit(previous));
+            if (start) {
+                humps.append(Character.toLowerCase(c));
+            }
+            previous = c;
+        }
+        return humps.toString();
+    }
+
+    /**
+     * 创建按字段区分的分析器
+     * @param indexing 是否用于写入索引
+     */
+    private static Analyzer createAnalyzer(boolean indexing) {
+        Analyzer codeAnalyzer = new CodeIdentifierAnalyzer(indexing);
+        Map<String, Analyzer> fieldAnalyzers = new HashMap<>();
+        for (String field : CODE_FIELDS) {
+            fieldAnalyzers.put(field, codeAnalyzer);
+        }
+        if (indexing) {
+            // 补全字段查询时直接构造词项，只在写入时切分前缀
+            Analyzer suggestAnalyzer = createSuggestAnalyzer();
+            fieldAnalyzers.put(FIELD_SUGGEST_NAME, suggestAnalyzer);
+            fieldAnalyzers.put(FIELD_SUGGEST_HUMPS, suggestAnalyzer);
+            fieldAnalyzers.put(FIELD_SUGGEST_ID, suggestAnalyzer);
+        }
+        return new PerFieldAnalyzerWrapper(new StandardAnalyzer(), fieldAnalyzers);
+    }
+
+    /**
+     * 补全字段分析器：整个值小写后按前缀切分，getUser产生g、ge、get、getu……getuser
+     */
+    private static Analyzer createSuggestAnalyzer() {
+        return new Analyzer() {
+            @Override
+            protected TokenStreamComponents createComponents(String fieldName) {
+                KeywordTokenizer source = new KeywordTokenizer();
+                TokenStream result = new LowerCaseFilter(source);
+                result = new EdgeNGramTokenFilter(result, 1, MAX_SUGGEST_PREFIX, false);
+                return new TokenStreamComponents(source, result);
+            }
+        };
+    }
+
+    /**
+     * 获取查询分析器，构建高级查询时使用
+     */
+    public Analyzer getQueryAnalyzer() {
+        return queryAnalyzer;
+    }
+
+    /**
+     * 创建使用本索引查询分析器的查询构建器
+     */
+    public QueryBuilder newQueryBuilder() {
+        return new QueryBuilder(queryAnalyzer);
+    }
+
+    /**
+     * 添加短小且每个命中都要读取的字段：建立词项索引用于过滤，值保存在DocValues中而不是存储字段
+     * 读取结果时按列访问，不需要解压整个存储字段块
+     */
+    private static void addDocValueField(Document doc, String field, String value) {
+        if (value == null) {
+            return;
+        }
+        doc.add(new StringField(field, value, Field.Store.NO));
+        doc.add(new SortedDocValuesField(field, new BytesRef(value)));
+    }
+
     /**
      * 从路径提取文件路径
      */
@@ -315,19 +793,143 @@ public class IndexManager implements AutoCloseable {
     }
 
     /**
-     * 初始化/刷新搜索相关对象
+     * 立即刷新搜索器，使此前的写入对后续搜索可见
+     * 等待进行中的刷新完成，不会关闭其他线程正在使用的搜索器
      */
-    private synchronized void refreshSearcher() throws IOException {
-        if (indexReader != null) {
-            indexReader.close();
+    private void refreshSearcher() throws IOException {
+        searcherManager.maybeRefreshBlocking();
+    }
+
+    /**
+     * 将请求的结果数限制在配置的最大结果数以内
+     */
+    private int limitResults(int maxResults) {
+        return Math.max(1, Math.min(maxResults, maxQueryResults));
+    }
+
+    /**
+     * 在时间预算内执行分页查询，从after之后开始收集
+     * 通配符等查询的词项展开由ExitableDirectoryReader中断，打分收集由TimeLimitingCollector中断；
+     * 超时后返回已收集到的命中，并将结果列表标记为截断
+     * 取满一页且未超时时，在结果列表中设置下一页的游标
+     */
+    private TopDocs executeQuery(IndexSearcher searcher, Query query, int maxResults, ScoreDoc after,
+                                 SearchResultList results) throws IOException {
+        int numHits = limitResults(maxResults);
+        TopDocs topDocs = collectTopDocs(searcher, query, numHits, after, results);
+
+        ScoreDoc[] scoreDocs = topDocs.scoreDocs;
+        if (!results.isTruncated() && scoreDocs.length == numHits) {
+            results.setNextCursor(SearchCursor.encode(scoreDocs[scoreDocs.length - 1]));
         }
+        return topDocs;
+    }
 
-        // 重新打开索引读取器和搜索器
-        indexReader = DirectoryReader.open(directory);
-        indexSearcher = new IndexSearcher(indexReader);
+    /**
+     * 收集得分最高的numHits个命中
+     */
+    private TopDocs collectTopDocs(IndexSearcher searcher, Query query, int numHits, ScoreDoc after,
+                                   SearchResultList results) throws IOException {
+        if (queryTimeoutMs <= 0) {
+            return searcher.searchAfter(after, query, numHits);
+        }
 
-        // 清空缓存
-        searchCache.clear();
+        // 包装读取器使词项枚举检查超时，包装本身很轻，不影响段级缓存
+        DirectoryReader reader = (DirectoryReader)searcher.getIndexReader();
+        IndexSearcher timedSearcher = new IndexSearcher(
+                ExitableDirectoryReader.wrap(reader, new QueryTimeoutImpl(queryTimeoutMs)));
+        timedSearcher.setSimilarity(searcher.getSimilarity());
+
+        TopScoreDocCollector collector = TopScoreDocCollector.create(numHits, after, TOTAL_HITS_THRESHOLD);
+        TimeLimitingCollector timeLimitingCollector = new TimeLimitingCollector(
+                collector, TimeLimitingCollector.getGlobalCounter(), queryTimeoutMs);
+        // 从查询开始计时，而不是从第一个段开始收集时计时
+        timeLimitingCollector.setBaseline();
+
+        try {
+            timedSearcher.search(query, timeLimitingCollector);
+        } catch (TimeLimitingCollector.TimeExceededException | ExitableDirectoryReader.ExitingReaderException e) {
+            results.setTruncated(true);
+        }
+        return collector.topDocs();
+    }
+
+    /**
+     * 获取搜索器执行搜索，结束后释放
+     */
+    private <T> T withSearcher(SearchFunction<T> function) throws Exception {
+        IndexSearcher searcher = searcherManager.acquire();
+        try {
+            return function.apply(searcher);
+        } finally {
+            searcherManager.release(searcher);
+        }
+    }
+
+    /**
+     * 获取索引的运行状态：段数、文档数、搜索器版本和结果缓存统计
+     */
+    public Stats getStats() throws Exception {
+        return withSearcher(searcher -> {
+            DirectoryReader reader = (DirectoryReader)searcher.getIndexReader();
+            return new Stats(reader.leaves().size(), reader.numDocs(), reader.getVersion(),
+                    resultCacheHits.get(), resultCacheMisses.get());
+        });
+    }
+
+    /**
+     * 索引运行状态
+     */
+    public static class Stats {
+        private final int segmentCount;
+        private final int documentCount;
+        private final long searcherVersion;
+        private final long resultCacheHits;
+        private final long resultCacheMisses;
+
+        Stats(int segmentCount, int documentCount, long searcherVersion, long resultCacheHits, long resultCacheMisses) {
+            this.segmentCount = segmentCount;
+            this.documentCount = documentCount;
+            this.searcherVersion = searcherVersion;
+            this.resultCacheHits = resultCacheHits;
+            this.resultCacheMisses = resultCacheMisses;
+        }
+
+        /**
+         * 当前搜索器中的段数
+         */
+        public int getSegmentCount() {
+            return segmentCount;
+        }
+
+        /**
+         * 当前搜索器可见的文档数
+         */
+        public int getDocumentCount() {
+            return documentCount;
+        }
+
+        /**
+         * 当前搜索器的读取器版本，每次刷新后可见的提交或写入都会使其增加
+         */
+        public long getSearcherVersion() {
+            return searcherVersion;
+        }
+
+        public long getResultCacheHits() {
+            return resultCacheHits;
+        }
+
+        public long getResultCacheMisses() {
+            return resultCacheMisses;
+        }
+    }
+
+    /**
+     * 在搜索器上执行的搜索
+     */
+    private interface SearchFunction<T> {
+        T apply(IndexSearcher searcher) throws Exception;
     }
 
     /**
@@ -337,11 +939,35 @@ public class IndexManager implements AutoCloseable {
      * @param maxResults 最大结果数
      * @return 搜索结果列表
      */
-    public List<SearchResult> search(String queryStr, IndexLevel level, int maxResults) throws Exception {
-        if (indexSearcher == null) {
-            refreshSearcher();
-        }
+    public SearchResultList search(String queryStr, IndexLevel level, int maxResults) throws Exception {
+        return search(queryStr, level, maxResults, null);
+    }
+
+    /**
+     * 分页执行多级索引搜索
+     * @param queryStr 查询字符串
+     * @param level 索引级别：file, class, method, field, snippet
+     * @param maxResults 每页结果数
+     * @param cursor 上一页返回的游标，为空时返回第一页
+     * @return 搜索结果列表，还有更多结果时带有下一页游标
+     * @throws IllegalArgumentException 游标格式无效
+     */
+    public SearchResultList search(String queryStr, IndexLevel level, int maxResults, String cursor) throws Exception {
+        return search(queryStr, level, maxResults, cursor, ResultProjection.ALL);
+    }
 
+    /**
+     * 分页执行多级索引搜索，只读取投影中的属性
+     * @param queryStr 查询字符串
+     * @param level 索引级别：file, class, method, field, snippet
+     * @param maxResults 每页结果数
+     * @param cursor 上一页返回的游标，为空时返回第一页
+     * @param projection 结果中需要填充的属性
+     * @return 搜索结果列表，还有更多结果时带有下一页游标
+     * @throws IllegalArgumentException 游标格式无效
+     */
+    public SearchResultList search(String queryStr, IndexLevel level, int maxResults, String cursor,
+                                   ResultProjection projection) throws Exception {
         // 根据级别确定搜索字段
         String[] searchFields;
         String typeFilter = null;
@@ -379,99 +1005,180 @@ public class IndexManager implements AutoCloseable {
         }
 
         // 构建查询
-        MultiFieldQueryParser parser = new MultiFieldQueryParser(searchFields, analyzer);
-        Query query = parser.parse(queryStr);
+        MultiFieldQueryParser parser = new MultiFieldQueryParser(searchFields, queryAnalyzer);
+        Query query = withTypeFilter(parser.parse(queryStr), typeFilter);
+
+        return runSearch("search." + level.name().toLowerCase(Locale.ROOT), query, maxResults, cursor, projection);
+    }
 
-        // 如果需要按类型过滤
-        if (typeFilter != null) {
-            BooleanQuery.Builder booleanQuery = new BooleanQuery.Builder();
-            booleanQuery.add(query, BooleanClause.Occur.MUST);
-            booleanQuery.add(new TermQuery(new Term(FIELD_TYPE, typeFilter)), BooleanClause.Occur.MUST);
-            query = booleanQuery.build();
+    /**
+     * 类名和方法名自动补全
+     * 输入的前缀依次匹配名称、驼峰首字母缩写（GUBI -> getUserById）和完整ID，
+     * 每个候选只需要一次词项查找，不需要遍历词典
+     * @param prefix 已输入的前缀，不区分大小写
+     * @param maxResults 最多返回的候选数
+     * @return 按匹配方式和名称长度排序的候选，只包含id、name、type、path
+     */
+    public SearchResultList suggest(String prefix, int maxResults) throws Exception {
+        String normalized = prefix == null ? "" : prefix.trim().toLowerCase(Locale.ROOT);
+        if (normalized.isEmpty()) {
+            return new SearchResultList();
+        }
+        if (normalized.length() > MAX_SUGGEST_PREFIX) {
+            normalized = normalized.substring(0, MAX_SUGGEST_PREFIX);
         }
 
-        // 执行搜索
-        TopDocs topDocs = indexSearcher.search(query, maxResults);
+        // 名称前缀优先，其次是驼峰缩写，最后是完整ID
+        BooleanQuery.Builder builder = new BooleanQuery.Builder();
+        builder.add(suggestClause(FIELD_SUGGEST_NAME, normalized, 3.0f), BooleanClause.Occur.SHOULD);
+        builder.add(suggestClause(FIELD_SUGGEST_HUMPS, normalized, 2.0f), BooleanClause.Occur.SHOULD);
+        builder.add(suggestClause(FIELD_SUGGEST_ID, normalized, 1.0f), BooleanClause.Occur.SHOULD);
+        Query query = builder.build();
+        Sort sort = new Sort(SortField.FIELD_SCORE, new SortField(FIELD_NAME_LENGTH, SortField.Type.INT));
+
+        return performanceMonitor.time("search.suggest", () -> withSearcher(searcher -> {
+            SearchResultList results = new SearchResultList();
+            TopDocs topDocs = searcher.search(query, limitResults(maxResults), sort, true);
+            collectResults(searcher, topDocs.scoreDocs, ResultProjection.SUMMARY, results);
+            return results;
+        }));
+    }
 
-        // 转换结果
-        List<SearchResult> results = new ArrayList<>();
-        for (ScoreDoc scoreDoc : topDocs.scoreDocs) {
-            Document doc = indexSearcher.doc(scoreDoc.doc);
+    private static Query suggestClause(String field, String prefix, float boost) {
+        return new BoostQuery(new ConstantScoreQuery(new TermQuery(new Term(field, prefix))), boost);
+    }
 
-            SearchResult result = new SearchResult();
-            result.setId(doc.get(FIELD_ID));
-            result.setName(doc.get(FIELD_NAME));
-            result.setType(doc.get(FIELD_TYPE));
-            result.setPath(doc.get(FIELD_PATH));
-            result.setScore(scoreDoc.score);
+    /**
+     * 执行查询并按投影转换结果，耗时按操作类型记录，包括命中缓存的查询
+     * 启用结果缓存时，先按查询、页大小、游标、投影和读取器版本查找缓存；
+     * 索引刷新后读取器版本变化，旧的缓存项不会再被命中，超时返回的部分结果不缓存
+     * @throws IllegalArgumentException 游标格式无效
+     */
+    private SearchResultList runSearch(String operationType, Query query, int maxResults, String cursor,
+                                       ResultProjection projection) throws Exception {
+        ScoreDoc after = SearchCursor.decode(cursor);
 
-            // 根据文档类型添加特定字段
-            switch (doc.get(FIELD_TYPE)) {
-                case "CLASS":
-                case "INTERFACE":
-                case "ENUM":
-                    result.addAttribute("package", doc.get(FIELD_PACKAGE));
-                    break;
+        return performanceMonitor.time(operationType,
+                () -> searchWithCache(query, maxResults, after, cursor, projection));
+    }
 
-                case "METHOD":
-                    result.addAttribute("class", doc.get(FIELD_CLASS));
-                    result.addAttribute("returnType", doc.get(FIELD_RETURN));
-
-                    // 获取所有参数
-                    String[] params = doc.getValues(FIELD_PARAMS);
-                    if (params != null && params.length > 0) {
-                        Map<String, String> paramMap = new LinkedHashMap<>();
-                        for (String param : params) {
-                            String[] parts = param.split(":");
-                            if (parts.length == 2) {
-                                paramMap.put(parts[0], parts[1]);
-                            }
-                        }
-                        result.addAttribute("parameters", paramMap);
-                    }
-                    break;
+    private SearchResultList searchWithCache(Query query, int maxResults, ScoreDoc after, String cursor,
+                                             ResultProjection projection) throws Exception {
+        return withSearcher(searcher -> {
+            CacheManager cache = resultCache;
+            String cacheKey = null;
+            if (cache != null) {
+                cacheKey = resultCacheKey(searcher, query, maxResults, cursor, projection);
+                Optional<SearchResultList> cached = cache.get(cacheKey);
+                if (cached.isPresent()) {
+                    resultCacheHits.incrementAndGet();
+                    return copyResults(cached.get());
+                }
+                resultCacheMisses.incrementAndGet();
+            }
 
-                case "FIELD":
-                    result.addAttribute("class", doc.get(FIELD_CLASS));
-                    result.addAttribute("fieldType", doc.get(FIELD_FIELD_TYPE));
-                    break;
+            // 执行搜索
+            SearchResultList results = new SearchResultList();
+            TopDocs topDocs = executeQuery(searcher, query, maxResults, after, results);
 
-                case "snippet":
-                    result.addAttribute("snippet", doc.get(FIELD_SNIPPET));
-                    result.addAttribute("method", doc.get(FIELD_METHOD));
-                    result.addAttribute("class", doc.get(FIELD_CLASS));
-                    break;
-            }
+            // 转换结果
+            collectResults(searcher, topDocs.scoreDocs, projection, results);
 
-            // 添加JavaDoc
-            String javadoc = doc.get(FIELD_JAVADOC);
-            if (javadoc != null) {
-                result.addAttribute("javadoc", javadoc);
+            if (cache != null && !results.isTruncated()) {
+                cache.put(cacheKey, copyResults(results), estimateWeight(cacheKey, results), resultCacheExpirationMs);
             }
+            return results;
+        });
+    }
 
-            // 添加修饰符
-            String[] modifiers = doc.getValues(FIELD_MODIFIERS);
-            if (modifiers != null && modifiers.length > 0) {
-                result.addAttribute("modifiers", Arrays.asList(modifiers));
-            }
+    /**
+     * 结果缓存的键
+     * 查询的字符串形式已经过分析器处理，大小写和空白不同但含义相同的查询对应同一个键
+     */
+    private String resultCacheKey(IndexSearcher searcher, Query query, int maxResults, String cursor,
+                                  ResultProjection projection) {
+        long readerVersion = ((DirectoryReader)searcher.getIndexReader()).getVersion();
+        return RESULT_CACHE_PREFIX + indexPath + "|" + readerVersion + "|" + limitResults(maxResults) + "|" +
+                (cursor == null ? "" : cursor) + "|" + projection + "|" + query;
+    }
 
-            // 添加关系
-            String[] relations = doc.getValues(FIELD_RELATIONS);
-            if (relations != null && relations.length > 0) {
-                Map<String, Set<String>> relationMap = new HashMap<>();
-                for (String relation : relations) {
-                    String[] parts = relation.split(":");
-                    if (parts.length == 2) {
-                        relationMap.computeIfAbsent(parts[0], k -> new HashSet<>()).add(parts[1]);
-                    }
-                }
-                result.addAttribute("relationships", relationMap);
-            }
+    /**
+     * 复制结果列表，缓存中的列表不会被调用方修改
+     */
+    private static SearchResultList copyResults(SearchResultList source) {
+        SearchResultList copy = new SearchResultList();
+        copy.addAll(source);
+        copy.setTruncated(source.isTruncated());
+        copy.setNextCursor(source.getNextCursor());
+        return copy;
+    }
 
-            results.add(result);
+    /**
+     * 估算缓存的结果列表占用的字节数，CacheManager按此限制缓存总大小
+     */
+    private static long estimateWeight(String cacheKey, SearchResultList results) {
+        long weight = CacheManager.estimateWeight(cacheKey, results.getNextCursor());
+        for (SearchResult result : results) {
+            weight += 48 + CacheManager.estimateWeight(result.getId(), result.getAttributes());
+            weight += 2L * (length(result.getName()) + length(result.getType()) + length(result.getPath()));
         }
+        return weight;
+    }
+
+    private static int length(String value) {
+        return value == null ? 0 : value.length();
+    }
 
-        return results;
+    /**
+     * 启用查询结果缓存
+     * @param cacheManager 缓存管理器，为null时关闭缓存
+     * @param expirationTimeMs 缓存项的过期时间
+     */
+    public void setResultCache(CacheManager cacheManager, long expirationTimeMs) {
+        this.resultCacheExpirationMs = expirationTimeMs;
+        this.resultCache = cacheManager;
+    }
+
+    /**
+     * 设置耗时统计使用的性能监控器，默认每个索引管理器单独统计
+     */
+    public void setPerformanceMonitor(PerformanceMonitor performanceMonitor) {
+        this.performanceMonitor = performanceMonitor;
+    }
+
+    /**
+     * 获取性能监控器
+     */
+    public PerformanceMonitor getPerformanceMonitor() {
+        return performanceMonitor;
+    }
+
+    /**
+     * 获取结果缓存命中次数
+     */
+    public long getResultCacheHits() {
+        return resultCacheHits.get();
+    }
+
+    /**
+     * 获取结果缓存未命中次数
+     */
+    public long getResultCacheMisses() {
+        return resultCacheMisses.get();
+    }
+
+    /**
+     * 如果需要按类型过滤，将查询与类型条件组合
+     */
+    private Query withTypeFilter(Query query, String typeFilter) {
+        if (typeFilter == null) {
+            return query;
+        }
+
+        BooleanQuery.Builder booleanQuery = new BooleanQuery.Builder();
+        booleanQuery.add(query, BooleanClause.Occur.MUST);
+        booleanQuery.add(new TermQuery(new Term(FIELD_TYPE, typeFilter)), BooleanClause.Occur.MUST);
+        return booleanQuery.build();
     }
 
     /**
@@ -481,47 +1188,13 @@ public class IndexManager implements AutoCloseable {
      * @param maxResults 最大结果数
      * @return 搜索结果列表
      */
-    public List<SearchResult> searchByRelation(String relationType, String target, int maxResults) throws Exception {
-        if (indexSearcher == null) {
-            refreshSearcher();
-        }
-
+    public SearchResultList searchByRelation(String relationType, String target, int maxResults) throws Exception {
         // 构建关系查询
         String relationValue = relationType + ":" + target;
         Query query = new TermQuery(new Term(FIELD_RELATIONS, relationValue));
 
-        // 执行搜索
-        TopDocs topDocs = indexSearcher.search(query, maxResults);
-
-        // 转换结果
-        List<SearchResult> results = new ArrayList<>();
-        for (ScoreDoc scoreDoc : topDocs.scoreDocs) {
-            Document doc = indexSearcher.doc(scoreDoc.doc);
-
-            SearchResult result = new SearchResult();
-            result.setId(doc.get(FIELD_ID));
-            result.setName(doc.get(FIELD_NAME));
-            result.setType(doc.get(FIELD_TYPE));
-            result.setPath(doc.get(FIELD_PATH));
-            result.setScore(scoreDoc.score);
-
-            // 添加关系
-            String[] relations = doc.getValues(FIELD_RELATIONS);
-            if (relations != null && relations.length > 0) {
-                Map<String, Set<String>> relationMap = new HashMap<>();
-                for (String relation : relations) {
-                    String[] parts = relation.split(":");
-                    if (parts.length == 2) {
-                        relationMap.computeIfAbsent(parts[0], k -> new HashSet<>()).add(parts[1]);
-                    }
-                }
-                result.addAttribute("relationships", relationMap);
-            }
-
-            results.add(result);
-        }
-
-        return results;
+        // 只需要关系
+        return runSearch("search.relation", query, maxResults, null, RELATION_PROJECTION);
     }
 
     /**
@@ -530,40 +1203,13 @@ public class IndexManager implements AutoCloseable {
      * @param maxResults 最大结果数
      * @return 搜索结果列表
      */
-    public List<SearchResult> semanticSearch(String semanticQuery, int maxResults) throws Exception {
-        if (indexSearcher == null) {
-            refreshSearcher();
-        }
-
+    public SearchResultList semanticSearch(String semanticQuery, int maxResults) throws Exception {
         // 构建语义查询（主要针对JavaDoc）
-        QueryParser parser = new QueryParser(FIELD_JAVADOC, analyzer);
+        QueryParser parser = new QueryParser(FIELD_JAVADOC, queryAnalyzer);
         Query query = parser.parse(semanticQuery);
 
-        // 执行搜索
-        TopDocs topDocs = indexSearcher.search(query, maxResults);
-
-        // 转换结果
-        List<SearchResult> results = new ArrayList<>();
-        for (ScoreDoc scoreDoc : topDocs.scoreDocs) {
-            Document doc = indexSearcher.doc(scoreDoc.doc);
-
-            SearchResult result = new SearchResult();
-            result.setId(doc.get(FIELD_ID));
-            result.setName(doc.get(FIELD_NAME));
-            result.setType(doc.get(FIELD_TYPE));
-            result.setPath(doc.get(FIELD_PATH));
-            result.setScore(scoreDoc.score);
-
-            // 添加JavaDoc
-            String javadoc = doc.get(FIELD_JAVADOC);
-            if (javadoc != null) {
-                result.addAttribute("javadoc", javadoc);
-            }
-
-            results.add(result);
-        }
-
-        return results;
+        // 只需要JavaDoc
+        return runSearch("search.semantic", query, maxResults, null, SEMANTIC_PROJECTION);
     }
 
     /**
@@ -572,99 +1218,175 @@ public class IndexManager implements AutoCloseable {
      * @param maxResults 最大结果数
      * @return 搜索结果列表
      */
-    public List<SearchResult> advancedSearch(QueryBuilder queryBuilder, int maxResults) throws Exception {
-        if (indexSearcher == null) {
-            refreshSearcher();
-        }
+    public SearchResultList advancedSearch(QueryBuilder queryBuilder, int maxResults) throws Exception {
+        return advancedSearch(queryBuilder, maxResults, null);
+    }
 
-        // 执行搜索
-        TopDocs topDocs = indexSearcher.search(queryBuilder.build(), maxResults);
+    /**
+     * 分页进行组合查询
+     * @param queryBuilder 查询构建器
+     * @param maxResults 每页结果数
+     * @param cursor 上一页返回的游标，为空时返回第一页
+     * @return 搜索结果列表，还有更多结果时带有下一页游标
+     * @throws IllegalArgumentException 游标格式无效
+     */
+    public SearchResultList advancedSearch(QueryBuilder queryBuilder, int maxResults, String cursor) throws Exception {
+        return advancedSearch(queryBuilder, maxResults, cursor, ResultProjection.ALL);
+    }
 
-        // 转换结果
-        List<SearchResult> results = new ArrayList<>();
-        for (ScoreDoc scoreDoc : topDocs.scoreDocs) {
-            Document doc = indexSearcher.doc(scoreDoc.doc);
+    /**
+     * 分页进行组合查询，只读取投影中的属性
+     * @param queryBuilder 查询构建器
+     * @param maxResults 每页结果数
+     * @param cursor 上一页返回的游标，为空时返回第一页
+     * @param projection 结果中需要填充的属性
+     * @return 搜索结果列表，还有更多结果时带有下一页游标
+     * @throws IllegalArgumentException 游标格式无效
+     */
+    public SearchResultList advancedSearch(QueryBuilder queryBuilder, int maxResults, String cursor,
+                                           ResultProjection projection) throws Exception {
+        Query query = queryBuilder.build();
+
+        return runSearch("search.advanced", query, maxResults, cursor, projection);
+    }
+
+    /**
+     * 按投影将命中转换为搜索结果
+     * 命中按文档号顺序读取，使DocValues迭代器在每个段内只向前移动，结果仍按得分顺序返回
+     */
+    private void collectResults(IndexSearcher searcher, ScoreDoc[] scoreDocs, ResultProjection projection,
+                                SearchResultList results) throws IOException {
+        Integer[] docOrder = new Integer[scoreDocs.length];
+        for (int i = 0; i < docOrder.length; i++) {
+            docOrder[i] = i;
+        }
+        Arrays.sort(docOrder, Comparator.comparingInt(i -> scoreDocs[i].doc));
+
+        List<LeafReaderContext> leaves = searcher.getIndexReader().leaves();
+        ProjectedFieldVisitor visitor = new ProjectedFieldVisitor(projection.storedFields());
+        SearchResult[] converted = new SearchResult[scoreDocs.length];
+
+        LeafReaderContext leaf = null;
+        SortedDocValues types = null;
+        SortedDocValues classes = null;
+        SortedDocValues returnTypes = null;
+        for (int index : docOrder) {
+            ScoreDoc scoreDoc = scoreDocs[index];
+
+            // 进入新的段时重新获取DocValues迭代器
+            if (leaf == null || scoreDoc.doc >= leaf.docBase + leaf.reader().maxDoc()) {
+                leaf = leaves.get(ReaderUtil.subIndex(scoreDoc.doc, leaves));
+                types = DocValues.getSorted(leaf.reader(), FIELD_TYPE);
+                classes = projection.includes(ResultProjection.CLASS) ?
+                        DocValues.getSorted(leaf.reader(), FIELD_CLASS) : null;
+                returnTypes = projection.includes(ResultProjection.RETURN_TYPE) ?
+                        DocValues.getSorted(leaf.reader(), FIELD_RETURN) : null;
+            }
+
+            int leafDoc = scoreDoc.doc - leaf.docBase;
+            visitor.reset();
+            leaf.reader().document(leafDoc, visitor);
 
             SearchResult result = new SearchResult();
-            result.setId(doc.get(FIELD_ID));
-            result.setName(doc.get(FIELD_NAME));
-            result.setType(doc.get(FIELD_TYPE));
-            result.setPath(doc.get(FIELD_PATH));
+            result.setId(visitor.get(FIELD_ID));
+            result.setName(visitor.get(FIELD_NAME));
+            result.setType(docValue(types, leafDoc));
+            result.setPath(visitor.get(FIELD_PATH));
             result.setScore(scoreDoc.score);
 
-            // 根据类型添加其他字段
-            addTypeSpecificFields(result, doc);
-
-            results.add(result);
+            addProjectedFields(result, visitor, docValue(classes, leafDoc), docValue(returnTypes, leafDoc), projection);
+            converted[index] = result;
         }
 
-        return results;
+        results.addAll(Arrays.asList(converted));
+    }
+
+    /**
+     * 读取文档的DocValues值，文档没有该字段时返回null
+     */
+    private static String docValue(SortedDocValues values, int doc) throws IOException {
+        if (values == null || !values.advanceExact(doc)) {
+            return null;
+        }
+        return values.lookupOrd(values.ordValue()).utf8ToString();
     }
 
     /**
-     * 根据文档类型添加特定字段
+     * 根据文档类型添加投影中的属性
      */
-    private void addTypeSpecificFields(SearchResult result, Document doc) {
-        switch (doc.get(FIELD_TYPE)) {
+    private void addProjectedFields(SearchResult result, ProjectedFieldVisitor doc, String className,
+                                    String returnType, ResultProjection projection) {
+        String type = result.getType() == null ? "" : result.getType();
+        switch (type) {
             case "CLASS":
             case "INTERFACE":
             case "ENUM":
-                result.addAttribute("package", doc.get(FIELD_PACKAGE));
+                addIfIncluded(result, projection, ResultProjection.PACKAGE, doc.get(FIELD_PACKAGE));
                 break;
 
             case "METHOD":
-                result.addAttribute("class", doc.get(FIELD_CLASS));
-                result.addAttribute("returnType", doc.get(FIELD_RETURN));
+                addIfIncluded(result, projection, ResultProjection.CLASS, className);
+                addIfIncluded(result, projection, ResultProjection.RETURN_TYPE, returnType);
 
-                // 获取所有参数
-                String[] params = doc.getValues(FIELD_PARAMS);
-                if (params != null && params.length > 0) {
+                // 获取所有参数，格式: 名称:类型
+                List<String> params = doc.getValues(FIELD_PARAMS);
+                if (!params.isEmpty()) {
                     Map<String, String> paramMap = new LinkedHashMap<>();
                     for (String param : params) {
-                        String[] parts = param.split(":");
-                        if (parts.length == 2) {
-                            paramMap.put(parts[0], parts[1]);
+                        int separator = param.indexOf(':');
+                        if (separator > 0) {
+                            paramMap.put(param.substring(0, separator), param.substring(separator + 1));
                         }
                     }
-                    result.addAttribute("parameters", paramMap);
+                    result.addAttribute(ResultProjection.PARAMETERS, paramMap);
                 }
                 break;
 
             case "FIELD":
-                result.addAttribute("class", doc.get(FIELD_CLASS));
-                result.addAttribute("fieldType", doc.get(FIELD_FIELD_TYPE));
+                addIfIncluded(result, projection, ResultProjection.CLASS, className);
+                addIfIncluded(result, projection, ResultProjection.FIELD_TYPE, doc.get(FIELD_FIELD_TYPE));
                 break;
 
             case "snippet":
-                result.addAttribute("snippet", doc.get(FIELD_SNIPPET));
-                result.addAttribute("method", doc.get(FIELD_METHOD));
-                result.addAttribute("class", doc.get(FIELD_CLASS));
+                addIfIncluded(result, projection, ResultProjection.SNIPPET, doc.get(FIELD_SNIPPET));
+                addIfIncluded(result, projection, ResultProjection.METHOD, doc.get(FIELD_METHOD));
+                addIfIncluded(result, projection, ResultProjection.CLASS, className);
                 break;
         }
 
         // 添加JavaDoc
         String javadoc = doc.get(FIELD_JAVADOC);
         if (javadoc != null) {
-            result.addAttribute("javadoc", javadoc);
+            result.addAttribute(ResultProjection.JAVADOC, javadoc);
         }
 
         // 添加修饰符
-        String[] modifiers = doc.getValues(FIELD_MODIFIERS);
-        if (modifiers != null && modifiers.length > 0) {
-            result.addAttribute("modifiers", Arrays.asList(modifiers));
+        List<String> modifiers = doc.getValues(FIELD_MODIFIERS);
+        if (!modifiers.isEmpty()) {
+            result.addAttribute(ResultProjection.MODIFIERS, new ArrayList<>(modifiers));
         }
 
-        // 添加关系
-        String[] relations = doc.getValues(FIELD_RELATIONS);
-        if (relations != null && relations.length > 0) {
+        // 添加关系，格式: 关系类型:目标
+        List<String> relations = doc.getValues(FIELD_RELATIONS);
+        if (!relations.isEmpty()) {
             Map<String, Set<String>> relationMap = new HashMap<>();
             for (String relation : relations) {
-                String[] parts = relation.split(":");
-                if (parts.length == 2) {
-                    relationMap.computeIfAbsent(parts[0], k -> new HashSet<>()).add(parts[1]);
+                int separator = relation.indexOf(':');
+                if (separator > 0) {
+                    relationMap.computeIfAbsent(relation.substring(0, separator), k -> new HashSet<>())
+                            .add(relation.substring(separator + 1));
                 }
             }
-            result.addAttribute("relationships", relationMap);
+            result.addAttribute(ResultProjection.RELATIONSHIPS, relationMap);
+        }
+    }
+
+    /**
+     * 投影包含该属性时添加到结果中
+     */
+    private static void addIfIncluded(SearchResult result, ResultProjection projection, String attribute, Object value) {
+        if (projection.includes(attribute)) {
+            result.addAttribute(attribute, value);
         }
     }
 
@@ -673,21 +1395,34 @@ public class IndexManager implements AutoCloseable {
      */
     @Override
     public void close() throws IOException {
-        if (indexReader != null) {
-            indexReader.close();
-        }
-
-        if (indexWriter != null) {
+        // 先停止构建线程和后台刷新，再关闭搜索器，最后关闭写入器
+        indexExecutor.shutdown();
+        reopenThread.close();
+        searcherManager.close();
+        if (buildPending) {
+            // 全量构建未完成，丢弃未提交的清空和写入，索引回到上一次提交
+            indexWriter.rollback();
+        } else {
             indexWriter.close();
         }
-
         directory.close();
     }
 
+    /**
+     * 全量构建是否已开始但未提交（构建中，或构建失败/放弃后尚未重新构建）
+     * 此时索引内容不完整，不能在其上增量更新
+     */
+    public boolean isBuildPending() {
+        return buildPending;
+    }
+
     /**
      * 提交索引变更
      */
     public void commit() throws IOException {
+        if (buildPending) {
+            throw new IllegalStateException("上一次全量构建未完成，需要重新全量构建索引");
+        }
         indexWriter.commit();
     }
 
@@ -731,9 +1466,10 @@ public class IndexManager implements AutoCloseable {
 
         /**
          * 添加精确匹配条件
+         * 代码字段上按单个小写词项匹配，可以是完整标识符，也可以是拆分出的一部分
          */
         public QueryBuilder term(String field, String value) {
-            queryBuilder.add(new TermQuery(new Term(field, value)), BooleanClause.Occur.MUST);
+            queryBuilder.add(new TermQuery(new Term(field, normalize(field, value))), BooleanClause.Occur.MUST);
             return this;
         }
 
@@ -741,7 +1477,7 @@ public class IndexManager implements AutoCloseable {
          * 添加前缀匹配条件
          */
         public QueryBuilder prefix(String field, String prefix) {
-            queryBuilder.add(new PrefixQuery(new Term(field, prefix)), BooleanClause.Occur.MUST);
+            queryBuilder.add(new PrefixQuery(new Term(field, normalize(field, prefix))), BooleanClause.Occur.MUST);
             return this;
         }
 
@@ -756,9 +1492,14 @@ public class IndexManager implements AutoCloseable {
 
         /**
          * 添加通配符查询
+         * 以通配符开头的模式需要枚举字段的全部词项，索引中没有反向词项字段可供改写，因此直接拒绝
+         * @throws IllegalArgumentException 模式以*或?开头
          */
         public QueryBuilder wildcard(String field, String pattern) {
-            queryBuilder.add(new WildcardQuery(new Term(field, pattern)), BooleanClause.Occur.MUST);
+            if (pattern.startsWith("*") || pattern.startsWith("?")) {
+                throw new IllegalArgumentException("不支持以通配符开头的查询: " + field + ":" + pattern);
+            }
+            queryBuilder.add(new WildcardQuery(new Term(field, normalize(field, pattern))), BooleanClause.Occur.MUST);
             return this;
         }
 
@@ -779,6 +1520,13 @@ public class IndexManager implements AutoCloseable {
             return this;
         }
 
+        /**
+         * 代码字段的词项都是小写，不经过分词的查询条件需要同样转为小写；其他字段保持原样
+         */
+        private static String normalize(String field, String value) {
+            return CODE_FIELDS.contains(field) ? value.toLowerCase(Locale.ROOT) : value;
+        }
+
         /**
          * 构建最终查询
          */
@@ -0,0 +1,59 @@
+package com.codeanalyzer.index;
+
+import org.apache.lucene.index.FieldInfo;
+import org.apache.lucene.index.StoredFieldVisitor;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 只解码投影中字段的存储字段访问器，其余字段直接跳过
+ * 同一个访问器可以在读取每个文档前调用reset重复使用
+ */
+final class ProjectedFieldVisitor extends StoredFieldVisitor {
+    private final Set<String> fields;
+    private final Map<String, List<String>> values = new HashMap<>();
+
+    ProjectedFieldVisitor(Set<String> fields) {
+        this.fields = fields;
+    }
+
+    @Override
+    public Status needsField(FieldInfo fieldInfo) {
+        return fields.contains(fieldInfo.name) ? Status.YES : Status.NO;
+    }
+
+    @Override
+    public void stringField(FieldInfo fieldInfo, byte[] value) {
+        values.computeIfAbsent(fieldInfo.name, k -> new ArrayList<>(1))
+                .add(new String(value, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 清空上一个文档读到的值
+     */
+    void reset() {
+        values.clear();
+    }
+
+    /**
+     * 字段的第一个值，不存在时返回null
+     */
+    String get(String field) {
+        List<String> fieldValues = values.get(field);
+        return fieldValues == null ? null : fieldValues.get(0);
+    }
+
+    /**
+     * 字段的全部值
+     */
+    List<String> getValues(String field) {
+        List<String> fieldValues = values.get(field);
+        return fieldValues == null ? Collections.emptyList() : fieldValues;
+    }
+}
@@ -0,0 +1,108 @@
+package com.codeanalyzer.index;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * 搜索结果投影 - 指定结果中需要填充的属性
+ * id、name、type、path总是返回；其余属性只有在投影中列出时才从索引读取，
+ * 只需要摘要信息的调用方可以跳过JavaDoc、代码片段和关系等较大的存储字段
+ */
+public final class ResultProjection {
+    // 可投影的结果属性
+    public static final String PACKAGE = "package";
+    public static final String CLASS = "class";
+    public static final String RETURN_TYPE = "returnType";
+    public static final String PARAMETERS = "parameters";
+    public static final String FIELD_TYPE = "fieldType";
+    public static final String SNIPPET = "snippet";
+    public static final String METHOD = "method";
+    public static final String JAVADOC = "javadoc";
+    public static final String MODIFIERS = "modifiers";
+    public static final String RELATIONSHIPS = "relationships";
+
+    private static final Set<String> ATTRIBUTES = Collections.unmodifiableSet(new LinkedHashSet<>(Arrays.asList(
+            PACKAGE, CLASS, RETURN_TYPE, PARAMETERS, FIELD_TYPE, SNIPPET, METHOD, JAVADOC, MODIFIERS, RELATIONSHIPS)));
+
+    /** 返回全部属性 */
+    public static final ResultProjection ALL = new ResultProjection(ATTRIBUTES);
+    /** 只返回id、name、type、path */
+    public static final ResultProjection SUMMARY = new ResultProjection(Collections.emptySet());
+
+    private final Set<String> attributes;
+
+    private ResultProjection(Set<String> attributes) {
+        this.attributes = attributes;
+    }
+
+    /**
+     * 创建只包含指定属性的投影
+     * @throws IllegalArgumentException 属性名无法识别
+     */
+    public static ResultProjection of(String... attributes) {
+        // 有序集合，相同属性组合的字符串形式一致，可以作为缓存键的一部分
+        Set<String> selected = new TreeSet<>();
+        for (String attribute : attributes) {
+            String name = attribute.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            if (!ATTRIBUTES.contains(name)) {
+                throw new IllegalArgumentException("未知的结果属性: " + name);
+            }
+            selected.add(name);
+        }
+        return new ResultProjection(Collections.unmodifiableSet(selected));
+    }
+
+    /**
+     * 解析逗号分隔的属性列表，为空时返回全部属性
+     * @throws IllegalArgumentException 属性名无法识别
+     */
+    public static ResultProjection parse(String attributes) {
+        if (attributes == null || attributes.trim().isEmpty()) {
+            return ALL;
+        }
+        return of(attributes.split(","));
+    }
+
+    /**
+     * 是否包含指定属性
+     */
+    public boolean includes(String attribute) {
+        return attributes.contains(attribute);
+    }
+
+    /**
+     * 需要从存储字段读取的索引字段
+     * type、class和returnType保存在DocValues中，不在此列
+     */
+    Set<String> storedFields() {
+        Set<String> fields = new HashSet<>(Arrays.asList(
+                IndexManager.FIELD_ID, IndexManager.FIELD_NAME, IndexManager.FIELD_PATH));
+        addIfIncluded(fields, PACKAGE, IndexManager.FIELD_PACKAGE);
+        addIfIncluded(fields, PARAMETERS, IndexManager.FIELD_PARAMS);
+        addIfIncluded(fields, FIELD_TYPE, IndexManager.FIELD_FIELD_TYPE);
+        addIfIncluded(fields, SNIPPET, IndexManager.FIELD_SNIPPET);
+        addIfIncluded(fields, METHOD, IndexManager.FIELD_METHOD);
+        addIfIncluded(fields, JAVADOC, IndexManager.FIELD_JAVADOC);
+        addIfIncluded(fields, MODIFIERS, IndexManager.FIELD_MODIFIERS);
+        addIfIncluded(fields, RELATIONSHIPS, IndexManager.FIELD_RELATIONS);
+        return fields;
+    }
+
+    private void addIfIncluded(Set<String> fields, String attribute, String field) {
+        if (includes(attribute)) {
+            fields.add(field);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ResultProjection" + attributes;
+    }
+}
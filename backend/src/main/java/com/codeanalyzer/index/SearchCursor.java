@@ -0,0 +1,60 @@
+package com.codeanalyzer.index;
+
+import org.apache.lucene.search.ScoreDoc;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+
+/**
+ * 分页游标 - 记录上一页最后一个命中的得分和文档号，编码为对调用方不透明的字符串
+ * 下一页从该位置之后继续收集（searchAfter），每页的代价与页码无关
+ * 游标依赖文档号，索引发生合并后继续翻页可能出现少量重复或遗漏
+ */
+final class SearchCursor {
+    // 编码格式版本，格式变化时递增
+    private static final byte VERSION = 1;
+    private static final int ENCODED_BYTES = 1 + Float.BYTES + Integer.BYTES;
+
+    private SearchCursor() {
+    }
+
+    /**
+     * 将命中编码为游标
+     */
+    static String encode(ScoreDoc scoreDoc) {
+        ByteBuffer buffer = ByteBuffer.allocate(ENCODED_BYTES);
+        buffer.put(VERSION);
+        buffer.putFloat(scoreDoc.score);
+        buffer.putInt(scoreDoc.doc);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+    }
+
+    /**
+     * 解析游标
+     * @return 上一页最后一个命中，游标为空时返回null
+     * @throws IllegalArgumentException 游标格式无效
+     */
+    static ScoreDoc decode(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+
+        byte[] bytes;
+        try {
+            bytes = Base64.getUrlDecoder().decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("无效的分页游标: " + cursor, e);
+        }
+        if (bytes.length != ENCODED_BYTES || bytes[0] != VERSION) {
+            throw new IllegalArgumentException("无效的分页游标: " + cursor);
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, 1, ENCODED_BYTES - 1);
+        float score = buffer.getFloat();
+        int doc = buffer.getInt();
+        if (doc < 0) {
+            throw new IllegalArgumentException("无效的分页游标: " + cursor);
+        }
+        return new ScoreDoc(doc, score);
+    }
+}
@@ -0,0 +1,21 @@
+package com.codeanalyzer.index;
+
+import java.util.ArrayList;
+
+/**
+ * 搜索结果列表，附带本次查询的执行状态
+ */
+public class SearchResultList extends ArrayList<SearchResult> {
+    private static final long serialVersionUID = 1L;
+
+    // 查询超时，结果只包含超时前收集到的部分命中
+    private boolean truncated;
+    // 下一页的游标，没有更多结果时为null
+    private String nextCursor;
+
+    public boolean isTruncated() { return truncated; }
+    public void setTruncated(boolean truncated) { this.truncated = truncated; }
+
+    public String getNextCursor() { return nextCursor; }
+    public void setNextCursor(String nextCursor) { this.nextCursor = nextCursor; }
+}
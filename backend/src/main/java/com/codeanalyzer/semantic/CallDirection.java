@@ -0,0 +1,18 @@
+package com.codeanalyzer.semantic;
+
+/**
+ * 调用图遍历方向
+ */
+public enum CallDirection {
+    // 沿调用者方向（谁调用了该方法）
+    CALLERS,
+    // 沿被调用者方向（该方法调用了谁）
+    CALLEES;
+
+    /**
+     * 解析方向字符串，"callers"为调用者方向，其余均为被调用者方向
+     */
+    public static CallDirection fromString(String direction) {
+        return "callers".equalsIgnoreCase(direction) ? CALLERS : CALLEES;
+    }
+}
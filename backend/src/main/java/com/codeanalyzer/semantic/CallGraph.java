@@ -1,60 +1,363 @@
 package com.codeanalyzer.semantic;
 
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Set;
+import java.util.*;
 
 /**
  * 调用图实现
+ * 方法ID映射为整数编号，邻接关系以CSR（压缩稀疏行）数组存储，
+ * 调用者和被调用者各一份，遍历时只做数组访问
+ * 构建阶段的边以(调用者 << 32 | 被调用者)编码存入long数组，编译时排序去重，
+ * 编译后只保留CSR数组，每条边占8字节（两个方向各4字节）
+ * 构建阶段（addCall）非线程安全，构建完成后的查询可并发执行
  */
 public class CallGraph {
-    private final Map<String, CallGraphNode> nodes = new HashMap<>();
+    // 方法ID -> 编号
+    private final Map<String, Integer> methodIndex = new HashMap<>();
+    // 编号 -> 方法ID
+    private final List<String> methodIds = new ArrayList<>();
+
+    // 构建阶段的边，可能包含重复，编译后释放
+    private long[] pendingEdges = new long[64];
+    private int pendingCount = 0;
+
+    // 编译后的邻接数组，添加新边后失效
+    private volatile Adjacency adjacency;
 
     /**
-     * 添加调用关系
+     * 添加调用关系，重复的调用关系在编译时去除
      */
     public void addCall(String callerId, String calleeId) {
         // 确保两个节点都存在
-        CallGraphNode caller = nodes.computeIfAbsent(callerId, CallGraphNode::new);
-        CallGraphNode callee = nodes.computeIfAbsent(calleeId, CallGraphNode::new);
+        int caller = internMethod(callerId);
+        int callee = internMethod(calleeId);
+
+        if (pendingEdges == null) {
+            // 编译后继续添加边：从CSR数组还原已有的边
+            pendingEdges = adjacency.toEdges();
+            pendingCount = pendingEdges.length;
+        }
+        if (pendingCount == pendingEdges.length) {
+            pendingEdges = Arrays.copyOf(pendingEdges, Math.max(64, pendingCount * 2));
+        }
+        pendingEdges[pendingCount++] = ((long)caller << 32) | callee;
+
+        adjacency = null;
+    }
+
+    /**
+     * 获取方法编号，新方法分配新编号
+     */
+    private int internMethod(String methodId) {
+        Integer index = methodIndex.get(methodId);
+        if (index == null) {
+            if (pendingEdges == null) {
+                // 新节点使编译结果的节点数失效，先还原已有的边
+                pendingEdges = compile().toEdges();
+                pendingCount = pendingEdges.length;
+            }
+            index = methodIds.size();
+            methodIndex.put(methodId, index);
+            methodIds.add(methodId);
+            adjacency = null;
+        }
+        return index;
+    }
 
-        // 添加调用关系
-        caller.addCallee(calleeId);
-        callee.addCaller(callerId);
+    /**
+     * 获取所有方法ID（按首次出现的顺序）
+     */
+    public List<String> getMethodIds() {
+        return Collections.unmodifiableList(methodIds);
     }
 
     /**
-     * 获取所有节点
+     * 获取方法数量
      */
-    public Map<String, CallGraphNode> getNodes() {
-        return nodes;
+    public int getMethodCount() {
+        return methodIds.size();
     }
 
     /**
-     * 获取调用边数量
+     * 获取调用边数量（去重后）
      */
     public int getEdgeCount() {
-        int count = 0;
-        for (CallGraphNode node : nodes.values()) {
-            count += node.getCallees().size();
-        }
-        return count;
+        return compile().calleeTargets.length;
     }
 
     /**
      * 获取特定方法的调用者
      */
     public Set<String> getCallers(String methodId) {
-        CallGraphNode node = nodes.get(methodId);
-        return node != null ? node.getCallers() : Collections.emptySet();
+        return getNeighbors(methodId, CallDirection.CALLERS);
     }
 
     /**
      * 获取特定方法调用的方法
      */
     public Set<String> getCallees(String methodId) {
-        CallGraphNode node = nodes.get(methodId);
-        return node != null ? node.getCallees() : Collections.emptySet();
+        return getNeighbors(methodId, CallDirection.CALLEES);
+    }
+
+    /**
+     * 获取直接相邻的方法
+     */
+    private Set<String> getNeighbors(String methodId, CallDirection direction) {
+        Integer index = methodIndex.get(methodId);
+        if (index == null) {
+            return Collections.emptySet();
+        }
+
+        Adjacency adj = compile();
+        int[] offsets = adj.offsets(direction);
+        int[] targets = adj.targets(direction);
+
+        Set<String> result = new LinkedHashSet<>();
+        for (int i = offsets[index]; i < offsets[index + 1]; i++) {
+            result.add(methodIds.get(targets[i]));
+        }
+        return result;
+    }
+
+    /**
+     * 获取k跳以内的方法及其距离（广度优先，不包含起点）
+     * @param methodId 起始方法
+     * @param direction 遍历方向
+     * @param maxDepth 最大跳数，小于等于0表示不限制（传递闭包）
+     * @return 方法ID -> 距起点的跳数，按距离升序
+     */
+    public Map<String, Integer> getNeighborhood(String methodId, CallDirection direction, int maxDepth) {
+        Integer start = methodIndex.get(methodId);
+        if (start == null) {
+            return Collections.emptyMap();
+        }
+
+        int limit = maxDepth <= 0 ? Integer.MAX_VALUE : maxDepth;
+        Adjacency adj = compile();
+        int[] offsets = adj.offsets(direction);
+        int[] targets = adj.targets(direction);
+
+        int[] depth = new int[methodIds.size()];
+        Arrays.fill(depth, -1);
+        int[] queue = new int[methodIds.size()];
+        int head = 0;
+        int tail = 0;
+
+        depth[start] = 0;
+        queue[tail++] = start;
+
+        Map<String, Integer> result = new LinkedHashMap<>();
+        while (head < tail) {
+            int current = queue[head++];
+            if (depth[current] >= limit) {
+                continue;
+            }
+
+            for (int i = offsets[current]; i < offsets[current + 1]; i++) {
+                int next = targets[i];
+                if (depth[next] < 0) {
+                    depth[next] = depth[current] + 1;
+                    queue[tail++] = next;
+                    result.put(methodIds.get(next), depth[next]);
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * 获取传递闭包：直接或间接调用的全部方法（或直接或间接调用该方法的全部方法）
+     */
+    public Set<String> getTransitiveClosure(String methodId, CallDirection direction) {
+        return getNeighborhood(methodId, direction, 0).keySet();
+    }
+
+    /**
+     * 查找两个方法之间的最短调用路径
+     * @return 从起点到终点的方法序列（包含两端），不可达时返回空列表
+     */
+    public List<String> findShortestPath(String fromMethodId, String toMethodId) {
+        Integer from = methodIndex.get(fromMethodId);
+        Integer to = methodIndex.get(toMethodId);
+        if (from == null || to == null) {
+            return Collections.emptyList();
+        }
+        if (from.equals(to)) {
+            return Collections.singletonList(fromMethodId);
+        }
+
+        Adjacency adj = compile();
+        int[] offsets = adj.calleeOffsets;
+        int[] targets = adj.calleeTargets;
+
+        // 记录每个节点在最短路径上的前驱
+        int[] parent = new int[methodIds.size()];
+        Arrays.fill(parent, -1);
+        int[] queue = new int[methodIds.size()];
+        int head = 0;
+        int tail = 0;
+
+        parent[from] = from;
+        queue[tail++] = from;
+
+        while (head < tail) {
+            int current = queue[head++];
+            for (int i = offsets[current]; i < offsets[current + 1]; i++) {
+                int next = targets[i];
+                if (parent[next] >= 0) {
+                    continue;
+                }
+                parent[next] = current;
+                if (next == to) {
+                    return buildPath(parent, from, to);
+                }
+                queue[tail++] = next;
+            }
+        }
+
+        return Collections.emptyList();
+    }
+
+    /**
+     * 根据前驱数组还原路径
+     */
+    private List<String> buildPath(int[] parent, int from, int to) {
+        LinkedList<String> path = new LinkedList<>();
+        for (int node = to; node != from; node = parent[node]) {
+            path.addFirst(methodIds.get(node));
+        }
+        path.addFirst(methodIds.get(from));
+        return new ArrayList<>(path);
+    }
+
+    /**
+     * 获取从入口方法出发可达的全部方法（包含入口方法本身）
+     * @param entryPoints 入口方法，如main方法、接口方法等，不存在的入口被忽略
+     */
+    public Set<String> findReachable(Collection<String> entryPoints) {
+        Adjacency adj = compile();
+        int[] offsets = adj.calleeOffsets;
+        int[] targets = adj.calleeTargets;
+
+        BitSet visited = new BitSet(methodIds.size());
+        int[] queue = new int[methodIds.size()];
+        int head = 0;
+        int tail = 0;
+
+        for (String entryPoint : entryPoints) {
+            Integer index = methodIndex.get(entryPoint);
+            if (index != null && !visited.get(index)) {
+                visited.set(index);
+                queue[tail++] = index;
+            }
+        }
+
+        while (head < tail) {
+            int current = queue[head++];
+            for (int i = offsets[current]; i < offsets[current + 1]; i++) {
+                int next = targets[i];
+                if (!visited.get(next)) {
+                    visited.set(next);
+                    queue[tail++] = next;
+                }
+            }
+        }
+
+        Set<String> result = new LinkedHashSet<>();
+        for (int i = visited.nextSetBit(0); i >= 0; i = visited.nextSetBit(i + 1)) {
+            result.add(methodIds.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * 将边列表排序去重后编译为CSR邻接数组，并释放构建阶段的边列表
+     * 结果缓存到下一次添加边为止
+     */
+    private Adjacency compile() {
+        Adjacency adj = adjacency;
+        if (adj != null) {
+            return adj;
+        }
+
+        synchronized (this) {
+            if (adjacency == null) {
+                // 按调用者、被调用者排序，相同的边相邻
+                long[] edges = pendingEdges;
+                Arrays.sort(edges, 0, pendingCount);
+                int unique = 0;
+                for (int e = 0; e < pendingCount; e++) {
+                    if (unique == 0 || edges[e] != edges[unique - 1]) {
+                        edges[unique++] = edges[e];
+                    }
+                }
+
+                Adjacency compiled = new Adjacency(edges, unique, methodIds.size());
+                pendingEdges = null;
+                pendingCount = 0;
+                // 填充完成后再发布，其他线程不会看到未填充的数组
+                adjacency = compiled;
+            }
+            return adjacency;
+        }
+    }
+
+    /**
+     * CSR邻接数组：节点i的邻居为targets[offsets[i]] ~ targets[offsets[i+1]-1]，按编号升序
+     */
+    private static class Adjacency {
+        private final int[] calleeOffsets;
+        private final int[] calleeTargets;
+        private final int[] callerOffsets;
+        private final int[] callerTargets;
+
+        /**
+         * @param edges 已排序去重的边，编码为(调用者 << 32 | 被调用者)
+         * @param edgeCount 有效的边数
+         */
+        Adjacency(long[] edges, int edgeCount, int nodeCount) {
+            calleeOffsets = new int[nodeCount + 1];
+            callerOffsets = new int[nodeCount + 1];
+            for (int e = 0; e < edgeCount; e++) {
+                calleeOffsets[(int)(edges[e] >>> 32) + 1]++;
+                callerOffsets[(int)edges[e] + 1]++;
+            }
+            for (int i = 0; i < nodeCount; i++) {
+                calleeOffsets[i + 1] += calleeOffsets[i];
+                callerOffsets[i + 1] += callerOffsets[i];
+            }
+
+            calleeTargets = new int[edgeCount];
+            callerTargets = new int[edgeCount];
+            int[] callerPos = Arrays.copyOf(callerOffsets, callerOffsets.length);
+            for (int e = 0; e < edgeCount; e++) {
+                int caller = (int)(edges[e] >>> 32);
+                int callee = (int)edges[e];
+                // 边按调用者排序，被调用者方向可以顺序写入
+                calleeTargets[e] = callee;
+                callerTargets[callerPos[callee]++] = caller;
+            }
+        }
+
+        /**
+         * 还原为编码后的边列表，用于编译后继续添加边
+         */
+        long[] toEdges() {
+            long[] edges = new long[calleeTargets.length];
+            for (int caller = 0; caller + 1 < calleeOffsets.length; caller++) {
+                for (int i = calleeOffsets[caller]; i < calleeOffsets[caller + 1]; i++) {
+                    edges[i] = ((long)caller << 32) | calleeTargets[i];
+                }
+            }
+            return edges;
+        }
+
+        int[] offsets(CallDirection direction) {
+            return direction == CallDirection.CALLERS ? callerOffsets : calleeOffsets;
+        }
+
+        int[] targets(CallDirection direction) {
+            return direction == CallDirection.CALLERS ? callerTargets : calleeTargets;
+        }
     }
 }
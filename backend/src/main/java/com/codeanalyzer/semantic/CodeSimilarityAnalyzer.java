@@ -1,112 +1,449 @@
 package com.codeanalyzer.semantic;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import com.codeanalyzer.config.TuningProfile;
+
+import java.util.*;
 
 /**
  * 代码相似度分析器
+ * 使用MinHash签名 + LSH分桶生成候选对，只对候选对计算精确相似度，
+ * 避免对所有方法两两比较，整体耗时与方法数量近似线性
+ * 精确相似度为基于项目词表的稀疏TF-IDF向量的余弦相似度
  */
 public class CodeSimilarityAnalyzer {
-    // 方法ID -> 特征向量
-    private final Map<String, double[]> featureVectors = new HashMap<>();
+    // 默认按单个词切分（IR文本只包含名称、类型、注释等，较短）
+    public static final int DEFAULT_SHINGLE_SIZE = 1;
+    // 单个桶内两两比较的最大方法数，防止大量完全相同的小方法导致平方级比较
+    private static final int MAX_BUCKET_SIZE = 500;
+    // 超过上限的桶中，每个方法只与按签名排序后紧随其后的若干个方法比较
+    private static final int OVERSIZED_BUCKET_NEIGHBORS = 8;
+
+    // LSH参数
+    private final int bands;
+    private final int rowsPerBand;
+    private final int shingleSize;
+    // 每个哈希函数的种子
+    private final long[] hashSeeds;
+
+    // 项目词表：词 -> 词ID
+    private final Map<String, Integer> vocabulary = new HashMap<>();
+    // 每个词ID出现在多少个方法中（文档频率）
+    private int[] documentFrequency = new int[64];
+
+    // 方法ID（按加入顺序）
+    private final List<String> methodIds = new ArrayList<>();
+    // 方法特征向量（稀疏）
+    private final List<SparseVector> featureVectors = new ArrayList<>();
+    // 方法MinHash签名
+    private final List<int[]> signatures = new ArrayList<>();
+
+    // 超过阈值的相似方法对
+    private final List<CodeSimilarityPair> similarPairs = new ArrayList<>();
+
+    // 最近一次computeSimilarities中超过上限的桶数，以及因此没有比较的方法对数（按分桶带累计）
+    private int oversizedBucketCount;
+    private long skippedPairCount;
+
+    /**
+     * 使用默认LSH参数创建分析器：10个分桶带，每带5行，共50个哈希函数
+     * 候选阈值约为 (1/bands)^(1/rows) ≈ 0.63（Jaccard相似度），Jaccard为0.8的方法对成为候选的概率约98%，
+     * 0.3的约2%；阈值略低于重复判定的相似度0.8，因为精确相似度是TF-IDF余弦，与MinHash估计的Jaccard有偏差
+     */
+    public CodeSimilarityAnalyzer() {
+        this(TuningProfile.DEFAULT_SIMILARITY_BANDS, TuningProfile.DEFAULT_SIMILARITY_ROWS_PER_BAND,
+                DEFAULT_SHINGLE_SIZE);
+    }
+
+    /**
+     * 创建分析器
+     * @param bands 分桶带数，越多召回率越高、候选对越多
+     * @param rowsPerBand 每带行数，越多候选越严格、速度越快但召回率下降
+     * @param shingleSize 连续词片段长度，越长越关注词序
+     */
+    public CodeSimilarityAnalyzer(int bands, int rowsPerBand, int shingleSize) {
+        if (bands <= 0 || rowsPerBand <= 0 || shingleSize <= 0) {
+            throw new IllegalArgumentException("bands, rowsPerBand and shingleSize must be positive");
+        }
+        this.bands = bands;
+        this.rowsPerBand = rowsPerBand;
+        this.shingleSize = shingleSize;
 
-    // 方法对 -> 相似度
-    private final Map<String, Double> similarities = new HashMap<>();
+        // 固定种子，保证结果可复现
+        Random random = new Random(0x5EED5EEDL);
+        this.hashSeeds = new long[bands * rowsPerBand];
+        for (int i = 0; i < hashSeeds.length; i++) {
+            hashSeeds[i] = random.nextLong();
+        }
+    }
 
     /**
-     * 计算方法的特征向量
-     * 这里使用简化的TF-IDF实现
+     * 计算方法的特征向量和MinHash签名
+     * 此时只记录词频，IDF权重在computeSimilarities时统一计算，应在加入全部方法之后调用
      */
     public void computeFeatureVector(String methodId, String methodText) {
         // 分词
-        String[] tokens = methodText.toLowerCase()
-                .replaceAll("[^a-z0-9_]", " ")
-                .split("\\s+");
+        List<String> tokens = tokenize(methodText);
 
-        // 统计词频
-        Map<String, Integer> termFrequency = new HashMap<>();
+        // 统计词频（按词ID排序）
+        TreeMap<Integer, Integer> termCounts = new TreeMap<>();
         for (String token : tokens) {
-            if (!token.isEmpty()) {
-                termFrequency.put(token, termFrequency.getOrDefault(token, 0) + 1);
+            termCounts.merge(termId(token), 1, Integer::sum);
+        }
+
+        int[] ids = new int[termCounts.size()];
+        float[] counts = new float[termCounts.size()];
+        int n = 0;
+        for (Map.Entry<Integer, Integer> entry : termCounts.entrySet()) {
+            ids[n] = entry.getKey();
+            counts[n] = entry.getValue();
+            documentFrequency[ids[n]]++;
+            n++;
+        }
+
+        methodIds.add(methodId);
+        featureVectors.add(new SparseVector(ids, counts));
+        signatures.add(computeSignature(tokens));
+    }
+
+    /**
+     * 获取词ID，新词加入词表
+     */
+    private int termId(String term) {
+        Integer id = vocabulary.get(term);
+        if (id == null) {
+            id = vocabulary.size();
+            vocabulary.put(term, id);
+            if (id >= documentFrequency.length) {
+                documentFrequency = Arrays.copyOf(documentFrequency, documentFrequency.length * 2);
             }
         }
+        return id;
+    }
 
-        // 计算特征向量（这里简化为词频）
-        // 实际应使用TF-IDF或更复杂的特征
-        double[] vector = new double[termFrequency.size()];
-        String[] terms = termFrequency.keySet().toArray(new String[0]);
+    /**
+     * 通过LSH生成候选对，并计算候选对的精确相似度
+     * 只保留相似度不低于阈值的方法对
+     * 词频在首次调用时原地转换为TF-IDF权重，再次调用只重新筛选方法对
+     * @param threshold 相似度阈值
+     */
+    public void computeSimilarities(double threshold) {
+        similarPairs.clear();
+        oversizedBucketCount = 0;
+        skippedPairCount = 0;
 
-        for (int i = 0; i < terms.length; i++) {
-            vector[i] = termFrequency.get(terms[i]);
+        // 按当前词表计算TF-IDF权重
+        float[] idf = computeIdf();
+        for (SparseVector vector : featureVectors) {
+            vector.applyWeights(idf);
         }
 
-        // 归一化
-        double norm = 0;
-        for (double v : vector) {
-            norm += v * v;
+        for (long pair : findCandidatePairs().toSortedUnique()) {
+            int i = (int)(pair >>> 32);
+            int j = (int)pair;
+
+            double similarity = featureVectors.get(i).dot(featureVectors.get(j));
+            if (similarity >= threshold) {
+                similarPairs.add(new CodeSimilarityPair(methodIds.get(i), methodIds.get(j), similarity));
+            }
         }
-        norm = Math.sqrt(norm);
 
-        if (norm > 0) {
-            for (int i = 0; i < vector.length; i++) {
-                vector[i] /= norm;
+        // 按相似度降序排列，结果顺序稳定
+        similarPairs.sort(Comparator.comparingDouble(CodeSimilarityPair::getSimilarity).reversed()
+                .thenComparing(CodeSimilarityPair::getMethod1Id)
+                .thenComparing(CodeSimilarityPair::getMethod2Id));
+    }
+
+    /**
+     * 对每个分桶带，将签名片段相同的方法放入同一个桶，同桶方法互为候选
+     * @return 候选对，编码为 (较小下标 << 32) | 较大下标
+     */
+    private CandidateBuffer findCandidatePairs() {
+        CandidateBuffer candidates = new CandidateBuffer();
+
+        for (int band = 0; band < bands; band++) {
+            Map<Long, List<Integer>> buckets = new HashMap<>();
+
+            for (int i = 0; i < signatures.size(); i++) {
+                int[] signature = signatures.get(i);
+                if (signature == null) {
+                    continue;
+                }
+                buckets.computeIfAbsent(bandKey(signature, band), k -> new ArrayList<>()).add(i);
+            }
+
+            for (List<Integer> bucket : buckets.values()) {
+                if (bucket.size() < 2) {
+                    continue;
+                }
+                if (bucket.size() > MAX_BUCKET_SIZE) {
+                    addOversizedBucketCandidates(bucket, candidates);
+                    continue;
+                }
+                for (int a = 0; a < bucket.size(); a++) {
+                    for (int b = a + 1; b < bucket.size(); b++) {
+                        candidates.add(bucket.get(a), bucket.get(b));
+                    }
+                }
             }
         }
 
-        featureVectors.put(methodId, vector);
+        return candidates;
     }
 
     /**
-     * 计算所有方法之间的相似度
+     * 超过上限的桶通常由大量完全相同的方法（样板代码）造成
+     * 按完整签名排序后签名相同的方法相邻，每个方法只与其后的OVERSIZED_BUCKET_NEIGHBORS个方法比较：
+     * 完全相同的方法串成一条链，每个都会出现在重复对中；其余方法只与签名最接近的方法比较
      */
-    public void computeSimilarities() {
-        String[] methodIds = featureVectors.keySet().toArray(new String[0]);
+    private void addOversizedBucketCandidates(List<Integer> bucket, CandidateBuffer candidates) {
+        List<Integer> sorted = new ArrayList<>(bucket);
+        sorted.sort((a, b) -> {
+            int order = compareSignatures(signatures.get(a), signatures.get(b));
+            return order != 0 ? order : Integer.compare(a, b);
+        });
 
-        // 计算每对方法的相似度
-        for (int i = 0; i < methodIds.length; i++) {
-            for (int j = i + 1; j < methodIds.length; j++) {
-                String id1 = methodIds[i];
-                String id2 = methodIds[j];
+        long compared = 0;
+        for (int a = 0; a < sorted.size(); a++) {
+            int end = Math.min(sorted.size(), a + 1 + OVERSIZED_BUCKET_NEIGHBORS);
+            for (int b = a + 1; b < end; b++) {
+                int i = Math.min(sorted.get(a), sorted.get(b));
+                int j = Math.max(sorted.get(a), sorted.get(b));
+                candidates.add(i, j);
+                compared++;
+            }
+        }
 
-                double similarity = computeCosineSimilarity(featureVectors.get(id1), featureVectors.get(id2));
+        oversizedBucketCount++;
+        skippedPairCount += (long)bucket.size() * (bucket.size() - 1) / 2 - compared;
+    }
 
-                // 保存相似度
-                String pairKey = id1 + "_" + id2;
-                similarities.put(pairKey, similarity);
+    private static int compareSignatures(int[] a, int[] b) {
+        for (int k = 0; k < a.length; k++) {
+            if (a[k] != b[k]) {
+                return Integer.compare(a[k], b[k]);
             }
         }
+        return 0;
+    }
+
+    /**
+     * 最近一次computeSimilarities中超过上限、未两两比较的桶数
+     */
+    public int getOversizedBucketCount() {
+        return oversizedBucketCount;
+    }
+
+    /**
+     * 最近一次computeSimilarities中因桶超过上限而没有比较的方法对数（各分桶带累计）
+     */
+    public long getSkippedPairCount() {
+        return skippedPairCount;
+    }
+
+    /**
+     * 计算签名在指定分桶带上的键
+     */
+    private long bandKey(int[] signature, int band) {
+        long key = band;
+        int start = band * rowsPerBand;
+        for (int r = 0; r < rowsPerBand; r++) {
+            key = key * 31 + signature[start + r];
+        }
+        return mix64(key);
     }
 
     /**
-     * 计算两个向量的余弦相似度
+     * 计算词片段集合的MinHash签名，没有任何词时返回null
      */
-    private double computeCosineSimilarity(double[] vector1, double[] vector2) {
-        // 如果向量长度不同，使用较短的长度
-        int length = Math.min(vector1.length, vector2.length);
+    private int[] computeSignature(List<String> tokens) {
+        if (tokens.isEmpty()) {
+            return null;
+        }
+
+        int[] signature = new int[hashSeeds.length];
+        Arrays.fill(signature, Integer.MAX_VALUE);
+
+        // 文本不足一个片段长度时，将全部词作为一个片段
+        int shingleCount = Math.max(1, tokens.size() - shingleSize + 1);
+        for (int s = 0; s < shingleCount; s++) {
+            int end = Math.min(tokens.size(), s + shingleSize);
+            long shingleHash = String.join(" ", tokens.subList(s, end)).hashCode();
+
+            for (int h = 0; h < hashSeeds.length; h++) {
+                int value = (int)(mix64(shingleHash ^ hashSeeds[h]) >>> 33);
+                if (value < signature[h]) {
+                    signature[h] = value;
+                }
+            }
+        }
+
+        return signature;
+    }
 
-        double dotProduct = 0;
-        for (int i = 0; i < length; i++) {
-            dotProduct += vector1[i] * vector2[i];
+    /**
+     * 计算平滑IDF：ln((1 + N) / (1 + df)) + 1
+     * 所有方法都包含的词权重为1，不会被完全忽略
+     */
+    private float[] computeIdf() {
+        int methodCount = featureVectors.size();
+        float[] idf = new float[vocabulary.size()];
+        for (int id = 0; id < idf.length; id++) {
+            idf[id] = (float)(Math.log((1.0 + methodCount) / (1.0 + documentFrequency[id])) + 1.0);
         }
+        return idf;
+    }
 
-        return dotProduct;
+    /**
+     * 两个方法之间的余弦相似度，需要在computeSimilarities之后调用
+     * @return 相似度，方法不存在时为0
+     */
+    public double similarity(String methodId1, String methodId2) {
+        int i = methodIds.indexOf(methodId1);
+        int j = methodIds.indexOf(methodId2);
+        if (i < 0 || j < 0) {
+            return 0;
+        }
+        return featureVectors.get(i).dot(featureVectors.get(j));
     }
 
     /**
      * 查找潜在的重复代码
+     * @param threshold 相似度阈值，低于computeSimilarities使用的阈值的方法对已被丢弃
      */
     public List<CodeSimilarityPair> findPotentialDuplicates(double threshold) {
         List<CodeSimilarityPair> result = new ArrayList<>();
 
-        for (Map.Entry<String, Double> entry : similarities.entrySet()) {
-            if (entry.getValue() >= threshold) {
-                String[] ids = entry.getKey().split("_");
-                result.add(new CodeSimilarityPair(ids[0], ids[1], entry.getValue()));
+        for (CodeSimilarityPair pair : similarPairs) {
+            if (pair.getSimilarity() >= threshold) {
+                result.add(pair);
             }
         }
 
         return result;
     }
+
+    /**
+     * 分词
+     */
+    private static List<String> tokenize(String text) {
+        String[] rawTokens = text.toLowerCase()
+                .replaceAll("[^a-z0-9_]", " ")
+                .split("\\s+");
+
+        List<String> tokens = new ArrayList<>(rawTokens.length);
+        for (String token : rawTokens) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * 候选对缓冲区，每个候选对编码为一个long：(较小下标 << 32) | 较大下标
+     * 同一对方法在多个分桶带中相遇时会重复加入，满时先排序去重，仍超过一半才扩容
+     */
+    private static class CandidateBuffer {
+        private long[] pairs = new long[64];
+        private int count;
+
+        void add(int i, int j) {
+            if (count == pairs.length) {
+                compact();
+                if (count > pairs.length / 2) {
+                    pairs = Arrays.copyOf(pairs, pairs.length * 2);
+                }
+            }
+            pairs[count++] = ((long)i << 32) | j;
+        }
+
+        /**
+         * 排序后相同的候选对相邻，原地去重
+         */
+        private void compact() {
+            Arrays.sort(pairs, 0, count);
+            int unique = 0;
+            for (int k = 0; k < count; k++) {
+                if (unique == 0 || pairs[k] != pairs[unique - 1]) {
+                    pairs[unique++] = pairs[k];
+                }
+            }
+            count = unique;
+        }
+
+        /**
+         * 排序去重后的候选对
+         */
+        long[] toSortedUnique() {
+            compact();
+            return Arrays.copyOf(pairs, count);
+        }
+    }
+
+    /**
+     * 稀疏特征向量 - 按词ID升序存储非零项，每项8字节（词ID + 权重）
+     */
+    private static class SparseVector {
+        private final int[] ids;
+        // 加权前为词频，applyWeights后原地替换为归一化的TF-IDF权重
+        private final float[] weights;
+        private boolean weighted;
+
+        SparseVector(int[] ids, float[] counts) {
+            this.ids = ids;
+            this.weights = counts;
+        }
+
+        /**
+         * 按IDF计算权重并归一化为单位向量，已加权的向量不再重复计算
+         */
+        void applyWeights(float[] idf) {
+            if (weighted) {
+                return;
+            }
+            weighted = true;
+
+            double norm = 0;
+            for (int k = 0; k < ids.length; k++) {
+                weights[k] *= idf[ids[k]];
+                norm += (double)weights[k] * weights[k];
+            }
+            norm = Math.sqrt(norm);
+
+            if (norm > 0) {
+                for (int k = 0; k < weights.length; k++) {
+                    weights[k] /= norm;
+                }
+            }
+        }
+
+        /**
+         * 归并两个有序向量计算点积，向量已归一化，点积即余弦相似度
+         */
+        double dot(SparseVector other) {
+            double dotProduct = 0;
+            int i = 0;
+            int j = 0;
+            while (i < ids.length && j < other.ids.length) {
+                if (ids[i] == other.ids[j]) {
+                    dotProduct += (double)weights[i++] * other.weights[j++];
+                } else if (ids[i] < other.ids[j]) {
+                    i++;
+                } else {
+                    j++;
+                }
+            }
+            // 消除浮点误差
+            return Math.min(1.0, dotProduct);
+        }
+    }
+
+    /**
+     * 64位哈希混合函数（MurmurHash3 fmix64）
+     */
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+        z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return z ^ (z >>> 33);
+    }
 }
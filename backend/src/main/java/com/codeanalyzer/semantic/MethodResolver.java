@@ -0,0 +1,252 @@
+package com.codeanalyzer.semantic;
+
+import com.codeanalyzer.ast.CodeEntity;
+import com.codeanalyzer.ast.RelationType;
+
+import java.util.*;
+
+/**
+ * 方法调用解析器 - 基于预先构建的符号表解析调用目标
+ * 一次遍历实体建立查找表，之后每次解析只做常数次哈希查找，
+ * 调用图构建的复杂度与调用点数量成线性关系
+ */
+class MethodResolver {
+    // 方法名 -> 声明该方法的类
+    private final Map<String, Set<String>> ownersByMethodName = new HashMap<>();
+    // 类名 -> 类中声明的方法名
+    private final Map<String, Set<String>> methodsByOwner = new HashMap<>();
+    // 类名 -> (字段名 -> 字段类型)
+    private final Map<String, Map<String, String>> fieldTypesByOwner = new HashMap<>();
+    // 类名 -> 父类和实现的接口
+    private final Map<String, Set<String>> superTypes = new HashMap<>();
+
+    MethodResolver(Collection<CodeEntity> entities) {
+        for (CodeEntity entity : entities) {
+            switch (entity.getType()) {
+                case METHOD:
+                    ownersByMethodName.computeIfAbsent(entity.getName(), k -> new LinkedHashSet<>())
+                            .add(entity.getParentName());
+                    methodsByOwner.computeIfAbsent(entity.getParentName(), k -> new HashSet<>())
+                            .add(entity.getName());
+                    break;
+
+                case FIELD:
+                    if (entity.getFieldType() != null) {
+                        fieldTypesByOwner.computeIfAbsent(entity.getParentName(), k -> new HashMap<>())
+                                .put(entity.getName(), simpleTypeName(entity.getFieldType()));
+                    }
+                    break;
+
+                case CLASS:
+                case INTERFACE:
+                    Set<String> supers = superTypes.computeIfAbsent(entity.getName(), k -> new LinkedHashSet<>());
+                    for (RelationType relation : Arrays.asList(RelationType.EXTENDS, RelationType.IMPLEMENTS)) {
+                        for (String type : entity.getRelationships().getOrDefault(relation, Collections.emptySet())) {
+                            supers.add(simpleTypeName(type));
+                        }
+                    }
+                    break;
+
+                default:
+                    break;
+            }
+        }
+    }
+
+    /**
+     * 解析方法中对某个方法名的所有调用目标
+     * @param caller 调用方方法实体
+     * @param calledMethodName 被调用的方法名
+     * @return 调用目标，格式为ClassName#methodName；无法确定声明类时为原始方法名
+     */
+    Set<String> resolve(CodeEntity caller, String calledMethodName) {
+        // 1. 解析阶段由符号解析器确定的目标最准确
+        Set<String> resolved = caller.getResolvedMethodCalls(calledMethodName);
+        if (!resolved.isEmpty()) {
+            return resolved;
+        }
+
+        // 2. 按每个调用点的作用域推断接收者类型
+        Set<String> scopes = caller.getMethodCallScopes(calledMethodName);
+        if (scopes.isEmpty()) {
+            scopes = Collections.singleton("");
+        }
+
+        Set<String> targets = new LinkedHashSet<>();
+        for (String scope : scopes) {
+            targets.add(resolveWithScope(caller, calledMethodName, scope));
+        }
+        return targets;
+    }
+
+    /**
+     * 根据单个调用点的作用域解析调用目标
+     */
+    private String resolveWithScope(CodeEntity caller, String methodName, String scope) {
+        // 无作用域或this，调用的是当前类（或父类）的方法
+        if (scope.isEmpty() || scope.equals("this")) {
+            String owner = findDeclaringType(caller.getParentName(), methodName);
+            if (owner != null) {
+                return owner + "#" + methodName;
+            }
+            // 类型层次中没有声明：静态导入、外部类的方法或继承自项目外的方法，按方法名匹配
+            return resolveByMethodName(methodName);
+        }
+
+        String receiverType = resolveScopeType(caller, scope);
+        if (receiverType != null) {
+            // 在接收者类型及其父类型中查找声明
+            String owner = findDeclaringType(receiverType, methodName);
+            // 外部类型（如JDK类）中的方法也保留类名信息
+            return (owner != null ? owner : receiverType) + "#" + methodName;
+        }
+
+        // 作用域是无法推断类型的表达式，先在当前类中查找，再按方法名匹配
+        String owner = findDeclaringType(caller.getParentName(), methodName);
+        if (owner != null) {
+            return owner + "#" + methodName;
+        }
+        return resolveByMethodName(methodName);
+    }
+
+    /**
+     * 只按方法名解析：项目中只有一个类声明了该方法时可以确定目标，否则返回原始方法名
+     */
+    private String resolveByMethodName(String methodName) {
+        Set<String> owners = ownersByMethodName.get(methodName);
+        if (owners != null && owners.size() == 1) {
+            return owners.iterator().next() + "#" + methodName;
+        }
+
+        // 无法解析，使用原始名称
+        return methodName;
+    }
+
+    /**
+     * 推断显式作用域表达式的类型，无法推断时返回null
+     */
+    private String resolveScopeType(CodeEntity caller, String scope) {
+        String callerClass = caller.getParentName();
+
+        // super调用，从父类开始查找
+        if (scope.equals("super")) {
+            Set<String> supers = superTypes.get(callerClass);
+            return supers != null && !supers.isEmpty() ? supers.iterator().next() : null;
+        }
+
+        // this.field形式
+        if (scope.startsWith("this.")) {
+            scope = scope.substring("this.".length());
+        }
+
+        // 只处理简单标识符和限定名，方法链等复杂表达式无法静态推断
+        if (!isQualifiedIdentifier(scope)) {
+            return null;
+        }
+
+        // 方法参数
+        String paramType = caller.getParameters().get(scope);
+        if (paramType != null) {
+            return simpleTypeName(paramType);
+        }
+
+        // 当前类或父类中的字段
+        String fieldType = findFieldType(callerClass, scope);
+        if (fieldType != null) {
+            return fieldType;
+        }
+
+        // 按命名约定，首字母大写的视为类名（静态调用）
+        String simpleName = scope.substring(scope.lastIndexOf('.') + 1);
+        if (!simpleName.isEmpty() && Character.isUpperCase(simpleName.charAt(0))) {
+            return simpleName;
+        }
+
+        // 局部变量等无法推断
+        return null;
+    }
+
+    /**
+     * 在类型及其父类型中查找声明了指定方法的类型
+     */
+    private String findDeclaringType(String type, String methodName) {
+        Deque<String> pending = new ArrayDeque<>();
+        Set<String> visited = new HashSet<>();
+        pending.add(type);
+
+        while (!pending.isEmpty()) {
+            String current = pending.poll();
+            if (!visited.add(current)) {
+                continue;
+            }
+
+            Set<String> methods = methodsByOwner.get(current);
+            if (methods != null && methods.contains(methodName)) {
+                return current;
+            }
+
+            pending.addAll(superTypes.getOrDefault(current, Collections.emptySet()));
+        }
+
+        return null;
+    }
+
+    /**
+     * 在类及其父类中查找字段类型
+     */
+    private String findFieldType(String type, String fieldName) {
+        Deque<String> pending = new ArrayDeque<>();
+        Set<String> visited = new HashSet<>();
+        pending.add(type);
+
+        while (!pending.isEmpty()) {
+            String current = pending.poll();
+            if (!visited.add(current)) {
+                continue;
+            }
+
+            Map<String, String> fields = fieldTypesByOwner.get(current);
+            if (fields != null && fields.containsKey(fieldName)) {
+                return fields.get(fieldName);
+            }
+
+            pending.addAll(superTypes.getOrDefault(current, Collections.emptySet()));
+        }
+
+        return null;
+    }
+
+    /**
+     * 是否为简单标识符或以点分隔的限定名
+     */
+    private static boolean isQualifiedIdentifier(String expression) {
+        for (String part : expression.split("\\.", -1)) {
+            if (part.isEmpty() || !Character.isJavaIdentifierStart(part.charAt(0))) {
+                return false;
+            }
+            for (int i = 1; i < part.length(); i++) {
+                if (!Character.isJavaIdentifierPart(part.charAt(i))) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 将类型表达式转换为简单类名：去掉泛型参数、数组维度和包名
+     * 例如 java.util.List<String>[] -> List
+     */
+    static String simpleTypeName(String type) {
+        String name = type.trim();
+        int genericStart = name.indexOf('<');
+        if (genericStart >= 0) {
+            name = name.substring(0, genericStart);
+        }
+        int arrayStart = name.indexOf('[');
+        if (arrayStart >= 0) {
+            name = name.substring(0, arrayStart);
+        }
+        return name.substring(name.lastIndexOf('.') + 1).trim();
+    }
+}
@@ -3,34 +3,41 @@ package com.codeanalyzer.semantic;
 import com.codeanalyzer.ast.CodeEntity;
 import com.codeanalyzer.ast.IntermediateRepresentation;
 import com.codeanalyzer.ast.ParsedProjectStructure;
+import com.codeanalyzer.config.PerformanceMonitor;
+import com.codeanalyzer.config.TuningProfile;
+import com.codeanalyzer.index.CodeIdentifierAnalyzer;
 import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.body.MethodDeclaration;
 import com.github.javaparser.ast.expr.MethodCallExpr;
 import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
 import org.apache.lucene.analysis.Analyzer;
-import org.apache.lucene.analysis.standard.StandardAnalyzer;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field;
 import org.apache.lucene.document.StringField;
 import org.apache.lucene.document.TextField;
-import org.apache.lucene.index.DirectoryReader;
-import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
-import org.apache.lucene.queryparser.classic.QueryParser;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TermQuery;
 import org.apache.lucene.search.TopDocs;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.FSDirectory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 /**
@@ -41,8 +48,11 @@ import java.util.stream.Collectors;
  * 3. 代码相似度分析 - 检测相似或重复代码
  * 4. 关键字抽取 - 从代码和注释中提取关键概念
  * 5. 代码质量评估 - 检测潜在问题和优化机会
+ *
+ * 每个子索引维护一个长期打开的SearcherManager，并发查询共享同一个searcher，
+ * 子索引重新写入后刷新，使用完毕需调用close释放
  */
-public class SemanticAnalyzer {
+public class SemanticAnalyzer implements Closeable {
     private static final Logger logger = LoggerFactory.getLogger(SemanticAnalyzer.class);
 
     // 路径常量
@@ -51,9 +61,15 @@ public class SemanticAnalyzer {
     private static final String CODE_SIMILARITY_INDEX = "code_similarity";
     private static final String CONCEPT_INDEX = "concept";
 
+    // 重复代码相似度阈值
+    private static final double DUPLICATE_THRESHOLD = 0.8;
+
     // 索引基本路径
     private final Path indexBasePath;
 
+    // 调优参数（子索引写入配置、查询结果数上限）
+    private final TuningProfile profile;
+
     // 解析后的项目结构
     private ParsedProjectStructure projectStructure;
 
@@ -63,8 +79,8 @@ public class SemanticAnalyzer {
     // 数据流分析器
     private final DataFlowAnalyzer dataFlowAnalyzer = new DataFlowAnalyzer();
 
-    // 代码相似度分析器
-    private final CodeSimilarityAnalyzer similarityAnalyzer = new CodeSimilarityAnalyzer();
+    // 代码相似度分析器，LSH参数取自调优参数
+    private final CodeSimilarityAnalyzer similarityAnalyzer;
 
     // 概念提取器
     private final ConceptExtractor conceptExtractor = new ConceptExtractor();
@@ -72,12 +88,51 @@ public class SemanticAnalyzer {
     // 代码质量分析器
     private final CodeQualityAnalyzer qualityAnalyzer = new CodeQualityAnalyzer();
 
+    // 子索引名称 -> 已打开的索引
+    private final Map<String, ManagedIndex> managedIndexes = new ConcurrentHashMap<>();
+
+    // 是否已关闭
+    private volatile boolean closed = false;
+    // 正在执行的索引查询数，关闭后等其归零再释放子索引
+    private final AtomicInteger activeQueries = new AtomicInteger();
+    // 子索引是否已释放
+    private boolean released = false;
+
+    // 查询耗时统计，按接口区分操作类型
+    private volatile PerformanceMonitor performanceMonitor = new PerformanceMonitor();
+
     /**
      * 初始化语义分析器
      * @param indexPath 索引存储路径
      */
     public SemanticAnalyzer(String indexPath) {
+        this(indexPath, new TuningProfile());
+    }
+
+    /**
+     * 初始化语义分析器
+     * @param indexPath 索引存储路径
+     * @param profile 调优参数
+     */
+    public SemanticAnalyzer(String indexPath, TuningProfile profile) {
         this.indexBasePath = Paths.get(indexPath);
+        this.profile = profile;
+        this.similarityAnalyzer = new CodeSimilarityAnalyzer(profile.getSimilarityBands(),
+                profile.getSimilarityRowsPerBand(), CodeSimilarityAnalyzer.DEFAULT_SHINGLE_SIZE);
+    }
+
+    /**
+     * 设置查询耗时统计使用的性能监控器，默认每个语义分析器单独统计
+     */
+    public void setPerformanceMonitor(PerformanceMonitor performanceMonitor) {
+        this.performanceMonitor = performanceMonitor;
+    }
+
+    /**
+     * 获取性能监控器
+     */
+    public PerformanceMonitor getPerformanceMonitor() {
+        return performanceMonitor;
     }
 
     /**
@@ -87,20 +142,21 @@ public class SemanticAnalyzer {
     public void analyzeProject(ParsedProjectStructure projectStructure) throws IOException {
         this.projectStructure = projectStructure;
 
+        // 各阶段耗时记录为semantic.stage.*
         // 1. 构建方法调用图
-        buildCallGraph();
+        performanceMonitor.run("semantic.stage.callgraph", this::buildCallGraph);
 
         // 2. 执行数据流分析
-        analyzeDataFlow();
+        performanceMonitor.run("semantic.stage.dataflow", this::analyzeDataFlow);
 
         // 3. 分析代码相似度
-        analyzeCodeSimilarity();
+        performanceMonitor.run("semantic.stage.similarity", this::analyzeCodeSimilarity);
 
         // 4. 提取概念关键字
-        extractConcepts();
+        performanceMonitor.run("semantic.stage.concepts", this::extractConcepts);
 
         // 5. 分析代码质量
-        analyzeCodeQuality();
+        performanceMonitor.run("semantic.stage.quality", this::analyzeCodeQuality);
 
         logger.info("项目语义分析完成");
     }
@@ -116,16 +172,19 @@ public class SemanticAnalyzer {
                 .filter(entity -> entity.getType().toString().equals("METHOD"))
                 .collect(Collectors.toList());
 
+        // 预先构建方法查找表，避免每个调用点都遍历全部实体
+        MethodResolver methodResolver = new MethodResolver(projectStructure.getEntities());
+
         // 为每个方法构建调用关系
         for (CodeEntity methodEntity : methodEntities) {
             String methodId = methodEntity.getParentName() + "#" + methodEntity.getName();
             Set<String> calledMethods = methodEntity.getMethodCalls();
 
             for (String calledMethod : calledMethods) {
-                // 尝试查找被调用方法的全限定名
-                String fullCalledMethodId = resolveMethodCall(methodEntity, calledMethod);
-                // 简化处理，实际应从符号表解析
-                callGraph.addCall(methodId, fullCalledMethodId);
+                // 解析被调用方法的声明类，同名方法的不同调用点可能对应多个目标
+                for (String fullCalledMethodId : methodResolver.resolve(methodEntity, calledMethod)) {
+                    callGraph.addCall(methodId, fullCalledMethodId);
+                }
             }
         }
 
@@ -133,40 +192,7 @@ public class SemanticAnalyzer {
         saveCallGraphIndex();
 
         logger.info("方法调用图构建完成，共 {} 个方法节点和 {} 个调用边",
-                callGraph.getNodes().size(), callGraph.getEdgeCount());
-    }
-
-    // 尝试解析方法调用的全限定名
-    private String resolveMethodCall(CodeEntity caller, String calledMethodName) {
-        // 1. 首先查找同一类中的方法
-        String callerClass = caller.getParentName();
-
-        // 遍历所有方法实体，寻找匹配的方法
-        for (CodeEntity entity : projectStructure.getEntities()) {
-            if (entity.getType().toString().equals("METHOD") &&
-                    entity.getName().equals(calledMethodName)) {
-
-                // 返回格式：ClassName#methodName
-                return entity.getParentName() + "#" + calledMethodName;
-            }
-        }
-
-        // 2. 如果找不到完整匹配，至少保留类名信息（如果存在）
-        // 查找是否有引用的字段类型
-        for (CodeEntity entity : projectStructure.getEntities()) {
-            if (entity.getType().toString().equals("FIELD") &&
-                    entity.getParentName().equals(callerClass)) {
-
-                String fieldType = entity.getFieldType();
-                // 如果找到匹配的字段类型，使用该类型作为前缀
-                if (fieldType != null && !fieldType.isEmpty()) {
-                    return fieldType + "#" + calledMethodName;
-                }
-            }
-        }
-
-        // 3. 如果无法解析，使用原始名称
-        return calledMethodName;
+                callGraph.getMethodCount(), callGraph.getEdgeCount());
     }
 
     /**
@@ -205,9 +231,9 @@ public class SemanticAnalyzer {
         }
 
         // 基于调用图连接数据流
-        for (CallGraphNode caller : callGraph.getNodes().values()) {
-            for (String callee : caller.getCallees()) {
-                dataFlowAnalyzer.connectNodes(caller.getMethodId(), callee);
+        for (String caller : callGraph.getMethodIds()) {
+            for (String callee : callGraph.getCallees(caller)) {
+                dataFlowAnalyzer.connectNodes(caller, callee);
             }
         }
 
@@ -228,24 +254,63 @@ public class SemanticAnalyzer {
                 .filter(ir -> ir.getType().equals("METHOD"))
                 .collect(Collectors.toList());
 
-        // 为每个方法计算特征向量
+        // 为每个方法计算特征向量，按IR ID区分重载方法
+        Map<String, String> methodKeys = new HashMap<>();
         for (IntermediateRepresentation ir : methodIRs) {
             // 计算方法特征向量
-            similarityAnalyzer.computeFeatureVector(ir.getId(), ir.getText());
+            similarityAnalyzer.computeFeatureVector(ir.getId(), buildSimilarityText(ir));
+            methodKeys.put(ir.getId(), ir.getAttribute("className") + "#" + ir.getName());
         }
 
-        // 计算方法间相似度
-        similarityAnalyzer.computeSimilarities();
+        // 通过LSH候选对计算方法间相似度，只保留80%以上的方法对
+        similarityAnalyzer.computeSimilarities(DUPLICATE_THRESHOLD);
+        if (similarityAnalyzer.getOversizedBucketCount() > 0) {
+            logger.warn("{} 个LSH桶超过上限，桶内方法只与签名相邻的方法比较，跳过 {} 个方法对",
+                    similarityAnalyzer.getOversizedBucketCount(), similarityAnalyzer.getSkippedPairCount());
+        }
 
         // 检测可能的重复代码
-        List<CodeSimilarityPair> duplicates = similarityAnalyzer.findPotentialDuplicates(0.8); // 80%相似度阈值
+        List<CodeSimilarityPair> duplicates = similarityAnalyzer.findPotentialDuplicates(DUPLICATE_THRESHOLD);
 
         // 保存相似度分析结果
-        saveSimilarityIndex(duplicates);
+        saveSimilarityIndex(duplicates, methodKeys);
 
         logger.info("代码相似度分析完成，发现 {} 对潜在重复代码", duplicates.size());
     }
 
+    /**
+     * 构建用于相似度比较的方法文本
+     * 只保留参数类型，不包含参数名，仅参数重命名的方法仍视为相似
+     */
+    @SuppressWarnings("unchecked")
+    private String buildSimilarityText(IntermediateRepresentation ir) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(ir.getName()).append(" ");
+
+        Object returnType = ir.getAttribute("returnType");
+        if (returnType != null) {
+            sb.append(returnType).append(" ");
+        }
+
+        Object parameters = ir.getAttribute("parameters");
+        if (parameters instanceof Map) {
+            new TreeMap<>((Map<String, String>)parameters).values()
+                    .forEach(type -> sb.append(type).append(" "));
+        }
+
+        Object methodCalls = ir.getAttribute("methodCalls");
+        if (methodCalls instanceof Collection) {
+            ((Collection<String>)methodCalls).forEach(call -> sb.append(call).append(" "));
+        }
+
+        Object javadoc = ir.getAttribute("javadoc");
+        if (javadoc != null) {
+            sb.append(javadoc);
+        }
+
+        return sb.toString();
+    }
+
     /**
      * 提取概念关键字
      */
@@ -309,18 +374,18 @@ public class SemanticAnalyzer {
         Path indexPath = indexBasePath.resolve(CALL_GRAPH_INDEX);
 
         try (Directory directory = FSDirectory.open(indexPath)) {
-            Analyzer analyzer = new StandardAnalyzer();
-            IndexWriterConfig config = new IndexWriterConfig(analyzer);
+            Analyzer analyzer = new CodeIdentifierAnalyzer(true);
+            IndexWriterConfig config = profile.applyTo(new IndexWriterConfig(analyzer));
             config.setOpenMode(IndexWriterConfig.OpenMode.CREATE);
 
             try (IndexWriter writer = new IndexWriter(directory, config)) {
                 // 为每个调用关系创建索引文档
-                for (CallGraphNode node : callGraph.getNodes().values()) {
-                    for (String callee : node.getCallees()) {
+                for (String caller : callGraph.getMethodIds()) {
+                    for (String callee : callGraph.getCallees(caller)) {
                         Document doc = new Document();
-                        doc.add(new StringField("caller", node.getMethodId(), Field.Store.YES));
+                        doc.add(new StringField("caller", caller, Field.Store.YES));
                         doc.add(new StringField("callee", callee, Field.Store.YES));
-                        doc.add(new TextField("callInfo", node.getMethodId() + " calls " + callee, Field.Store.NO));
+                        doc.add(new TextField("callInfo", caller + " calls " + callee, Field.Store.NO));
 
                         writer.addDocument(doc);
                     }
@@ -329,6 +394,9 @@ public class SemanticAnalyzer {
                 writer.commit();
             }
         }
+
+        // 让已打开的searcher看到新写入的内容
+        refreshSearcher(CALL_GRAPH_INDEX);
     }
 
     /**
@@ -338,8 +406,8 @@ public class SemanticAnalyzer {
         Path indexPath = indexBasePath.resolve(DATA_FLOW_INDEX);
 
         try (Directory directory = FSDirectory.open(indexPath)) {
-            Analyzer analyzer = new StandardAnalyzer();
-            IndexWriterConfig config = new IndexWriterConfig(analyzer);
+            Analyzer analyzer = new CodeIdentifierAnalyzer(true);
+            IndexWriterConfig config = profile.applyTo(new IndexWriterConfig(analyzer));
             config.setOpenMode(IndexWriterConfig.OpenMode.CREATE);
 
             try (IndexWriter writer = new IndexWriter(directory, config)) {
@@ -377,17 +445,22 @@ public class SemanticAnalyzer {
                 writer.commit();
             }
         }
+
+        // 让已打开的searcher看到新写入的内容
+        refreshSearcher(DATA_FLOW_INDEX);
     }
 
     /**
      * 保存相似度索引
+     * 方法以IR ID（pkg.Class#m(int,String)）存储，同时存储调用图使用的Class#m形式，两种ID都可以查询
+     * @param methodKeys IR ID -> Class#m
      */
-    private void saveSimilarityIndex(List<CodeSimilarityPair> pairs) throws IOException {
+    private void saveSimilarityIndex(List<CodeSimilarityPair> pairs, Map<String, String> methodKeys) throws IOException {
         Path indexPath = indexBasePath.resolve(CODE_SIMILARITY_INDEX);
 
         try (Directory directory = FSDirectory.open(indexPath)) {
-            Analyzer analyzer = new StandardAnalyzer();
-            IndexWriterConfig config = new IndexWriterConfig(analyzer);
+            Analyzer analyzer = new CodeIdentifierAnalyzer(true);
+            IndexWriterConfig config = profile.applyTo(new IndexWriterConfig(analyzer));
             config.setOpenMode(IndexWriterConfig.OpenMode.CREATE);
 
             try (IndexWriter writer = new IndexWriter(directory, config)) {
@@ -396,6 +469,8 @@ public class SemanticAnalyzer {
                     Document doc = new Document();
                     doc.add(new StringField("method1", pair.getMethod1Id(), Field.Store.YES));
                     doc.add(new StringField("method2", pair.getMethod2Id(), Field.Store.YES));
+                    doc.add(new StringField("methodKey1", methodKeys.get(pair.getMethod1Id()), Field.Store.YES));
+                    doc.add(new StringField("methodKey2", methodKeys.get(pair.getMethod2Id()), Field.Store.YES));
                     doc.add(new StringField("similarity", String.valueOf(pair.getSimilarity()), Field.Store.YES));
 
                     // 可以用于文本搜索的字段
@@ -410,6 +485,9 @@ public class SemanticAnalyzer {
                 writer.commit();
             }
         }
+
+        // 让已打开的searcher看到新写入的内容
+        refreshSearcher(CODE_SIMILARITY_INDEX);
     }
 
     /**
@@ -419,8 +497,8 @@ public class SemanticAnalyzer {
         Path indexPath = indexBasePath.resolve(CONCEPT_INDEX);
 
         try (Directory directory = FSDirectory.open(indexPath)) {
-            Analyzer analyzer = new StandardAnalyzer();
-            IndexWriterConfig config = new IndexWriterConfig(analyzer);
+            Analyzer analyzer = new CodeIdentifierAnalyzer(true);
+            IndexWriterConfig config = profile.applyTo(new IndexWriterConfig(analyzer));
             config.setOpenMode(IndexWriterConfig.OpenMode.CREATE);
 
             try (IndexWriter writer = new IndexWriter(directory, config)) {
@@ -453,86 +531,142 @@ public class SemanticAnalyzer {
                 writer.commit();
             }
         }
+
+        // 让已打开的searcher看到新写入的内容
+        refreshSearcher(CONCEPT_INDEX);
+    }
+
+    /**
+     * 将方法ID转换为调用图、数据流和质量检查使用的类名#方法名
+     * 搜索结果中的IR ID（包名.类名#方法名(参数类型,...)）去掉包名和参数签名，调用图不区分重载；
+     * 已经是类名#方法名的ID以及非方法ID原样返回
+     */
+    public static String toMethodKey(String methodId) {
+        int hash = methodId.indexOf('#');
+        if (hash < 0) {
+            return methodId;
+        }
+        int paren = methodId.indexOf('(', hash);
+        String methodName = paren < 0 ? methodId.substring(hash + 1) : methodId.substring(hash + 1, paren);
+        return methodId.substring(methodId.lastIndexOf('.', hash) + 1, hash) + "#" + methodName;
     }
 
     /**
      * 查询与某个方法相关的方法调用
-     * @param methodId 方法ID
+     * @param methodId 方法ID，类名#方法名或IR ID
      * @param direction 方向（"callers"或"callees"）
-     * @return 相关方法列表
+     * @return 相关方法列表（类名#方法名）
      */
     public List<String> findRelatedMethods(String methodId, String direction) throws Exception {
-        Path indexPath = indexBasePath.resolve(CALL_GRAPH_INDEX);
-        List<String> result = new ArrayList<>();
-
-        try (Directory directory = FSDirectory.open(indexPath);
-             IndexReader reader = DirectoryReader.open(directory)) {
-
-            IndexSearcher searcher = new IndexSearcher(reader);
-            QueryParser parser = new QueryParser("callInfo", new StandardAnalyzer());
-
+        String methodKey = toMethodKey(methodId);
+        return performanceMonitor.time("semantic.calls", () -> {
             // 根据方向确定查询字段
             String field = direction.equals("callers") ? "callee" : "caller";
             String returnField = direction.equals("callers") ? "caller" : "callee";
 
-            Query query = parser.parse(field + ":" + QueryParser.escape(methodId));
-            TopDocs docs = searcher.search(query, 100);
+            // 方法ID存储为不分词的StringField，使用精确匹配
+            Query query = new TermQuery(new Term(field, methodKey));
 
-            // 处理结果
-            for (ScoreDoc scoreDoc : docs.scoreDocs) {
-                Document doc = searcher.doc(scoreDoc.doc);
-                result.add(doc.get(returnField));
-            }
-        }
+            return search(CALL_GRAPH_INDEX, searcher -> {
+                List<String> result = new ArrayList<>();
+                TopDocs docs = searcher.search(query, profile.getMaxQueryResults());
+
+                // 处理结果
+                for (ScoreDoc scoreDoc : docs.scoreDocs) {
+                    Document doc = searcher.doc(scoreDoc.doc);
+                    result.add(doc.get(returnField));
+                }
+                return result;
+            });
+        });
+    }
 
-        return result;
+    /**
+     * 在内存调用图中查询k跳以内的相关方法
+     * @param methodId 方法ID，类名#方法名或IR ID
+     * @param direction 方向（"callers"或"callees"）
+     * @param maxDepth 最大跳数，小于等于0表示查询全部传递调用
+     * @return 方法ID -> 跳数
+     */
+    public Map<String, Integer> findCallNeighborhood(String methodId, String direction, int maxDepth) {
+        return performanceMonitor.time("semantic.callgraph",
+                () -> callGraph.getNeighborhood(toMethodKey(methodId), CallDirection.fromString(direction), maxDepth));
+    }
+
+    /**
+     * 查询两个方法之间的最短调用路径
+     * @return 调用路径，不可达时为空
+     */
+    public List<String> findCallPath(String fromMethodId, String toMethodId) {
+        return performanceMonitor.time("semantic.callgraph.path",
+                () -> callGraph.findShortestPath(toMethodKey(fromMethodId), toMethodKey(toMethodId)));
+    }
+
+    /**
+     * 查询从入口方法出发可达的全部方法
+     */
+    public Set<String> findReachableMethods(Collection<String> entryPoints) {
+        List<String> methodKeys = entryPoints.stream()
+                .map(SemanticAnalyzer::toMethodKey)
+                .collect(Collectors.toList());
+        return performanceMonitor.time("semantic.callgraph.reachable", () -> callGraph.findReachable(methodKeys));
     }
 
     /**
      * 查询数据流
-     * @param methodId 方法ID
+     * @param methodId 方法ID，类名#方法名或IR ID
      * @return 数据流节点
      */
     public DataFlowNode findDataFlowNode(String methodId) throws Exception {
-        return dataFlowAnalyzer.getNode(methodId);
+        return performanceMonitor.time("semantic.dataflow", () -> dataFlowAnalyzer.getNode(toMethodKey(methodId)));
     }
 
     /**
      * 查询相似方法
-     * @param methodId 方法ID
+     * @param methodId 方法ID，可以是IR ID（只匹配该重载），也可以是调用图中的Class#m（匹配全部重载）
      * @param minSimilarity 最小相似度
-     * @return 相似方法列表
+     * @return 相似方法列表，method1Id为查询的方法，两个ID与查询使用同一种形式
      */
     public List<CodeSimilarityPair> findSimilarMethods(String methodId, double minSimilarity) throws Exception {
-        Path indexPath = indexBasePath.resolve(CODE_SIMILARITY_INDEX);
-        List<CodeSimilarityPair> result = new ArrayList<>();
-
-        try (Directory directory = FSDirectory.open(indexPath);
-             IndexReader reader = DirectoryReader.open(directory)) {
-
-            IndexSearcher searcher = new IndexSearcher(reader);
-            QueryParser parser = new QueryParser("info", new StandardAnalyzer());
-
+        return performanceMonitor.time("semantic.similar", () -> {
             // 构建查询
-            Query query = parser.parse("method1:" + QueryParser.escape(methodId) +
-                    " OR method2:" + QueryParser.escape(methodId));
-            TopDocs docs = searcher.search(query, 100);
-
-            // 处理结果
-            for (ScoreDoc scoreDoc : docs.scoreDocs) {
-                Document doc = searcher.doc(scoreDoc.doc);
-                String method1 = doc.get("method1");
-                String method2 = doc.get("method2");
-                double similarity = Double.parseDouble(doc.get("similarity"));
-
-                if (similarity >= minSimilarity) {
-                    String otherMethod = method1.equals(methodId) ? method2 : method1;
-                    result.add(new CodeSimilarityPair(methodId, otherMethod, similarity));
+            Query query = new BooleanQuery.Builder()
+                    .add(new TermQuery(new Term("method1", methodId)), BooleanClause.Occur.SHOULD)
+                    .add(new TermQuery(new Term("method2", methodId)), BooleanClause.Occur.SHOULD)
+                    .add(new TermQuery(new Term("methodKey1", methodId)), BooleanClause.Occur.SHOULD)
+                    .add(new TermQuery(new Term("methodKey2", methodId)), BooleanClause.Occur.SHOULD)
+                    .build();
+
+            return search(CODE_SIMILARITY_INDEX, searcher -> {
+                List<CodeSimilarityPair> result = new ArrayList<>();
+                TopDocs docs = searcher.search(query, profile.getMaxQueryResults());
+
+                // 处理结果
+                for (ScoreDoc scoreDoc : docs.scoreDocs) {
+                    Document doc = searcher.doc(scoreDoc.doc);
+                    String method1 = doc.get("method1");
+                    String method2 = doc.get("method2");
+                    String methodKey1 = doc.get("methodKey1");
+                    String methodKey2 = doc.get("methodKey2");
+                    double similarity = Double.parseDouble(doc.get("similarity"));
+
+                    if (similarity < minSimilarity) {
+                        continue;
+                    }
+                    if (method1.equals(methodId)) {
+                        result.add(new CodeSimilarityPair(method1, method2, similarity));
+                    } else if (method2.equals(methodId)) {
+                        result.add(new CodeSimilarityPair(method2, method1, similarity));
+                    } else if (methodKey1.equals(methodId)) {
+                        // 按类名#方法名查询时返回同样形式的ID，可以直接传给调用图查询
+                        result.add(new CodeSimilarityPair(methodKey1, methodKey2, similarity));
+                    } else {
+                        result.add(new CodeSimilarityPair(methodKey2, methodKey1, similarity));
+                    }
                 }
-            }
-        }
-
-        return result;
+                return result;
+            });
+        });
     }
 
     /**
@@ -541,49 +675,179 @@ public class SemanticAnalyzer {
      * @return 相关实体列表
      */
     public List<ConceptEntityResult> findEntitiesByConcept(String concept) throws Exception {
-        Path indexPath = indexBasePath.resolve(CONCEPT_INDEX);
-        List<ConceptEntityResult> result = new ArrayList<>();
+        return performanceMonitor.time("semantic.concepts", () -> {
+            // 构建查询
+            Query query = new TermQuery(new Term("concept", concept));
 
-        try (Directory directory = FSDirectory.open(indexPath);
-             IndexReader reader = DirectoryReader.open(directory)) {
+            return search(CONCEPT_INDEX, searcher -> {
+                List<ConceptEntityResult> result = new ArrayList<>();
+                TopDocs docs = searcher.search(query, profile.getMaxQueryResults());
 
-            IndexSearcher searcher = new IndexSearcher(reader);
-            QueryParser parser = new QueryParser("concept", new StandardAnalyzer());
+                // 处理结果
+                if (docs.scoreDocs.length > 0) {
+                    Document doc = searcher.doc(docs.scoreDocs[0].doc);
 
-            // 构建查询
-            Query query = parser.parse("concept:" + QueryParser.escape(concept));
-            TopDocs docs = searcher.search(query, 100);
+                    // 获取所有实体ID
+                    String[] entityIds = doc.getValues("entityId");
+                    String[] sources = doc.getValues("source");
 
-            // 处理结果
-            if (docs.scoreDocs.length > 0) {
-                Document doc = searcher.doc(docs.scoreDocs[0].doc);
+                    for (int i = 0; i < entityIds.length; i++) {
+                        ConceptSource source = ConceptSource.valueOf(sources[i]);
+                        result.add(new ConceptEntityResult(entityIds[i], concept, source));
+                    }
+                }
+                return result;
+            });
+        });
+    }
 
-                // 获取所有实体ID
-                String[] entityIds = doc.getValues("entityId");
-                String[] sources = doc.getValues("source");
+    /**
+     * 获取代码质量问题
+     * @param entityId 实体ID（可选，为null则返回所有问题）
+     * @return 质量问题列表
+     */
+    public List<QualityIssue> getQualityIssues(String entityId) {
+        return performanceMonitor.time("semantic.quality", () -> {
+            if (entityId == null) {
+                return qualityAnalyzer.getIssues();
+            } else {
+                String methodKey = toMethodKey(entityId);
+                return qualityAnalyzer.getIssues().stream()
+                        .filter(issue -> issue.getEntityId().equals(methodKey))
+                        .collect(Collectors.toList());
+            }
+        });
+    }
 
-                for (int i = 0; i < entityIds.length; i++) {
-                    ConceptSource source = ConceptSource.valueOf(sources[i]);
-                    result.add(new ConceptEntityResult(entityIds[i], concept, source));
+    /**
+     * 在子索引上执行查询，searcher在查询期间被引用，结束后释放
+     * 关闭前已开始的查询正常完成，关闭后开始的查询抛出IllegalStateException
+     */
+    private <T> T search(String indexName, SearchFunction<T> function) throws IOException {
+        activeQueries.incrementAndGet();
+        try {
+            if (closed) {
+                throw new IllegalStateException("语义分析器已关闭");
+            }
+            SearcherManager manager = getManagedIndex(indexName).searcherManager;
+            IndexSearcher searcher = manager.acquire();
+            try {
+                return function.apply(searcher);
+            } finally {
+                manager.release(searcher);
+            }
+        } finally {
+            // 关闭后最后一个结束的查询负责释放子索引
+            if (activeQueries.decrementAndGet() == 0 && closed) {
+                try {
+                    releaseIndexes();
+                } catch (IOException e) {
+                    // 查询本身已经完成，释放失败不影响其结果
+                    logger.warn("关闭语义子索引失败: {}", e.getMessage());
                 }
             }
         }
+    }
 
-        return result;
+    /**
+     * 获取子索引，首次查询时打开
+     */
+    private ManagedIndex getManagedIndex(String indexName) throws IOException {
+        ManagedIndex index = managedIndexes.get(indexName);
+        if (index != null) {
+            return index;
+        }
+
+        synchronized (managedIndexes) {
+            if (closed) {
+                throw new IllegalStateException("语义分析器已关闭");
+            }
+
+            index = managedIndexes.get(indexName);
+            if (index == null) {
+                index = new ManagedIndex(FSDirectory.open(indexBasePath.resolve(indexName)));
+                managedIndexes.put(indexName, index);
+            }
+            return index;
+        }
     }
 
     /**
-     * 获取代码质量问题
-     * @param entityId 实体ID（可选，为null则返回所有问题）
-     * @return 质量问题列表
+     * 子索引重新写入后刷新searcher，尚未打开的子索引无需处理
      */
-    public List<QualityIssue> getQualityIssues(String entityId) {
-        if (entityId == null) {
-            return qualityAnalyzer.getIssues();
-        } else {
-            return qualityAnalyzer.getIssues().stream()
-                    .filter(issue -> issue.getEntityId().equals(entityId))
-                    .collect(Collectors.toList());
+    private void refreshSearcher(String indexName) throws IOException {
+        ManagedIndex index = managedIndexes.get(indexName);
+        if (index != null) {
+            index.searcherManager.maybeRefreshBlocking();
+        }
+    }
+
+    /**
+     * 关闭语义分析器，之后开始的查询被拒绝
+     * 没有正在执行的查询时立即释放子索引，否则由最后一个结束的查询释放
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        if (activeQueries.get() == 0) {
+            releaseIndexes();
+        }
+    }
+
+    /**
+     * 是否已关闭
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * 关闭所有子索引，只执行一次
+     */
+    private void releaseIndexes() throws IOException {
+        synchronized (managedIndexes) {
+            if (released) {
+                return;
+            }
+            released = true;
+            for (ManagedIndex index : managedIndexes.values()) {
+                index.close();
+            }
+            managedIndexes.clear();
+        }
+    }
+
+    /**
+     * 在searcher上执行的查询
+     */
+    private interface SearchFunction<T> {
+        T apply(IndexSearcher searcher) throws IOException;
+    }
+
+    /**
+     * 已打开的子索引
+     */
+    private static class ManagedIndex implements Closeable {
+        private final Directory directory;
+        private final SearcherManager searcherManager;
+
+        ManagedIndex(Directory directory) throws IOException {
+            this.directory = directory;
+            try {
+                this.searcherManager = new SearcherManager(directory, null);
+            } catch (IOException e) {
+                directory.close();
+                throw e;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                searcherManager.close();
+            } finally {
+                directory.close();
+            }
         }
     }
-}
\ No newline at end of file
+}
@@ -1,5 +1,6 @@
 package com.codeanalyzer.ast;
 
+import com.codeanalyzer.corpus.SyntheticCorpusGenerator;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -9,6 +10,7 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Set;
 
 import static com.codeanalyzer.ast.Utils.writeString;
@@ -137,6 +139,163 @@ class ASTParserTest {
         assertTrue(foundRelationship, "应该找到Child类继承Parent的关系");
     }
 
+    @Test
+    void testParallelParsingIsDeterministic() throws IOException {
+        // 创建多个文件，保证并行解析时有多个任务同时执行
+        for (int i = 0; i < 20; i++) {
+            writeString(tempDir.resolve("Worker" + i + ".java"),
+                    "public class Worker" + i + " {\n" +
+                            "    private int count;\n" +
+                            "    public void run" + i + "() {\n" +
+                            "        count++;\n" +
+                            "    }\n" +
+                            "}\n");
+        }
+
+        // 解析两次
+        ParsedProjectStructure first = parser.parseProject(tempDir);
+        ParsedProjectStructure second = parser.parseProject(tempDir);
+
+        // 每个文件包含类、字段、方法三个实体
+        assertEquals(60, first.getEntities().size());
+
+        // 两次解析的实体顺序应该完全一致
+        assertEquals(first.getEntities().size(), second.getEntities().size());
+        for (int i = 0; i < first.getEntities().size(); i++) {
+            assertEquals(first.getEntities().get(i).getName(), second.getEntities().get(i).getName());
+        }
+    }
+
+    @Test
+    void testSameNamedMethodsLinkedToOwnClass() throws IOException {
+        // 两个类中存在同名方法，分别调用不同的方法
+        writeString(tempDir.resolve("First.java"),
+                "public class First {\n" +
+                        "    public void run() { start(); }\n" +
+                        "    public void start() {}\n" +
+                        "}\n");
+        writeString(tempDir.resolve("Second.java"),
+                "public class Second {\n" +
+                        "    public void run() { stop(); }\n" +
+                        "    public void stop() {}\n" +
+                        "}\n");
+
+        ParsedProjectStructure structure = parser.parseProject(tempDir);
+
+        // 每个run方法只应关联自己的调用
+        Set<String> firstCalls = structure.getIrById("First#run()").getRelationship("CALLS");
+        Set<String> secondCalls = structure.getIrById("Second#run()").getRelationship("CALLS");
+        assertEquals(1, firstCalls.size());
+        assertTrue(firstCalls.contains("start"));
+        assertEquals(1, secondCalls.size());
+        assertTrue(secondCalls.contains("stop"));
+
+        // 按简单名称可以找到所有同名方法
+        assertEquals(2, structure.findIrsByName("run").size());
+    }
+
+    @Test
+    void testOverloadsAndPackagesHaveDistinctIds() throws IOException {
+        // 同一个类中的重载方法，以及不同包中同名类的同名方法
+        Files.createDirectories(tempDir.resolve("a"));
+        Files.createDirectories(tempDir.resolve("b"));
+        writeString(tempDir.resolve("a/Service.java"),
+                "package a;\n" +
+                        "public class Service {\n" +
+                        "    public void handle(int id) {}\n" +
+                        "    public void handle(int id, String name) {}\n" +
+                        "    public void handle(String... names) {}\n" +
+                        "}\n");
+        writeString(tempDir.resolve("b/Service.java"),
+                "package b;\n" +
+                        "public class Service {\n" +
+                        "    public void handle(int id) {}\n" +
+                        "}\n");
+
+        ParsedProjectStructure structure = parser.parseProject(tempDir);
+
+        assertNotNull(structure.getIrById("a.Service"), "类ID应包含包名");
+        assertNotNull(structure.getIrById("a.Service#handle(int)"));
+        assertNotNull(structure.getIrById("a.Service#handle(int,String)"));
+        assertNotNull(structure.getIrById("a.Service#handle(String...)"));
+        assertNotNull(structure.getIrById("b.Service#handle(int)"));
+
+        // 重载方法不会互相覆盖，全部可以按简单名称找到
+        assertEquals(4, structure.findIrsByName("handle").size(), "所有重载方法都应保留");
+        assertEquals(2, structure.findIrsByName("Service").size(), "不同包中的同名类都应保留");
+    }
+
+    @Test
+    void testSyntheticCorpus() throws IOException {
+        // 3个包，每包4个类，每类5个方法，继承链深度2
+        SyntheticCorpusGenerator generator = new SyntheticCorpusGenerator()
+                .packageCount(3)
+                .classesPerPackage(4)
+                .methodsPerClass(5)
+                .callFanOut(2)
+                .inheritanceDepth(2)
+                .javadocRatio(1.0)
+                .duplicateMethodRatio(0.2);
+
+        List<Path> files = generator.generate(tempDir.resolve("first"));
+        assertEquals(12, files.size());
+
+        // 相同参数生成的代码完全一致
+        List<Path> again = generator.generate(tempDir.resolve("second"));
+        for (int i = 0; i < files.size(); i++) {
+            assertArrayEquals(Files.readAllBytes(files.get(i)), Files.readAllBytes(again.get(i)), "生成结果应可复现");
+        }
+
+        ParsedProjectStructure structure = parser.parseProject(tempDir.resolve("first"));
+
+        int classCount = 0;
+        int methodCount = 0;
+        int extendsCount = 0;
+        for (CodeEntity entity : structure.getEntities()) {
+            if (entity.getType() == EntityType.CLASS) {
+                classCount++;
+                if (entity.getRelationships().containsKey(RelationType.EXTENDS)) {
+                    extendsCount++;
+                }
+            } else if (entity.getType() == EntityType.METHOD) {
+                methodCount++;
+                assertFalse(entity.getJavadoc().isEmpty(), "所有方法都应带有JavaDoc");
+            }
+        }
+        assertEquals(12, classCount);
+        assertEquals(60, methodCount);
+        // 每3个类组成一条继承链，链首以外的类都有父类
+        assertEquals(8, extendsCount);
+    }
+
+    @Test
+    void testUnitCacheIsBounded() throws IOException {
+        for (int i = 0; i < 3; i++) {
+            writeString(tempDir.resolve("Cached" + i + ".java"), "public class Cached" + i + " {}\n");
+        }
+
+        // 最多缓存两个编译单元，最早放入的一个被淘汰
+        parser.setUnitCache(CompilationUnitCache.lru(2, Long.MAX_VALUE));
+        parser.parseProject(tempDir);
+
+        CompilationUnitCache.Stats stats = parser.getUnitCacheStats();
+        assertEquals(2, stats.getEntries(), "缓存条目数不应超过上限");
+        assertEquals(1, stats.getEvictions(), "应该淘汰一个编译单元");
+        int cached = 0;
+        for (int i = 0; i < 3; i++) {
+            if (parser.getCachedUnit(tempDir.resolve("Cached" + i + ".java")) != null) {
+                cached++;
+            }
+        }
+        assertEquals(2, cached, "应该能取回两个缓存的编译单元");
+
+        // 关闭缓存后不保留任何编译单元
+        parser.setUnitCache(CompilationUnitCache.off());
+        parser.parseProject(tempDir);
+        assertEquals(0, parser.getUnitCacheStats().getEntries());
+        assertNull(parser.getCachedUnit(tempDir.resolve("Cached2.java")));
+    }
+
     @AfterEach
     void tearDown() {
         parser.shutdown();
@@ -0,0 +1,111 @@
+package com.codeanalyzer.ast;
+
+import com.codeanalyzer.config.CacheManager;
+import com.codeanalyzer.config.CacheManager.RemovalCause;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 缓存管理器测试
+ */
+class CacheManagerTest {
+
+    @Test
+    void testBoundedByEntries() {
+        CacheManager cache = new CacheManager(100, CacheManager.DEFAULT_MAX_WEIGHT);
+        List<RemovalCause> causes = new ArrayList<>();
+        cache.addEvictionListener((key, value, cause) -> causes.add(cause));
+
+        cache.put("hot", "value", 0);
+        for (int i = 0; i < 5; i++) {
+            assertTrue(cache.get("hot").isPresent(), "热点条目应该命中");
+        }
+        for (int i = 0; i < 1000; i++) {
+            cache.put("cold-" + i, "value", 0);
+        }
+
+        assertTrue(cache.size() <= 100, "条目数不应超过上限: " + cache.size());
+        assertTrue(cache.get("hot").isPresent(), "访问频率高的条目不应被只访问一次的条目挤出");
+        assertTrue(cache.getEvictions() > 0, "应该有条目被淘汰");
+        assertTrue(causes.contains(RemovalCause.SIZE), "监听器应该收到淘汰通知");
+
+        cache.setMaximum(10, CacheManager.DEFAULT_MAX_WEIGHT);
+        assertTrue(cache.size() <= 10, "缩小上限后应立即淘汰: " + cache.size());
+    }
+
+    @Test
+    void testBoundedByWeight() {
+        CacheManager cache = new CacheManager(1000, 10_000);
+        for (int i = 0; i < 100; i++) {
+            cache.put("key-" + i, "value", 500, 0);
+        }
+        assertTrue(cache.getWeight() <= 10_000, "估算字节数不应超过上限: " + cache.getWeight());
+
+        cache.put("large", "value", 20_000, 0);
+        assertFalse(cache.get("large").isPresent(), "超过上限的值不应被缓存");
+    }
+
+    @Test
+    void testExpirationAndListener() throws Exception {
+        CacheManager cache = new CacheManager();
+        List<String> removed = new ArrayList<>();
+        cache.addEvictionListener((key, value, cause) -> removed.add(key + ":" + cause));
+
+        cache.put("short", "value", 1);
+        cache.put("long", "value", 0);
+        Thread.sleep(20);
+
+        assertFalse(cache.get("short").isPresent(), "过期条目不应命中");
+        assertEquals("value", cache.<String>get("long").orElse(null), "未过期条目应该命中");
+
+        cache.put("long", "other", 0);
+        cache.remove("long");
+        assertEquals(1, cache.getHits(), "命中次数");
+        assertEquals(1, cache.getMisses(), "未命中次数");
+        assertEquals(0, cache.size(), "缓存应该为空");
+        assertEquals(3, removed.size(), "移除通知: " + removed);
+        assertTrue(removed.contains("short:EXPIRED"), "应该收到过期通知: " + removed);
+        assertTrue(removed.contains("long:REPLACED"), "应该收到替换通知: " + removed);
+        assertTrue(removed.contains("long:EXPLICIT"), "应该收到移除通知: " + removed);
+    }
+
+    @Test
+    void testConcurrentStats() throws Exception {
+        CacheManager cache = new CacheManager(1000, CacheManager.DEFAULT_MAX_WEIGHT);
+        for (int i = 0; i < 100; i++) {
+            cache.put("key-" + i, "value", 0);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 10_000; i++) {
+                        cache.get("key-" + (i % 100));
+                        cache.get("missing-" + (i % 100));
+                        if (i % 100 == 0) {
+                            cache.put("extra-" + i, "value", 0);
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(40_000, cache.getHits(), "并发命中不应丢失计数");
+        assertEquals(40_000, cache.getMisses(), "并发未命中不应丢失计数");
+        assertTrue(cache.size() <= 1000, "条目数不应超过上限");
+    }
+}
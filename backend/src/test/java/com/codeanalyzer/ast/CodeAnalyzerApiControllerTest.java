@@ -26,6 +26,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.List;
+import java.util.Map;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
@@ -187,6 +188,34 @@ class CodeAnalyzerApiControllerTest {
         assertFalse(response.getBody().isEmpty(), "质量问题列表不应为空");
     }
 
+    @Test
+    void testMetrics() {
+        // 先执行一次搜索，产生查询耗时记录
+        restTemplate.exchange(
+                "/api/v1/projects/{projectId}/search?query={query}&level={level}&maxResults={maxResults}",
+                HttpMethod.GET,
+                null,
+                new ParameterizedTypeReference<List<SearchResult>>() {},
+                projectId, "calculator", "METHOD", 10);
+
+        ResponseEntity<Map<String, Object>> response = restTemplate.exchange(
+                "/api/v1/metrics",
+                HttpMethod.GET,
+                null,
+                new ParameterizedTypeReference<Map<String, Object>>() {});
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNotNull(response.getBody());
+        assertTrue(response.getBody().containsKey("heap"), "应该包含堆内存指标");
+        Map<?, ?> projects = (Map<?, ?>)response.getBody().get("projects");
+        assertTrue(projects.containsKey(projectId), "应该包含项目指标");
+
+        ResponseEntity<String> prometheus = restTemplate.getForEntity("/api/v1/metrics/prometheus", String.class);
+        assertEquals(HttpStatus.OK, prometheus.getStatusCode());
+        assertTrue(prometheus.getBody().contains(
+                "codeanalyzer_operation_duration_seconds_count{project=\"" + projectId + "\",operation=\"search.method\"}"),
+                "应该包含搜索耗时指标");
+    }
+
     @AfterEach
     void tearDown() {
         // 删除项目
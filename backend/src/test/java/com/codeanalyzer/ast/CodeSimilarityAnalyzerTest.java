@@ -0,0 +1,99 @@
+package com.codeanalyzer.ast;
+
+import com.codeanalyzer.semantic.CodeSimilarityAnalyzer;
+import com.codeanalyzer.semantic.CodeSimilarityPair;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 代码相似度分析器测试
+ */
+class CodeSimilarityAnalyzerTest {
+
+    @Test
+    void testCandidatesAndThreshold() {
+        CodeSimilarityAnalyzer analyzer = new CodeSimilarityAnalyzer();
+        analyzer.computeFeatureVector("A#add(int,int)", "add int int int calculate sum of two numbers");
+        analyzer.computeFeatureVector("B#add(int,int)", "add int int int calculate sum of two values");
+        analyzer.computeFeatureVector("C#open(String)", "open connection string connect to database server");
+        analyzer.computeSimilarities(0.5);
+
+        List<CodeSimilarityPair> pairs = analyzer.findPotentialDuplicates(0.5);
+        assertEquals(1, pairs.size(), "只有两个add方法应成为相似对: " + pairs.size());
+        assertEquals("A#add(int,int)", pairs.get(0).getMethod1Id());
+        assertEquals("B#add(int,int)", pairs.get(0).getMethod2Id());
+        assertTrue(pairs.get(0).getSimilarity() < 1.0, "不完全相同的方法相似度应小于1");
+
+        // 更高的阈值过滤掉不够相似的方法对
+        assertTrue(analyzer.findPotentialDuplicates(0.99).isEmpty(), "阈值以下的方法对应被过滤");
+        assertEquals(0, analyzer.getOversizedBucketCount(), "小项目不应出现超大桶");
+    }
+
+    @Test
+    void testDefaultBandingMatchesDuplicateThreshold() {
+        // 默认参数的候选阈值接近重复阈值：接近重复的方法成为候选，只共享少量词的方法不会
+        CodeSimilarityAnalyzer analyzer = new CodeSimilarityAnalyzer();
+        analyzer.computeFeatureVector("A#save(User)", "save user entity to repository and flush changes now");
+        analyzer.computeFeatureVector("B#save(User)", "save user entity to repository and flush changes later");
+        analyzer.computeFeatureVector("C#cache(User)", "save user entity to remote cache then evict entries");
+        analyzer.computeSimilarities(0.0);
+
+        List<CodeSimilarityPair> pairs = analyzer.findPotentialDuplicates(0.0);
+        assertEquals(1, pairs.size(), "只有接近重复的方法对应成为候选: " + pairs.size());
+        assertEquals("A#save(User)", pairs.get(0).getMethod1Id());
+        assertEquals("B#save(User)", pairs.get(0).getMethod2Id());
+    }
+
+    @Test
+    void testVectorScoring() {
+        CodeSimilarityAnalyzer analyzer = new CodeSimilarityAnalyzer();
+        analyzer.computeFeatureVector("same1", "load user profile cache");
+        analyzer.computeFeatureVector("same2", "load user profile cache");
+        analyzer.computeFeatureVector("disjoint", "render chart axis legend");
+        analyzer.computeFeatureVector("common1", "user alpha");
+        analyzer.computeFeatureVector("common2", "user beta");
+        analyzer.computeSimilarities(0.8);
+
+        assertEquals(1.0, analyzer.similarity("same1", "same2"), 1e-6, "相同文本的相似度应为1");
+        assertEquals(0.0, analyzer.similarity("same1", "disjoint"), 1e-9, "词表不相交的相似度应为0");
+
+        // 只共享一个词：按词表对齐后只有共同的词参与点积
+        double shared = analyzer.similarity("common1", "common2");
+        assertTrue(shared > 0 && shared < 1, "部分重叠的相似度应在0和1之间: " + shared);
+        // user出现在多个方法中，IDF权重较低，相似度低于不加权时的0.5
+        assertTrue(shared < 0.5, "常见词应被IDF降权: " + shared);
+    }
+
+    @Test
+    void testOversizedBucketStillReportsClones() {
+        // 大量完全相同的样板方法会落入同一个桶，数量超过两两比较的上限
+        CodeSimilarityAnalyzer analyzer = new CodeSimilarityAnalyzer(4, 2, 1);
+        int cloneCount = 800;
+        for (int i = 0; i < cloneCount; i++) {
+            analyzer.computeFeatureVector("Dto" + i + "#getId()", "getId long return id");
+        }
+        analyzer.computeFeatureVector("Other#parse(String)", "parse string tokens into syntax tree");
+        analyzer.computeSimilarities(0.8);
+
+        assertTrue(analyzer.getOversizedBucketCount() > 0, "应记录超过上限的桶");
+        assertTrue(analyzer.getSkippedPairCount() > 0, "应记录未比较的方法对数");
+
+        // 每个克隆方法都应出现在重复对中，在多个分桶带中相遇的方法对只报告一次
+        Set<String> reported = new HashSet<>();
+        Set<String> reportedPairs = new HashSet<>();
+        List<CodeSimilarityPair> duplicates = analyzer.findPotentialDuplicates(0.8);
+        for (CodeSimilarityPair pair : duplicates) {
+            reported.add(pair.getMethod1Id());
+            reported.add(pair.getMethod2Id());
+            reportedPairs.add(pair.getMethod1Id() + "|" + pair.getMethod2Id());
+        }
+        assertEquals(duplicates.size(), reportedPairs.size(), "候选对应去重");
+        assertEquals(cloneCount, reported.size(), "所有克隆方法都应被报告");
+        assertFalse(reported.contains("Other#parse(String)"));
+    }
+}
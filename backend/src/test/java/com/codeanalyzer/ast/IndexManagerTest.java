@@ -1,8 +1,14 @@
 package com.codeanalyzer.ast;
 
+import com.codeanalyzer.CodeAnalyzerSystem;
+import com.codeanalyzer.config.CacheManager;
+import com.codeanalyzer.config.TuningProfile;
 import com.codeanalyzer.index.IndexLevel;
 import com.codeanalyzer.index.IndexManager;
+import com.codeanalyzer.index.ResultProjection;
 import com.codeanalyzer.index.SearchResult;
+import com.codeanalyzer.index.SearchResultList;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -10,8 +16,15 @@ import org.junit.jupiter.api.io.TempDir;
 
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static com.codeanalyzer.ast.Utils.writeString;
 import static org.junit.jupiter.api.Assertions.*;
@@ -123,6 +136,353 @@ class IndexManagerTest {
         assertTrue(foundJavadoc, "应该找到JavaDoc中包含'数据库连接'的实体");
     }
 
+    @Test
+    void testIncrementalUpdate() throws Exception {
+        // 修改已有文件，并新增一个文件
+        writeString(tempDir.resolve("TestClass.java"),
+                "public class TestClass {\n" +
+                        "    public void closeConnection() {}\n" +
+                        "}\n");
+        writeString(tempDir.resolve("OtherClass.java"),
+                "public class OtherClass {\n" +
+                        "    public void openSession() {}\n" +
+                        "}\n");
+
+        // 只解析变更文件并增量更新索引
+        Set<String> changedFiles = new TreeSet<>(Arrays.asList("TestClass.java", "OtherClass.java"));
+        ParsedProjectStructure changed = parser.parseFiles(tempDir, changedFiles);
+        indexManager.updateIndex(changed, changedFiles, Collections.emptySet());
+
+        // 旧方法的文档应该被替换，新方法可以被检索到
+        assertTrue(indexManager.search("executeQuery", IndexLevel.METHOD, 10).isEmpty(), "旧方法应该已被移除");
+        assertEquals(1, indexManager.search("closeConnection", IndexLevel.METHOD, 10).size());
+        assertEquals(1, indexManager.search("openSession", IndexLevel.METHOD, 10).size());
+
+        // 删除文件后，其文档也应该被移除
+        indexManager.updateIndex(changed, Collections.emptySet(), Collections.singleton("OtherClass.java"));
+        assertTrue(indexManager.search("openSession", IndexLevel.METHOD, 10).isEmpty(), "已删除文件的方法应该被移除");
+    }
+
+    @Test
+    void testStreamingBuild() throws Exception {
+        writeString(tempDir.resolve("OtherClass.java"),
+                "public class OtherClass {\n" +
+                        "    public void openSession() {}\n" +
+                        "}\n");
+
+        // 队列容量为1，解析结果逐个文件交给索引线程写入
+        IndexManager.StreamingBuild build = indexManager.beginStreamingBuild(1);
+        int fileCount = parser.parseProjectStreaming(tempDir, 1, (sourceFile, fileStructure) ->
+                build.submit(sourceFile, fileStructure.getIrMap().values()));
+        build.finish();
+
+        assertEquals(2, fileCount, "应该解析两个文件");
+        assertEquals(1, indexManager.search("executeQuery", IndexLevel.METHOD, 10).size());
+        assertEquals(1, indexManager.search("openSession", IndexLevel.METHOD, 10).size());
+    }
+
+    @Test
+    void testAbortedBuildRollsBack() throws Exception {
+        writeString(tempDir.resolve("OtherClass.java"),
+                "public class OtherClass {\n" +
+                        "    public void openSession() {}\n" +
+                        "}\n");
+        ParsedProjectStructure other = parser.parseFiles(tempDir, Collections.singleton("OtherClass.java"));
+
+        // 清空并写入一个文件后放弃：索引被标记为不完整
+        IndexManager.StreamingBuild build = indexManager.beginStreamingBuild(1);
+        build.submit("OtherClass.java", other.getIrMap().values());
+        build.abort();
+        assertTrue(indexManager.isBuildPending(), "放弃后索引应处于待完成状态");
+        assertThrows(IllegalStateException.class, () -> indexManager.updateIndex(structure,
+                Collections.emptySet(), Collections.emptySet()), "不完整的索引上不能增量更新");
+        assertThrows(IllegalStateException.class, () -> indexManager.commit(), "不完整的索引不能提交");
+
+        // 关闭时回滚，重新打开后回到上一次提交的内容
+        indexManager.close();
+        indexManager = new IndexManager(indexDir.toString());
+        assertFalse(indexManager.isBuildPending());
+        assertEquals(1, indexManager.search("executeQuery", IndexLevel.METHOD, 10).size(),
+                "回滚后应恢复上一次提交的文档");
+        assertEquals(0, indexManager.search("openSession", IndexLevel.METHOD, 10).size(),
+                "放弃的构建写入的文档不应保留");
+    }
+
+    @Test
+    void testParallelBuildDocumentCounts() throws Exception {
+        for (int i = 0; i < 12; i++) {
+            writeString(tempDir.resolve("Worker" + i + ".java"),
+                    "public class Worker" + i + " {\n" +
+                            "    private int count;\n" +
+                            "    public void work" + i + "() {}\n" +
+                            "}\n");
+        }
+        ParsedProjectStructure project = parser.parseProject(tempDir);
+
+        // 单线程构建作为基准
+        indexManager.buildIndex(project);
+        int expected = indexManager.getStats().getDocumentCount();
+        assertTrue(expected > 13 * 3, "每个文件至少有文件、类和方法文档");
+
+        TuningProfile profile = new TuningProfile();
+        profile.setIndexThreadCount(4);
+        try (IndexManager parallel = new IndexManager(indexDir.resolve("parallel").toString(), profile)) {
+            parallel.buildIndex(project);
+            assertEquals(expected, parallel.getStats().getDocumentCount(), "多线程全量构建的文档数");
+
+            // 流式构建经同一个线程池写入，文档数一致
+            IndexManager.StreamingBuild build = parallel.beginStreamingBuild(2);
+            parser.parseProjectStreaming(tempDir, 2, (sourceFile, fileStructure) ->
+                    build.submit(sourceFile, fileStructure.getIrMap().values()));
+            build.finish();
+            assertEquals(expected, parallel.getStats().getDocumentCount(), "多线程流式构建的文档数");
+            for (int i = 0; i < 12; i++) {
+                assertEquals(1, parallel.search("work" + i, IndexLevel.METHOD, 10).size(), "work" + i + "应该可以检索到");
+            }
+        }
+    }
+
+    @Test
+    void testPipelinedRelationsMatchFullBuild() throws Exception {
+        writeString(tempDir.resolve("Caller.java"),
+                "public class Caller {\n" +
+                        "    public void foo() { bar(); }\n" +
+                        "    public void bar() {}\n" +
+                        "}\n");
+
+        List<String> fullIds = relationIds(0, "full");
+        List<String> pipelinedIds = relationIds(2, "pipelined");
+        assertEquals(Collections.singletonList("Caller#foo()"), fullIds, "全量分析应该索引调用关系");
+        assertEquals(fullIds, pipelinedIds, "流水线分析的调用关系应与全量分析一致");
+    }
+
+    /**
+     * 按队列容量分析项目，返回调用bar的实体ID
+     */
+    private List<String> relationIds(int queueCapacity, String indexName) throws Exception {
+        CodeAnalyzerSystem system = new CodeAnalyzerSystem(
+                Arrays.asList(tempDir), indexDir.resolve(indexName).toString(), new TuningProfile());
+        try {
+            system.setPipelineQueueCapacity(queueCapacity);
+            system.analyzeProject(tempDir);
+            List<String> ids = new ArrayList<>();
+            for (SearchResult result : system.searchByRelation("CALLS", "bar", 10)) {
+                ids.add(result.getId());
+            }
+            return ids;
+        } finally {
+            system.close();
+        }
+    }
+
+    @Test
+    void testPipelineWithoutRetainedStructure() throws Exception {
+        writeString(tempDir.resolve("OtherClass.java"),
+                "public class OtherClass {\n" +
+                        "    public void openSession() {}\n" +
+                        "}\n");
+
+        CodeAnalyzerSystem system = new CodeAnalyzerSystem(
+                Arrays.asList(tempDir), indexDir.resolve("pipeline").toString(), new TuningProfile());
+        try {
+            system.setPipelineQueueCapacity(1);
+            system.setRetainProjectStructure(false);
+            system.analyzeProject(tempDir);
+
+            // 每个文件写入索引后即被丢弃：不汇总项目结构，也不缓存编译单元
+            assertNull(system.getProjectStructure(), "不保留时不应持有项目结构");
+            assertEquals(0, system.getUnitCacheStats().getEntries(), "流水线解析不应缓存编译单元");
+            assertEquals(1, system.search("openSession", IndexLevel.METHOD, 10).size());
+            assertEquals(1, system.search("executeQuery", IndexLevel.METHOD, 10).size());
+        } finally {
+            system.close();
+        }
+    }
+
+    @Test
+    void testWildcardQueries() throws Exception {
+        // 以通配符开头的查询被拒绝
+        IndexManager.QueryBuilder leading = new IndexManager.QueryBuilder(new StandardAnalyzer());
+        assertThrows(IllegalArgumentException.class, () -> leading.wildcard(IndexManager.FIELD_NAME, "*Query"));
+
+        // 普通通配符查询在时间预算内完成，结果不应被截断
+        SearchResultList results = indexManager.advancedSearch(
+                new IndexManager.QueryBuilder(new StandardAnalyzer()).wildcard(IndexManager.FIELD_NAME, "execute*"), 10);
+        assertEquals(1, results.size());
+        assertFalse(results.isTruncated(), "查询不应超时");
+    }
+
+    @Test
+    void testCursorPagination() throws Exception {
+        // 文件、类、字段和方法的内容中都包含String
+        SearchResultList all = indexManager.search("String", IndexLevel.ALL, 100);
+        assertTrue(all.size() > 2, "应该有多个匹配结果");
+        assertNull(all.getNextCursor(), "没有更多结果时不应返回游标");
+
+        // 每页两条，逐页翻到最后，结果与一次取全部一致
+        List<String> paged = new ArrayList<>();
+        String cursor = null;
+        do {
+            SearchResultList page = indexManager.search("String", IndexLevel.ALL, 2, cursor);
+            assertTrue(page.size() <= 2);
+            for (SearchResult result : page) {
+                paged.add(result.getId());
+            }
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        List<String> expected = new ArrayList<>();
+        for (SearchResult result : all) {
+            expected.add(result.getId());
+        }
+        assertEquals(expected, paged, "分页结果应与一次查询的结果一致");
+
+        // 无效的游标被拒绝
+        assertThrows(IllegalArgumentException.class,
+                () -> indexManager.search("String", IndexLevel.ALL, 2, "not-a-cursor"));
+    }
+
+    @Test
+    void testResultProjection() throws Exception {
+        // 默认返回全部属性，class和returnType从DocValues读取
+        SearchResult full = indexManager.search("executeQuery", IndexLevel.METHOD, 10).get(0);
+        assertEquals("METHOD", full.getType());
+        assertEquals("TestClass", full.getAttribute("class"));
+        assertEquals("void", full.getAttribute("returnType"));
+        assertNotNull(full.getAttribute("javadoc"));
+
+        // 摘要投影只返回基本信息
+        SearchResult summary = indexManager.search("executeQuery", IndexLevel.METHOD, 10, null,
+                ResultProjection.SUMMARY).get(0);
+        assertEquals(full.getId(), summary.getId());
+        assertEquals("executeQuery", summary.getName());
+        assertEquals("METHOD", summary.getType());
+        assertTrue(summary.getAttributes().isEmpty(), "摘要结果不应包含其他属性");
+
+        // 只请求返回类型
+        SearchResult projected = indexManager.search("executeQuery", IndexLevel.METHOD, 10, null,
+                ResultProjection.parse("returnType")).get(0);
+        assertEquals(Collections.singleton("returnType"), projected.getAttributes().keySet());
+        assertThrows(IllegalArgumentException.class, () -> ResultProjection.parse("unknown"));
+    }
+
+    @Test
+    void testIdentifierSplitting() throws Exception {
+        writeString(tempDir.resolve("UserDao.java"),
+                "public class UserDao {\n" +
+                        "    public void load_user_by_id(int id) {}\n" +
+                        "    public void decodeUtf8Name() {}\n" +
+                        "}\n");
+        Set<String> changedFiles = Collections.singleton("UserDao.java");
+        indexManager.updateIndex(parser.parseFiles(tempDir, changedFiles), changedFiles, Collections.emptySet());
+
+        // 驼峰、下划线和数字拆分后的部分都可以直接命中
+        assertEquals("initDatabaseConnection",
+                indexManager.search("connection", IndexLevel.METHOD, 10).get(0).getName());
+        assertEquals("load_user_by_id", indexManager.search("user", IndexLevel.METHOD, 10).get(0).getName());
+        assertEquals("decodeUtf8Name", indexManager.search("utf", IndexLevel.METHOD, 10).get(0).getName());
+
+        // 完整标识符按原词匹配，不区分大小写
+        SearchResultList exact = indexManager.advancedSearch(
+                indexManager.newQueryBuilder().term(IndexManager.FIELD_NAME, "initDatabaseConnection"), 10);
+        assertEquals(1, exact.size());
+
+        // Java关键字不会被索引
+        assertTrue(indexManager.search("public", IndexLevel.METHOD, 10).isEmpty(), "关键字不应被检索到");
+    }
+
+    @Test
+    void testSuggest() throws Exception {
+        // 名称前缀，短名称优先
+        List<SearchResult> byName = indexManager.suggest("ex", 10);
+        assertEquals(1, byName.size());
+        assertEquals("executeQuery", byName.get(0).getName());
+
+        // 驼峰缩写，不区分大小写
+        assertEquals("initDatabaseConnection", indexManager.suggest("IDC", 10).get(0).getName());
+
+        // 完整ID前缀
+        assertEquals("executeQuery", indexManager.suggest("TestClass#exe", 10).get(0).getName());
+
+        // 名称前缀排在ID前缀之前
+        List<SearchResult> byClass = indexManager.suggest("test", 10);
+        assertEquals("TestClass", byClass.get(0).getName());
+        assertEquals(3, byClass.size(), "类本身和两个方法的ID都以TestClass开头");
+
+        assertTrue(indexManager.suggest(" ", 10).isEmpty());
+    }
+
+    @Test
+    void testNearRealTimeVisibility() throws Exception {
+        TuningProfile profile = new TuningProfile();
+        profile.setMaxStalenessSec(0.1);
+        indexManager.close();
+        indexManager = new IndexManager(indexDir.toString(), profile);
+
+        writeString(tempDir.resolve("OtherClass.java"),
+                "public class OtherClass {\n" +
+                        "    public void openSession() {}\n" +
+                        "}\n");
+        ParsedProjectStructure other = parser.parseFiles(tempDir, Collections.singleton("OtherClass.java"));
+
+        // 流式构建在finish之前不主动刷新，写入由后台线程在最大刷新延迟内变为可见
+        IndexManager.StreamingBuild build = indexManager.beginStreamingBuild(1);
+        build.submit("OtherClass.java", other.getIrMap().values());
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (indexManager.search("openSession", IndexLevel.METHOD, 10).isEmpty() && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(1, indexManager.search("openSession", IndexLevel.METHOD, 10).size(), "写入应在不显式刷新时变为可见");
+        build.finish();
+
+        // 后台刷新和增量更新的显式刷新都不会使进行中的搜索失败
+        indexManager.updateIndex(structure, Collections.singleton("TestClass.java"), Collections.emptySet());
+        AtomicBoolean stop = new AtomicBoolean();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread searcherThread = new Thread(() -> {
+            try {
+                while (!stop.get()) {
+                    assertEquals(1, indexManager.search("executeQuery", IndexLevel.METHOD, 10).size(),
+                            "刷新期间的搜索结果不正确");
+                }
+            } catch (Throwable t) {
+                failure.set(t);
+            }
+        });
+        searcherThread.start();
+        for (int i = 0; i < 20; i++) {
+            indexManager.updateIndex(structure, Collections.singleton("TestClass.java"), Collections.emptySet());
+        }
+        stop.set(true);
+        searcherThread.join();
+        assertNull(failure.get(), "刷新期间的搜索不应失败");
+    }
+
+    @Test
+    void testResultCache() throws Exception {
+        indexManager.setResultCache(new CacheManager(), 60_000);
+
+        // 第二次查询直接从缓存返回，大小写和空白不同的查询经分析后相同
+        SearchResultList first = indexManager.search("execute query", IndexLevel.METHOD, 10);
+        SearchResultList second = indexManager.search(" Execute   QUERY", IndexLevel.METHOD, 10);
+        assertEquals(1, indexManager.getResultCacheMisses());
+        assertEquals(1, indexManager.getResultCacheHits());
+        assertEquals(first.get(0).getId(), second.get(0).getId());
+
+        // 索引更新后读取器版本变化，同一查询重新执行，不会返回旧结果
+        writeString(tempDir.resolve("TestClass.java"),
+                "public class TestClass {\n" +
+                        "    public void executeBatchQuery(String query) {}\n" +
+                        "}\n");
+        Set<String> changedFiles = Collections.singleton("TestClass.java");
+        indexManager.updateIndex(parser.parseFiles(tempDir, changedFiles), changedFiles, Collections.emptySet());
+        SearchResultList updated = indexManager.search("execute query", IndexLevel.METHOD, 10);
+        assertEquals(2, indexManager.getResultCacheMisses(), "索引更新后同一查询应重新执行");
+        assertEquals(1, indexManager.getResultCacheHits());
+        assertEquals(1, updated.size());
+        assertEquals("executeBatchQuery", updated.get(0).getName(), "不应返回过期的缓存结果");
+    }
+
     @AfterEach
     void tearDown() throws Exception {
         if (indexManager != null) {
@@ -0,0 +1,112 @@
+package com.codeanalyzer.ast;
+
+import com.codeanalyzer.semantic.SemanticAnalyzer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+
+import static com.codeanalyzer.ast.Utils.writeString;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 方法调用解析测试（不启用符号解析器，调用目标全部由调用图构建时的符号表推断）
+ */
+class MethodResolverTest {
+
+    private ASTParser parser;
+    private SemanticAnalyzer semanticAnalyzer;
+
+    @TempDir
+    Path tempDir;
+
+    @TempDir
+    Path semanticDir;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        writeString(tempDir.resolve("Base.java"),
+                "public class Base {\n" +
+                        "    public void log(String message) {}\n" +
+                        "}\n");
+        writeString(tempDir.resolve("Repository.java"),
+                "public class Repository {\n" +
+                        "    public void save(String item) {}\n" +
+                        "    public void delete(String item) {}\n" +
+                        "    public static Repository create() { return new Repository(); }\n" +
+                        "}\n");
+        writeString(tempDir.resolve("Archive.java"),
+                "public class Archive {\n" +
+                        "    public void delete(String item) {}\n" +
+                        "}\n");
+        writeString(tempDir.resolve("Service.java"),
+                "public class Service extends Base {\n" +
+                        "    private Repository repository;\n" +
+                        "    public void process(Repository param, String item) {\n" +
+                        "        validate(item);\n" +
+                        "        this.log(item);\n" +
+                        "        param.save(item);\n" +
+                        "        repository.delete(item);\n" +
+                        "        Repository.create();\n" +
+                        "        super.log(item);\n" +
+                        "    }\n" +
+                        "    private void validate(String item) {}\n" +
+                        "}\n");
+        writeString(tempDir.resolve("Outer.java"),
+                "public class Outer {\n" +
+                        "    void audit() {}\n" +
+                        "    class Inner {\n" +
+                        "        void run() {\n" +
+                        "            audit();\n" +
+                        "            delete(\"x\");\n" +
+                        "            format();\n" +
+                        "        }\n" +
+                        "    }\n" +
+                        "}\n");
+
+        parser = new ASTParser(Arrays.asList(tempDir), 1);
+        semanticAnalyzer = new SemanticAnalyzer(semanticDir.toString());
+        semanticAnalyzer.analyzeProject(parser.parseProject(tempDir));
+    }
+
+    @Test
+    void testReceiverTypes() {
+        Map<String, Integer> callees = semanticAnalyzer.findCallNeighborhood("Service#process", "callees", 1);
+
+        assertTrue(callees.containsKey("Repository#save"), "参数接收者应解析为参数类型: " + callees.keySet());
+        assertTrue(callees.containsKey("Repository#delete"), "字段接收者应解析为字段类型: " + callees.keySet());
+        assertFalse(callees.containsKey("Archive#delete"), "字段类型已知时不应匹配其他类的同名方法");
+        assertTrue(callees.containsKey("Repository#create"), "类名接收者应解析为静态调用: " + callees.keySet());
+        assertTrue(callees.containsKey("Base#log"), "this和super调用应解析到父类声明: " + callees.keySet());
+    }
+
+    @Test
+    void testUnqualifiedCalls() {
+        Map<String, Integer> serviceCallees = semanticAnalyzer.findCallNeighborhood("Service#process", "callees", 1);
+        assertTrue(serviceCallees.containsKey("Service#validate"), "无作用域调用应解析到当前类: " + serviceCallees.keySet());
+
+        Map<String, Integer> innerCallees = semanticAnalyzer.findCallNeighborhood("Inner#run", "callees", 1);
+        // 当前类层次中没有声明时，按项目中唯一声明该方法的类解析
+        assertTrue(innerCallees.containsKey("Outer#audit"), "外部类的方法应按方法名解析: " + innerCallees.keySet());
+        assertFalse(innerCallees.containsKey("Inner#audit"), "不应指向当前类中不存在的方法");
+        // 多个类声明了同名方法时无法确定，保留原始方法名
+        assertTrue(innerCallees.containsKey("delete"), "有歧义的方法名应保持未解析: " + innerCallees.keySet());
+        // 项目中没有声明的方法也保持未解析
+        assertTrue(innerCallees.containsKey("format"), "项目外的方法应保持未解析: " + innerCallees.keySet());
+        assertFalse(innerCallees.containsKey("Inner#format"), "不应指向当前类中不存在的方法");
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (semanticAnalyzer != null) {
+            semanticAnalyzer.close();
+        }
+        if (parser != null) {
+            parser.shutdown();
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.codeanalyzer.ast;
+
+import com.codeanalyzer.config.LatencyHistogram;
+import com.codeanalyzer.config.OperationMetric;
+import com.codeanalyzer.config.PerformanceMonitor;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 性能监控器和耗时直方图测试
+ */
+class PerformanceMonitorTest {
+
+    @Test
+    void testHistogramPercentiles() {
+        LatencyHistogram first = new LatencyHistogram();
+        LatencyHistogram second = new LatencyHistogram();
+        // 1~1000微秒各一次，分两个直方图记录后合并
+        for (int i = 1; i <= 1000; i++) {
+            (i % 2 == 0 ? first : second).record(TimeUnit.MICROSECONDS.toNanos(i));
+        }
+        first.merge(second);
+
+        assertEquals(1000, first.getCount(), "合并后的记录次数");
+        assertWithin(500, first.getValueAtPercentile(50), "p50");
+        assertWithin(990, first.getValueAtPercentile(99), "p99");
+        assertWithin(999, first.getValueAtPercentile(99.9), "p999");
+        assertEquals(TimeUnit.MICROSECONDS.toNanos(1000), first.getMaxNanos(), "最大值");
+    }
+
+    @Test
+    void testOperationMetrics() {
+        PerformanceMonitor monitor = new PerformanceMonitor();
+        try (PerformanceMonitor.Timer timer = monitor.start("search.method")) {
+            assertNotNull(timer);
+        }
+        monitor.record("index.document", TimeUnit.MILLISECONDS.toNanos(2), 10);
+        String operationId = monitor.startOperation("Project Parse");
+        assertTrue(monitor.endOperation(operationId) >= 0, "应该返回操作耗时");
+        assertEquals(-1, monitor.endOperation(operationId), "重复结束的操作应返回-1");
+
+        assertEquals(3, monitor.getAllMetrics().size(), "操作类型数");
+        OperationMetric indexMetric = monitor.getOperationMetric("index.document");
+        assertEquals(10, indexMetric.getCount(), "批量记录的次数");
+        assertEquals(2.0, indexMetric.getAverageMillis(), 0.001, "平均耗时");
+        assertEquals(10, indexMetric.getRecentHistogram().getCount(), "最近一分钟的记录次数");
+        assertWithin(2000, indexMetric.getHistogram().getValueAtPercentile(99), "p99");
+    }
+
+    @Test
+    void testTimedOperations() {
+        PerformanceMonitor monitor = new PerformanceMonitor();
+        assertEquals("done", monitor.time("semantic.calls", () -> "done"), "应该返回操作的结果");
+        monitor.run("semantic.stage.quality", () -> { });
+        assertThrows(IllegalStateException.class, () -> monitor.run("semantic.stage.quality", () -> {
+            throw new IllegalStateException("失败");
+        }));
+
+        assertEquals(1, monitor.getOperationMetric("semantic.calls").getCount(), "有返回值的操作次数");
+        assertEquals(2, monitor.getOperationMetric("semantic.stage.quality").getCount(), "抛出异常的操作也应记录");
+    }
+
+    // 直方图的相对误差约3%
+    private static void assertWithin(long expectedMicros, long actualNanos, String name) {
+        double actualMicros = actualNanos / 1000.0;
+        assertTrue(Math.abs(actualMicros - expectedMicros) <= expectedMicros * 0.04,
+                name + " 期望约" + expectedMicros + "微秒，实际" + actualMicros);
+    }
+}
@@ -131,6 +131,61 @@ class SemanticAnalyzerTest {
                 "CalculatorUser.sum应该调用Calculator.add");
     }
 
+    @Test
+    void testCallGraphTraversal() throws Exception {
+        // 被调用者方向：CalculatorUser.sum一跳调用Calculator.add
+        Map<String, Integer> callees = semanticAnalyzer.findCallNeighborhood("CalculatorUser#sum", "callees", 0);
+        assertEquals(Integer.valueOf(1), callees.get("Calculator#add"), "Calculator.add应该在一跳以内");
+
+        // 调用者方向：Calculator.add被CalculatorUser.sum调用
+        Map<String, Integer> callers = semanticAnalyzer.findCallNeighborhood("Calculator#add", "callers", 1);
+        assertTrue(callers.containsKey("CalculatorUser#sum"), "Calculator.add的调用者应包含CalculatorUser.sum");
+
+        // 最短调用路径
+        assertEquals(Arrays.asList("CalculatorUser#sum", "Calculator#add"),
+                semanticAnalyzer.findCallPath("CalculatorUser#sum", "Calculator#add"), "调用路径不正确");
+        assertTrue(semanticAnalyzer.findCallPath("Calculator#add", "CalculatorUser#sum").isEmpty(),
+                "反方向不应存在调用路径");
+
+        // 可达性
+        assertTrue(semanticAnalyzer.findReachableMethods(Arrays.asList("CalculatorUser#difference"))
+                .contains("Calculator#subtract"), "Calculator.subtract应该可达");
+    }
+
+    @Test
+    void testCallGraphDeduplication() {
+        CallGraph graph = new CallGraph();
+        graph.addCall("A#a", "B#b");
+        graph.addCall("A#a", "B#b");
+        graph.addCall("B#b", "C#c");
+        assertEquals(2, graph.getEdgeCount(), "重复的调用关系只计一次");
+        assertEquals(Arrays.asList("A#a", "B#b", "C#c"), graph.findShortestPath("A#a", "C#c"), "调用路径不正确");
+
+        // 编译后继续添加边，已有的边保留
+        graph.addCall("C#c", "D#d");
+        graph.addCall("A#a", "B#b");
+        assertEquals(3, graph.getEdgeCount(), "编译后添加的边应计入");
+        assertTrue(graph.getCallers("B#b").contains("A#a"), "已有的调用关系不应丢失");
+        assertEquals(Integer.valueOf(3), graph.getNeighborhood("A#a", CallDirection.CALLEES, 0).get("D#d"),
+                "D.d应该在三跳处");
+    }
+
+    @Test
+    void testQueriesAfterClose() throws Exception {
+        assertFalse(semanticAnalyzer.findRelatedMethods("CalculatorUser#sum", "callees").isEmpty());
+        semanticAnalyzer.close();
+        semanticAnalyzer.close();
+
+        // 关闭后开始的索引查询被明确拒绝，而不是在已关闭的searcher上抛出AlreadyClosedException
+        assertTrue(semanticAnalyzer.isClosed());
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> semanticAnalyzer.findRelatedMethods("CalculatorUser#sum", "callees"));
+        assertEquals(IllegalStateException.class, e.getClass(), "意外的查询异常: " + e);
+
+        // 内存中的调用图不依赖子索引，仍然可以查询
+        assertFalse(semanticAnalyzer.findCallNeighborhood("CalculatorUser#sum", "callees", 1).isEmpty());
+    }
+
     @Test
     void testDataFlow() throws Exception {
         // 测试数据流 - Calculator.add方法的参数和返回值
@@ -172,6 +227,35 @@ class SemanticAnalyzerTest {
         assertTrue(foundSimilar, "应该找到与Calculator.add相似的方法");
     }
 
+    @Test
+    void testSearchIdsAcceptedBySemanticQueries() throws Exception {
+        assertEquals("Calc#add", SemanticAnalyzer.toMethodKey("com.example.Calc#add(java.util.List<a.B>,int)"));
+        assertEquals("Calc#add", SemanticAnalyzer.toMethodKey("Calc#add"));
+        assertEquals("com.example.Calc", SemanticAnalyzer.toMethodKey("com.example.Calc"), "非方法ID应原样返回");
+
+        // 搜索结果中的IR ID可以直接用于调用图和数据流查询
+        String sumId = "CalculatorUser#sum(int,int)";
+        String addId = "Calculator#add(int,int)";
+        assertTrue(structure.getIrMap().containsKey(sumId), "IR ID格式不正确");
+        assertEquals(semanticAnalyzer.findRelatedMethods("CalculatorUser#sum", "callees"),
+                semanticAnalyzer.findRelatedMethods(sumId, "callees"), "IR ID和类名#方法名应查到相同的被调用方法");
+        assertEquals(Arrays.asList("CalculatorUser#sum", "Calculator#add"),
+                semanticAnalyzer.findCallPath(sumId, addId), "IR ID应能查询调用路径");
+        assertNotNull(semanticAnalyzer.findDataFlowNode(addId), "IR ID应能查询数据流");
+
+        // 相似方法按查询时的ID形式返回，method1Id就是查询的方法
+        for (CodeSimilarityPair pair : semanticAnalyzer.findSimilarMethods("Calculator#add", 0.0)) {
+            assertEquals("Calculator#add", pair.getMethod1Id(), "按类名#方法名查询应返回类名#方法名");
+            assertFalse(pair.getMethod2Id().contains("("), "相似方法ID应与查询形式一致");
+        }
+        List<CodeSimilarityPair> byIrId = semanticAnalyzer.findSimilarMethods(addId, 0.0);
+        assertFalse(byIrId.isEmpty(), "按IR ID应能查询相似方法");
+        for (CodeSimilarityPair pair : byIrId) {
+            assertEquals(addId, pair.getMethod1Id(), "按IR ID查询应返回IR ID");
+            assertTrue(pair.getMethod2Id().endsWith(")"), "相似方法ID应与查询形式一致");
+        }
+    }
+
     @Test
     void testConceptExtraction() throws Exception {
         // 测试概念提取 - "计算器"概念应该被提取
@@ -209,7 +293,10 @@ class SemanticAnalyzerTest {
     }
 
     @AfterEach
-    void tearDown() {
+    void tearDown() throws Exception {
+        if (semanticAnalyzer != null) {
+            semanticAnalyzer.close();
+        }
         if (parser != null) {
             parser.shutdown();
         }
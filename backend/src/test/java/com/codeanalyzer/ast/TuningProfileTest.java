@@ -0,0 +1,111 @@
+package com.codeanalyzer.ast;
+
+import com.codeanalyzer.api.TuningConfiguration;
+import com.codeanalyzer.config.ConfigurationManager;
+import com.codeanalyzer.config.TuningProfile;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.index.ConcurrentMergeScheduler;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LogByteSizeMergePolicy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 调优参数测试：application.properties -> ConfigurationManager -> TuningProfile -> IndexWriterConfig
+ */
+class TuningProfileTest {
+    // 测试会修改的配置项，ConfigurationManager是全局单例，测试结束后恢复
+    private static final List<String> TOUCHED_KEYS = Arrays.asList(
+            "parser.threadCount", "index.threadCount", "index.ramBufferSizeMB", "index.useCompoundFile",
+            "index.mergePolicy", "index.mergeFactor", "index.mergeThreadCount", "index.maxStalenessSec",
+            "cache.maxEntries");
+
+    private final Map<String, String> savedConfig = new HashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        ConfigurationManager configManager = ConfigurationManager.getInstance();
+        for (String key : TOUCHED_KEYS) {
+            savedConfig.put(key, configManager.getStringConfig(key, null));
+        }
+    }
+
+    @Test
+    void testPropertiesReachIndexWriterConfig() {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("analyzer.tuning.auto", "false");
+        properties.put("analyzer.index.ram-buffer-size-mb", "48");
+        properties.put("analyzer.index.use-compound-file", "false");
+        properties.put("analyzer.index.merge-policy", "logByteSize");
+        properties.put("analyzer.index.merge-factor", "7");
+        properties.put("analyzer.index.merge-thread-count", "3");
+        properties.put("analyzer.index.max-staleness-sec", "0.5");
+
+        TuningProfile profile = new TuningConfiguration().tuningProfile(environment(properties));
+        assertEquals(0.5, profile.getMaxStalenessSec(), 1e-9, "最大刷新延迟应来自配置");
+
+        IndexWriterConfig config = profile.applyTo(new IndexWriterConfig(new StandardAnalyzer()));
+        assertEquals(48.0, config.getRAMBufferSizeMB(), 1e-9, "内存缓冲区应来自配置");
+        assertFalse(config.getUseCompoundFile(), "复合文件开关应来自配置");
+
+        assertTrue(config.getMergePolicy() instanceof LogByteSizeMergePolicy, "合并策略应来自配置");
+        assertEquals(7, ((LogByteSizeMergePolicy) config.getMergePolicy()).getMergeFactor(), "合并因子应来自配置");
+
+        assertTrue(config.getMergeScheduler() instanceof ConcurrentMergeScheduler, "指定合并线程数时应使用并发合并调度器");
+        ConcurrentMergeScheduler scheduler = (ConcurrentMergeScheduler) config.getMergeScheduler();
+        assertEquals(3, scheduler.getMaxThreadCount(), "合并线程数应来自配置");
+        assertEquals(8, scheduler.getMaxMergeCount(), "允许排队的合并数应比线程数多5个");
+    }
+
+    @Test
+    void testExplicitPropertiesOverrideAutoTuning() {
+        // 自动调优按可用内存决定是否使用复合文件，显式配置取相反的值
+        boolean autoCompoundFile = Runtime.getRuntime().maxMemory() < 4L * 1024 * 1024 * 1024;
+
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("analyzer.tuning.auto", "true");
+        properties.put("analyzer.index.ram-buffer-size-mb", "40");
+        properties.put("analyzer.index.use-compound-file", String.valueOf(!autoCompoundFile));
+        properties.put("analyzer.index.merge-thread-count", "6");
+
+        TuningProfile profile = new TuningConfiguration().tuningProfile(environment(properties));
+
+        // 没有显式指定的参数保留自动调优的结果
+        int processors = Runtime.getRuntime().availableProcessors();
+        assertEquals(processors + 1, profile.getParserThreadCount(), "解析线程数应来自自动调优");
+        assertEquals(processors, profile.getIndexThreadCount(), "索引线程数应来自自动调优");
+
+        // 自动调优的缓冲区至少64MB、合并线程最多4个，显式配置的值覆盖它们
+        IndexWriterConfig config = profile.applyTo(new IndexWriterConfig(new StandardAnalyzer()));
+        assertEquals(40.0, config.getRAMBufferSizeMB(), 1e-9, "显式配置的内存缓冲区应覆盖自动调优");
+        assertEquals(!autoCompoundFile, config.getUseCompoundFile(), "显式配置的复合文件开关应覆盖自动调优");
+        assertEquals(6, ((ConcurrentMergeScheduler) config.getMergeScheduler()).getMaxThreadCount(),
+                "显式配置的合并线程数应覆盖自动调优");
+    }
+
+    private static StandardEnvironment environment(Map<String, Object> properties) {
+        StandardEnvironment environment = new StandardEnvironment();
+        environment.getPropertySources().addFirst(new MapPropertySource("test", properties));
+        return environment;
+    }
+
+    @AfterEach
+    void tearDown() {
+        ConfigurationManager configManager = ConfigurationManager.getInstance();
+        for (Map.Entry<String, String> entry : savedConfig.entrySet()) {
+            if (entry.getValue() != null) {
+                configManager.setConfig(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.codeanalyzer.benchmark;
+
+import com.codeanalyzer.corpus.SyntheticCorpusGenerator;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * 基准测试语料 - 使用固定随机种子生成Java源文件，相同参数总是生成相同的代码
+ */
+public final class BenchmarkCorpus {
+    // 固定随机种子
+    private static final long SEED = 42L;
+
+    private BenchmarkCorpus() {
+    }
+
+    /**
+     * 在目录下生成约指定数量的类，每个类一个文件
+     * @param rootDir 输出目录
+     * @param classCount 类数量
+     */
+    public static void generate(Path rootDir, int classCount) throws IOException {
+        SyntheticCorpusGenerator.forFileCount(classCount)
+                .seed(SEED)
+                .generate(rootDir);
+    }
+
+    /**
+     * 删除生成的语料目录
+     */
+    public static void delete(Path rootDir) throws IOException {
+        if (rootDir == null || !Files.exists(rootDir)) {
+            return;
+        }
+        try (Stream<Path> stream = Files.walk(rootDir)) {
+            stream.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+}
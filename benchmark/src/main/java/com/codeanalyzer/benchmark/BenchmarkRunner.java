@@ -0,0 +1,40 @@
+package com.codeanalyzer.benchmark;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * 基准测试入口
+ * 支持全部JMH命令行参数，未指定时默认运行所有基准并以JSON格式输出到jmh-result.json，
+ * 便于在版本之间对比结果
+ * 例如: java -jar benchmark/target/benchmarks.jar SearchBenchmark -rff search.json
+ */
+public final class BenchmarkRunner {
+    // 默认结果文件
+    private static final String DEFAULT_RESULT_FILE = "jmh-result.json";
+    // 默认运行的基准
+    private static final String DEFAULT_INCLUDE = "com\\.codeanalyzer\\..*Benchmark";
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        ChainedOptionsBuilder builder = new OptionsBuilder().parent(commandLine);
+
+        if (!commandLine.getResultFormat().hasValue()) {
+            builder.resultFormat(ResultFormatType.JSON);
+        }
+        if (!commandLine.getResult().hasValue()) {
+            builder.result(DEFAULT_RESULT_FILE);
+        }
+        if (commandLine.getIncludes().isEmpty()) {
+            builder.include(DEFAULT_INCLUDE);
+        }
+
+        new Runner(builder.build()).run();
+    }
+}
@@ -0,0 +1,67 @@
+package com.codeanalyzer.benchmark;
+
+import com.codeanalyzer.ast.ASTParser;
+import com.codeanalyzer.ast.ParsedProjectStructure;
+import com.codeanalyzer.config.TuningProfile;
+import com.codeanalyzer.index.IndexManager;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 索引构建基准，解析结果在测试开始前准备好，只测量buildIndex
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class IndexBenchmark {
+    @Param({"200", "1000"})
+    public int classCount;
+
+    // 索引构建线程数，1为单线程基线
+    @Param({"1", "8"})
+    public int indexThreads;
+
+    private Path corpusDir;
+    private Path indexDir;
+    private ParsedProjectStructure structure;
+    private IndexManager indexManager;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        corpusDir = Files.createTempDirectory("jca-bench-corpus");
+        BenchmarkCorpus.generate(corpusDir, classCount);
+
+        ASTParser parser = new ASTParser(Collections.singletonList(corpusDir), 4);
+        try {
+            structure = parser.parseProject(corpusDir);
+        } finally {
+            parser.shutdown();
+        }
+
+        indexDir = Files.createTempDirectory("jca-bench-index");
+        TuningProfile profile = new TuningProfile();
+        profile.setIndexThreadCount(indexThreads);
+        indexManager = new IndexManager(indexDir.toString(), profile);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        indexManager.close();
+        BenchmarkCorpus.delete(indexDir);
+        BenchmarkCorpus.delete(corpusDir);
+    }
+
+    @Benchmark
+    public void buildIndex() throws IOException {
+        // buildIndex会先清空已有文档，每次调用都是完整重建
+        indexManager.buildIndex(structure);
+    }
+}
@@ -0,0 +1,49 @@
+package com.codeanalyzer.benchmark;
+
+import com.codeanalyzer.ast.ASTParser;
+import com.codeanalyzer.ast.ParsedProjectStructure;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 项目解析基准
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ParseBenchmark {
+    @Param({"200", "1000"})
+    public int classCount;
+
+    @Param({"4"})
+    public int threadCount;
+
+    private Path corpusDir;
+    private ASTParser parser;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        corpusDir = Files.createTempDirectory("jca-bench-corpus");
+        BenchmarkCorpus.generate(corpusDir, classCount);
+        parser = new ASTParser(Collections.singletonList(corpusDir), threadCount);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        parser.shutdown();
+        BenchmarkCorpus.delete(corpusDir);
+    }
+
+    @Benchmark
+    public ParsedProjectStructure parseProject() {
+        return parser.parseProject(corpusDir);
+    }
+}
@@ -0,0 +1,84 @@
+package com.codeanalyzer.benchmark;
+
+import com.codeanalyzer.ast.ASTParser;
+import com.codeanalyzer.ast.ParsedProjectStructure;
+import com.codeanalyzer.config.TuningProfile;
+import com.codeanalyzer.index.IndexLevel;
+import com.codeanalyzer.index.IndexManager;
+import com.codeanalyzer.index.ResultProjection;
+import com.codeanalyzer.index.SearchResult;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 各索引级别的搜索基准
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SearchBenchmark {
+    @Param({"1000"})
+    public int classCount;
+
+    @Param({"ALL", "FILE", "CLASS", "INTERFACE", "METHOD", "FIELD", "SNIPPET"})
+    public IndexLevel level;
+
+    @Param({"customer", "database connection"})
+    public String query;
+
+    @Param({"10", "1000"})
+    public int maxResults;
+
+    // ALL读取全部属性，SUMMARY只读取id、name、type、path
+    @Param({"ALL", "SUMMARY"})
+    public String projection;
+
+    private Path corpusDir;
+    private Path indexDir;
+    private IndexManager indexManager;
+    private ResultProjection resultProjection;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        corpusDir = Files.createTempDirectory("jca-bench-corpus");
+        BenchmarkCorpus.generate(corpusDir, classCount);
+
+        ParsedProjectStructure structure;
+        ASTParser parser = new ASTParser(Collections.singletonList(corpusDir), 4);
+        try {
+            structure = parser.parseProject(corpusDir);
+        } finally {
+            parser.shutdown();
+        }
+
+        indexDir = Files.createTempDirectory("jca-bench-index");
+        // 放开单次查询的结果数上限，大页面的结果转换开销才能体现出来
+        TuningProfile profile = new TuningProfile();
+        profile.setMaxQueryResults(Math.max(maxResults, profile.getMaxQueryResults()));
+        indexManager = new IndexManager(indexDir.toString(), profile);
+        indexManager.buildIndex(structure);
+
+        resultProjection = "SUMMARY".equals(projection) ? ResultProjection.SUMMARY : ResultProjection.ALL;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        indexManager.close();
+        BenchmarkCorpus.delete(indexDir);
+        BenchmarkCorpus.delete(corpusDir);
+    }
+
+    @Benchmark
+    public List<SearchResult> search() throws Exception {
+        return indexManager.search(query, level, maxResults, null, resultProjection);
+    }
+}
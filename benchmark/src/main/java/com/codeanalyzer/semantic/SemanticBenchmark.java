@@ -0,0 +1,114 @@
+package com.codeanalyzer.semantic;
+
+import com.codeanalyzer.ast.ASTParser;
+import com.codeanalyzer.ast.CodeEntity;
+import com.codeanalyzer.ast.EntityType;
+import com.codeanalyzer.ast.IntermediateRepresentation;
+import com.codeanalyzer.ast.ParsedProjectStructure;
+import com.codeanalyzer.benchmark.BenchmarkCorpus;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 语义分析各阶段的基准（不含索引写入）
+ * 位于semantic包内，以便直接使用包级可见的MethodResolver和ConceptExtractor
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SemanticBenchmark {
+    @Param({"200", "1000"})
+    public int classCount;
+
+    private Path corpusDir;
+    private ParsedProjectStructure structure;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        corpusDir = Files.createTempDirectory("jca-bench-corpus");
+        BenchmarkCorpus.generate(corpusDir, classCount);
+
+        ASTParser parser = new ASTParser(Collections.singletonList(corpusDir), 4);
+        try {
+            structure = parser.parseProject(corpusDir);
+        } finally {
+            parser.shutdown();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        BenchmarkCorpus.delete(corpusDir);
+    }
+
+    /**
+     * 调用图构建：与SemanticAnalyzer.buildCallGraph相同的解析过程
+     */
+    @Benchmark
+    public CallGraph buildCallGraph() {
+        List<CodeEntity> entities = structure.getEntities();
+        MethodResolver methodResolver = new MethodResolver(entities);
+        CallGraph callGraph = new CallGraph();
+
+        for (CodeEntity entity : entities) {
+            if (entity.getType() != EntityType.METHOD) {
+                continue;
+            }
+            String methodId = entity.getParentName() + "#" + entity.getName();
+            for (String calledMethod : entity.getMethodCalls()) {
+                for (String target : methodResolver.resolve(entity, calledMethod)) {
+                    callGraph.addCall(methodId, target);
+                }
+            }
+        }
+
+        // 触发邻接数组编译
+        if (!callGraph.getMethodIds().isEmpty()) {
+            callGraph.getCallees(callGraph.getMethodIds().get(0));
+        }
+        return callGraph;
+    }
+
+    /**
+     * 代码相似度：特征向量、LSH候选和精确相似度
+     */
+    @Benchmark
+    public List<CodeSimilarityPair> codeSimilarity() {
+        CodeSimilarityAnalyzer analyzer = new CodeSimilarityAnalyzer();
+        for (IntermediateRepresentation ir : structure.getIrMap().values()) {
+            if (ir.getType().equals("METHOD")) {
+                analyzer.computeFeatureVector(ir.getId(), ir.getText());
+            }
+        }
+        analyzer.computeSimilarities(0.8);
+        return analyzer.findPotentialDuplicates(0.8);
+    }
+
+    /**
+     * 概念提取与排序
+     */
+    @Benchmark
+    public Map<String, Set<ConceptOccurrence>> conceptExtraction() {
+        ConceptExtractor extractor = new ConceptExtractor();
+        for (IntermediateRepresentation ir : structure.getIrMap().values()) {
+            String javadoc = (String)ir.getAttribute("javadoc");
+            if (javadoc != null && !javadoc.isEmpty()) {
+                extractor.processText(ir.getId(), javadoc, ConceptSource.JAVADOC);
+            }
+            extractor.processText(ir.getId(), ir.getName(), ConceptSource.IDENTIFIER);
+            extractor.processText(ir.getId(), ir.getText(), ConceptSource.CODE);
+        }
+        return extractor.rankConcepts();
+    }
+}
@@ -11,6 +11,32 @@ function CodeSearchPanel({ projectId }) {
     const [searchResults, setSearchResults] = useState([]);
     const [isSearching, setIsSearching] = useState(false);
     const [searchError, setSearchError] = useState('');
+    // 全文搜索下一页的游标，没有更多结果时为null
+    const [nextCursor, setNextCursor] = useState(null);
+    const [lastSearchUrl, setLastSearchUrl] = useState('');
+    // 类名和方法名的输入提示
+    const [suggestions, setSuggestions] = useState([]);
+
+    const handleQueryChange = async (value) => {
+        setSearchQuery(value);
+
+        // 只在全文搜索且输入了至少两个字符时请求补全
+        if (searchType !== 'text' || value.trim().length < 2) {
+            setSuggestions([]);
+            return;
+        }
+
+        try {
+            const response = await fetch(`/api/v1/projects/${projectId}/suggest?prefix=${encodeURIComponent(value.trim())}&maxResults=8`);
+            if (response.ok) {
+                const data = await response.json();
+                setSuggestions([...new Set(data.map(item => item.name))]);
+            }
+        } catch (error) {
+            // 补全失败不影响搜索
+            setSuggestions([]);
+        }
+    };
 
     const handleSearch = async (e) => {
         e.preventDefault();
@@ -23,6 +49,7 @@ function CodeSearchPanel({ projectId }) {
         try {
             setIsSearching(true);
             setSearchError('');
+            setNextCursor(null);
 
             let url;
             if (searchType === 'text') {
@@ -44,6 +71,8 @@ function CodeSearchPanel({ projectId }) {
             if (response.ok) {
                 const data = await response.json();
                 setSearchResults(data);
+                setLastSearchUrl(url);
+                setNextCursor(response.headers.get('X-Next-Cursor'));
                 if (data.length === 0) {
                     setSearchError('没有找到匹配的结果');
                 }
@@ -58,6 +87,32 @@ function CodeSearchPanel({ projectId }) {
         }
     };
 
+    // 按游标加载下一页，追加到已有结果之后
+    const handleLoadMore = async () => {
+        if (!nextCursor) {
+            return;
+        }
+
+        try {
+            setIsSearching(true);
+            setSearchError('');
+
+            const response = await fetch(`${lastSearchUrl}&cursor=${encodeURIComponent(nextCursor)}`);
+
+            if (response.ok) {
+                const data = await response.json();
+                setSearchResults(prev => [...prev, ...data]);
+                setNextCursor(response.headers.get('X-Next-Cursor'));
+            } else {
+                setSearchError('加载更多结果失败');
+            }
+        } catch (error) {
+            setSearchError('加载更多结果时发生错误');
+        } finally {
+            setIsSearching(false);
+        }
+    };
+
     return (
         <div>
             <h2 className="text-xl font-semibold text-gray-800 mb-6">代码搜索</h2>
@@ -70,11 +125,17 @@ function CodeSearchPanel({ projectId }) {
                             <input
                                 id="search-query"
                                 type="text"
+                                list="search-suggestions"
                                 value={searchQuery}
-                                onChange={(e) => setSearchQuery(e.target.value)}
+                                onChange={(e) => handleQueryChange(e.target.value)}
                                 placeholder={searchType === 'relation' ? "格式：IMPLEMENTS:Serializable" : "搜索代码或注释..."}
                                 className="w-full px-3 py-2 border border-gray-300 rounded-md focus:outline-none focus:ring-1 focus:ring-blue-500"
                             />
+                            <datalist id="search-suggestions">
+                                {suggestions.map(name => (
+                                    <option key={name} value={name} />
+                                ))}
+                            </datalist>
                         </div>
 
                         <div>
@@ -201,6 +262,19 @@ function CodeSearchPanel({ projectId }) {
                             </div>
                         ))}
                     </div>
+
+                    {nextCursor && (
+                        <div className="flex justify-center mt-4">
+                            <button
+                                type="button"
+                                onClick={handleLoadMore}
+                                disabled={isSearching}
+                                className="px-4 py-2 border border-gray-300 text-gray-700 hover:bg-gray-50 rounded-md"
+                            >
+                                {isSearching ? '加载中...' : '加载更多'}
+                            </button>
+                        </div>
+                    )}
                 </div>
             )}
         </div>